@@ -0,0 +1,30 @@
+package com.matthew.RecipeGenerator.Actuator;
+
+import com.matthew.RecipeGenerator.Service.IngredientAnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+@Component
+@Endpoint(id = "ingredientanalytics")
+public class IngredientAnalyticsEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    @Autowired
+    private IngredientAnalyticsService ingredientAnalyticsService;
+
+    @ReadOperation
+    public Map<String, List<Map.Entry<String, Long>>> topRequested(@Nullable Integer limit) {
+        int k = limit != null ? limit : DEFAULT_LIMIT;
+        return Map.of(
+                "ingredientSets", ingredientAnalyticsService.topIngredientSets(k),
+                "ingredients", ingredientAnalyticsService.topIngredients(k)
+        );
+    }
+}
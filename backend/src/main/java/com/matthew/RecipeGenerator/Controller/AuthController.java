@@ -1,48 +1,52 @@
 package com.matthew.RecipeGenerator.Controller;
 
+import com.matthew.RecipeGenerator.Dto.RotatedRefreshToken;
 import com.matthew.RecipeGenerator.Dto.TokenRefreshRequest;
 import com.matthew.RecipeGenerator.Dto.TokenRefreshResponse;
 import com.matthew.RecipeGenerator.Dto.UserLoginRequest;
 import com.matthew.RecipeGenerator.Dto.UserRegistrationRequest;
 import com.matthew.RecipeGenerator.Model.PasswordResetToken;
-import com.matthew.RecipeGenerator.Model.RefreshToken;
 import com.matthew.RecipeGenerator.Model.User;
 import com.matthew.RecipeGenerator.Repo.PasswordResetTokenRepo;
 import com.matthew.RecipeGenerator.Repo.UserRepo;
 import com.matthew.RecipeGenerator.Security.Jwt.JwtUtil;
+import com.matthew.RecipeGenerator.Security.PasswordHasher;
+import com.matthew.RecipeGenerator.Security.PrincipalCache;
+import com.matthew.RecipeGenerator.Security.RateLimitFilter;
 import com.matthew.RecipeGenerator.Service.EmailVerificationService;
 import com.matthew.RecipeGenerator.Service.PasswordResetService;
 import com.matthew.RecipeGenerator.Service.RefreshTokenService;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
 public class AuthController {
     private final UserRepo userRepository;
-    private final PasswordEncoder passwordEncoder;
-    private final AuthenticationManager authenticationManager;
+    private final PasswordHasher passwordHasher;
     private final JwtUtil jwtUtil;
     private final EmailVerificationService emailVerificationService;
     private final PasswordResetService passwordResetService;
     private final PasswordResetTokenRepo tokenRepository;
     private final RefreshTokenService refreshTokenService;
+    private final PrincipalCache principalCache;
+    private final RateLimitFilter rateLimitFilter;
 
     @GetMapping("/me")
     public ResponseEntity<?> getCurrentUser(@AuthenticationPrincipal User user) {
@@ -69,6 +73,8 @@ public class AuthController {
         try {
             passwordResetService.resetPassword(token, newPassword);
             return ResponseEntity.ok("Password reset successfully.");
+        } catch (RejectedExecutionException e) {
+            return serviceBusy();
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -96,15 +102,12 @@ public class AuthController {
     public ResponseEntity<?> verifyEmail(@RequestParam String token) {
         User user = emailVerificationService.verifyEmailAndGetUser(token);
         if (user != null) {
-            Authentication authentication = new UsernamePasswordAuthenticationToken(
-                    user, null, user.getAuthorities());
-
-            String jwt = jwtUtil.generateToken(authentication);
-            RefreshToken refreshToken = refreshTokenService.createRefreshToken(user);
+            String jwt = jwtUtil.generateToken(user);
+            String refreshToken = refreshTokenService.createRefreshToken(user);
 
             Map<String, Object> response = new HashMap<>();
             response.put("accessToken", jwt);
-            response.put("refreshToken", refreshToken.getToken());
+            response.put("refreshToken", refreshToken);
             response.put("message", "Email verified successfully");
 
             return ResponseEntity.ok(response);
@@ -115,21 +118,16 @@ public class AuthController {
 
     @PostMapping("/refresh-token")
     public ResponseEntity<?> refreshToken(@RequestBody TokenRefreshRequest request) {
-        String requestRefreshToken = request.getRefreshToken();
-
-        return refreshTokenService.findByToken(requestRefreshToken)
-                .map(refreshTokenService::verifyExpiration)
-                .map(token -> {
-                    User user = token.getUser();
-                    refreshTokenService.deleteByToken(requestRefreshToken);
-                    RefreshToken newRefreshToken = refreshTokenService.createRefreshToken(user);
-                    Authentication authentication = new UsernamePasswordAuthenticationToken(
-                            user, null, user.getAuthorities());
-                    String accessToken = jwtUtil.generateToken(authentication);
-
-                    return ResponseEntity.ok(new TokenRefreshResponse(accessToken, newRefreshToken.getToken()));
-                })
-                .orElseThrow(() -> new RuntimeException("Refresh token not found"));
+        RotatedRefreshToken rotated = refreshTokenService.rotate(request.getRefreshToken())
+                .orElseThrow(() -> new RuntimeException("Refresh token not found or expired. Please make a new sign-in request"));
+
+        User user = principalCache.get(rotated.userId());
+        if (user == null) {
+            throw new RuntimeException("Refresh token not found");
+        }
+        String accessToken = jwtUtil.generateToken(user);
+
+        return ResponseEntity.ok(new TokenRefreshResponse(accessToken, rotated.refreshToken()));
     }
 
     @PostMapping("/register")
@@ -147,7 +145,11 @@ public class AuthController {
         user.setFirstName(request.getFirstName());
         user.setLastName(request.getLastName());
         user.setRole("USER");
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        try {
+            user.setPassword(passwordHasher.encode(request.getPassword()));
+        } catch (RejectedExecutionException e) {
+            return serviceBusy();
+        }
         user.setEnabled(false);
 
         userRepository.save(user);
@@ -158,27 +160,47 @@ public class AuthController {
 
     @PostMapping("/login")
     public ResponseEntity<?> loginUser(@RequestBody UserLoginRequest request) {
-        User user = userRepository.findByEmail(request.getEmail()).orElse(null);
-        if (user == null || !passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        long retryAfterMillis = rateLimitFilter.tryAcquireLogin(request.getEmail());
+        if (retryAfterMillis > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, RateLimitFilter.retryAfterSeconds(retryAfterMillis))
+                    .body("Too many requests. Please try again later.");
+        }
+
+        User user = userRepository.findWithSubscriptionByEmail(request.getEmail()).orElse(null);
+        boolean passwordMatches;
+        try {
+            passwordMatches = user != null && passwordHasher.matches(request.getPassword(), user.getPassword());
+        } catch (RejectedExecutionException e) {
+            return serviceBusy();
+        }
+        if (!passwordMatches) {
             return ResponseEntity.status(HttpServletResponse.SC_UNAUTHORIZED).body("Invalid email or password");
         }
 
         if (!user.isEnabled()) {
+            // The password proved ownership, so an account whose link expired or was purged gets a new one.
+            if (emailVerificationService.resendVerificationEmail(user)) {
+                return ResponseEntity.status(HttpServletResponse.SC_UNAUTHORIZED)
+                        .body("Verify your email to continue. A new verification link has been sent.");
+            }
             return ResponseEntity.status(HttpServletResponse.SC_UNAUTHORIZED).body("Verify your email to continue");
         }
 
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
-        );
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            rehashPassword(user, request.getPassword());
+        }
 
+        // The password was verified above; no need to run it through the AuthenticationManager a second time.
+        Authentication authentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
         SecurityContextHolder.getContext().setAuthentication(authentication);
-        String token = jwtUtil.generateToken(authentication);
+        String token = jwtUtil.generateToken(user);
 
-        RefreshToken refreshToken = refreshTokenService.createRefreshToken(user);
+        String refreshToken = refreshTokenService.createRefreshToken(user);
 
         Map<String, Object> response = new HashMap<>();
         response.put("accessToken", token);
-        response.put("refreshToken", refreshToken.getToken());
+        response.put("refreshToken", refreshToken);
 
         if (user.getSubscription() == null) {
             return ResponseEntity.status(HttpServletResponse.SC_PAYMENT_REQUIRED).body(response);
@@ -189,8 +211,8 @@ public class AuthController {
     @PostMapping("/logout")
     public ResponseEntity<?> logout(@RequestBody String refreshToken) {
         try {
-            refreshTokenService.findByToken(refreshToken)
-                    .ifPresent(token -> refreshTokenService.deleteByToken(refreshToken));
+            refreshTokenService.revoke(refreshToken)
+                    .ifPresent(principalCache::bumpSecurityVersion);
 
             Map<String, Boolean> response = new HashMap<>();
             response.put("success", true);
@@ -204,4 +226,18 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
+
+    private void rehashPassword(User user, String rawPassword) {
+        try {
+            String rehashed = passwordHasher.encode(rawPassword);
+            userRepository.updatePassword(user.getUserId(), rehashed);
+            user.setPassword(rehashed);
+        } catch (RejectedExecutionException e) {
+            // Not worth failing the login over; the hash is upgraded on a later, quieter login.
+        }
+    }
+
+    private <T> ResponseEntity<T> serviceBusy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+    }
 }
\ No newline at end of file
@@ -1,26 +1,72 @@
 package com.matthew.RecipeGenerator.Controller;
 
+import com.matthew.RecipeGenerator.Dto.IngredientSuggestion;
 import com.matthew.RecipeGenerator.Model.Ingredient;
 import com.matthew.RecipeGenerator.Service.IngredientService;
+import com.matthew.RecipeGenerator.Service.IngredientSuggestionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/ingredients")
 public class IngredientController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Autowired
     private IngredientService ingredientService;
 
+    @Autowired
+    private IngredientSuggestionService ingredientSuggestionService;
+
     @GetMapping
     public List<Ingredient> getAllIngredients() {
         return ingredientService.getAllIngredients();
     }
 
+    @GetMapping(params = "page")
+    public ResponseEntity<Page<Ingredient>> getIngredientsPage(@RequestParam int page,
+                                                               @RequestParam(defaultValue = "100") int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(ingredientService.getIngredients(PageRequest.of(page, size, Sort.by("id"))));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportIngredients() {
+        StreamingResponseBody body = out -> {
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+                ingredientService.exportIngredients(gzip);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .contentType(APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<IngredientSuggestion>> suggestIngredients(@RequestParam(defaultValue = "") String prefix,
+                                                                         @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > 50) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(ingredientSuggestionService.suggest(prefix, limit));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Ingredient> getIngredientById(@PathVariable int id) {
         return ResponseEntity.status(HttpStatus.OK).body(ingredientService.getIngredientById(id));
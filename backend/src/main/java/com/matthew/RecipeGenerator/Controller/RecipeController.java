@@ -1,5 +1,9 @@
 package com.matthew.RecipeGenerator.Controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.matthew.RecipeGenerator.Dto.RecipeMatch;
+import com.matthew.RecipeGenerator.Dto.ShoppingListItem;
+import com.matthew.RecipeGenerator.Dto.ShoppingListRequest;
 import com.matthew.RecipeGenerator.Model.Ingredient;
 import com.matthew.RecipeGenerator.Model.Recipe;
 import com.matthew.RecipeGenerator.Model.RecipeIngredient;
@@ -35,6 +39,14 @@ public class RecipeController {
     private IngredientService ingredientService;
     @Autowired
     private RecipeIngredientService recipeIngredientService;
+    @Autowired
+    private PantryMatchService pantryMatchService;
+    @Autowired
+    private IngredientAnalyticsService ingredientAnalyticsService;
+    @Autowired
+    private RecipePregenerationService recipePregenerationService;
+    @Autowired
+    private EntitlementService entitlementService;
 
     @GetMapping
     public ResponseEntity<?> getRecipes(@AuthenticationPrincipal(errorOnInvalidType = true) User user, HttpServletRequest request) {
@@ -47,8 +59,11 @@ public class RecipeController {
             }
             return ResponseEntity.ok(allRecipes);
         } else {
-            String status = user.getSubscription().getStatus();
+            String status = entitlementService.getStatus(user.getUserId());
             switch (status) {
+                case EntitlementService.NO_SUBSCRIPTION -> {
+                    return ResponseEntity.status(HttpServletResponse.SC_PAYMENT_REQUIRED).body("No subscription found. Please subscribe to generate recipes.");
+                }
                 case "EXPIRED" -> {
                     return ResponseEntity.status(HttpServletResponse.SC_PAYMENT_REQUIRED).body("Subscription expired. Please renew your subscription.");
                 }
@@ -63,11 +78,29 @@ public class RecipeController {
             List<String> ingredientsList = Arrays.stream(ingredients.split(","))
                     .map(ingredient -> URLDecoder.decode(ingredient, StandardCharsets.UTF_8))
                     .collect(Collectors.toList());
+            ingredientAnalyticsService.recordRequest(ingredientsList);
 
-            return ResponseEntity.ok(recipeService.createRecipesFromAIResponse(openAIService.generateRecipe(String.join(", ", ingredientsList)), user));
+            JsonNode aiResponse = recipePregenerationService.takePregenerated(ingredientsList)
+                    .orElseGet(() -> openAIService.generateRecipe(String.join(", ", ingredientsList)));
+            return ResponseEntity.ok(recipeService.createRecipesFromAIResponse(aiResponse, user));
         }
     }
 
+    @GetMapping("/match")
+    public ResponseEntity<List<RecipeMatch>> matchRecipes(@AuthenticationPrincipal(errorOnInvalidType = true) User user,
+                                                          @RequestParam List<String> have,
+                                                          @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > 100) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(pantryMatchService.matchRecipes(user, have, limit));
+    }
+
+    @PostMapping("/shopping-list")
+    public ResponseEntity<List<ShoppingListItem>> getShoppingList(@AuthenticationPrincipal(errorOnInvalidType = true) User user, @RequestBody ShoppingListRequest request) {
+        return ResponseEntity.ok(recipeIngredientService.getShoppingList(user, request.getRecipeIds()));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Recipe> getRecipeById(@AuthenticationPrincipal(errorOnInvalidType = true) User user, @PathVariable int id) {
         Recipe recipe = recipeService.getRecipeById(user, id);
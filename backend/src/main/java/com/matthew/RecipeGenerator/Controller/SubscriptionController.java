@@ -64,8 +64,12 @@ public class SubscriptionController {
             System.out.println("Platform: " + platform);
             System.out.println("ProductId: " + productId);
             if ("ios".equalsIgnoreCase(platform)) {
-                AppleReceiptResponse response = appleVerifier.verifyReceipt(receipt);
+                AppleReceiptResponse response = appleVerifier.verifyReceipt(receipt, String.valueOf(user.getUserId()));
 
+                if (response.getStatus() == AppleReceiptVerifier.RECEIPT_SERVER_UNAVAILABLE) {
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .body("Receipt verification is temporarily unavailable. Please try again.");
+                }
                 if (response.getStatus() != 0 || response.getLatestReceiptInfo().isEmpty()) {
                     return ResponseEntity.badRequest().body("Invalid receipt");
                 }
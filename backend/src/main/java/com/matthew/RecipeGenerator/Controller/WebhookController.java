@@ -1,7 +1,6 @@
 package com.matthew.RecipeGenerator.Controller;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.matthew.RecipeGenerator.Service.AppleNotificationService;
+import com.matthew.RecipeGenerator.Service.AppleNotificationInboxService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -11,24 +10,32 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Map;
-
 @RestController
 @RequestMapping("/api/webhook")
 @Slf4j
 public class WebhookController {
 
     @Autowired
-    private AppleNotificationService appleNotificationService;
+    private AppleNotificationInboxService appleNotificationInboxService;
 
     @PostMapping("/apple")
     public ResponseEntity<Void> handleAppleNotification(@RequestBody String payload) {
         log.info("Received Apple notification webhook");
         try {
-            appleNotificationService.processNotification(payload);
+            // Verified and stored here; the subscription update happens in the inbox worker.
+            if (!appleNotificationInboxService.enqueue(payload)) {
+                log.info("Ignoring duplicate Apple notification");
+            }
             return ResponseEntity.ok().build();
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejecting invalid Apple notification: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            // Apple retries failed deliveries, so the notification comes back once warm-up has finished.
+            log.warn("Deferring Apple notification: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
-            log.error("Error processing Apple notification", e);
+            log.error("Error storing Apple notification", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
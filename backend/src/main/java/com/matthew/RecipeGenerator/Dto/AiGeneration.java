@@ -0,0 +1,9 @@
+package com.matthew.RecipeGenerator.Dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * An AI response and the total tokens OpenAI billed for it (0 when the response carried no usage).
+ */
+public record AiGeneration(JsonNode recipes, long totalTokens) {
+}
@@ -0,0 +1,12 @@
+package com.matthew.RecipeGenerator.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class IngredientSuggestion {
+    private Integer id;
+    private String name;
+    private long popularity;
+}
@@ -0,0 +1,13 @@
+package com.matthew.RecipeGenerator.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RecipeMatch {
+    private Integer recipeId;
+    private int matchedCount;
+    private int missingCount;
+    private double coverage;
+}
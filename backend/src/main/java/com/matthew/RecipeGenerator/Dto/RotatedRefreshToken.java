@@ -0,0 +1,4 @@
+package com.matthew.RecipeGenerator.Dto;
+
+public record RotatedRefreshToken(int userId, String refreshToken) {
+}
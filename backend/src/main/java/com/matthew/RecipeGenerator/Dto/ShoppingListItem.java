@@ -0,0 +1,17 @@
+package com.matthew.RecipeGenerator.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShoppingListItem {
+    private Integer ingredientId;
+    private String ingredientName;
+    private BigDecimal quantity;
+    private String unit;
+}
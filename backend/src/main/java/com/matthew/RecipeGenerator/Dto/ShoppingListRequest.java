@@ -0,0 +1,10 @@
+package com.matthew.RecipeGenerator.Dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ShoppingListRequest {
+    private List<Integer> recipeIds;
+}
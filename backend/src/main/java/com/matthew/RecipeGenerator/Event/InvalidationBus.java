@@ -0,0 +1,288 @@
+package com.matthew.RecipeGenerator.Event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Tells the other nodes to drop cached state, over Postgres LISTEN/NOTIFY. Messages are a topic plus a key
+ * (usually an id); they are sent after the surrounding transaction commits, and a node ignores its own, since
+ * local caches are updated directly. Each node numbers its messages, so a receiver that sees a gap, or that had
+ * to reconnect, cannot know what it missed and flushes every subscribed cache instead.
+ * <p>
+ * Every node also sends a heartbeat carrying its latest number, so a live node is never silent and a lost last
+ * message is noticed without waiting for the next one. Nodes silent for longer than the timeout are gone (usually
+ * replaced by a deploy) and are forgotten. A node seen for the first time is taken at its word: the first connection
+ * is made before any cache loads, so whatever it sent earlier is already in the database. The exception is a node
+ * that could not send for longer than the timeout, which peers may have forgotten; it marks its next message as
+ * resumed, and receivers that no longer know it flush.
+ */
+@Component
+@Slf4j
+public class InvalidationBus {
+
+    public static final String USERS = "users";
+    public static final String SUBSCRIPTIONS = "subscriptions";
+    public static final String INGREDIENTS = "ingredients";
+    public static final String RECIPES = "recipes";
+
+    private static final String CHANNEL = "cache_invalidation";
+    private static final int POLL_TIMEOUT_MILLIS = 10_000;
+    private static final long MAX_RECONNECT_BACKOFF_MILLIS = 30_000;
+    private static final long EVICTION_INTERVAL_MILLIS = 60_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${invalidation-bus.enabled:true}")
+    private boolean enabled;
+
+    @Value("${invalidation-bus.node-silence-timeout-minutes:60}")
+    private long nodeSilenceTimeoutMinutes;
+
+    private final String nodeId = Optional.ofNullable(System.getenv("HOSTNAME")).orElse("node")
+            + "-" + UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong sequence = new AtomicLong();
+    // Only touched by the sender thread.
+    private long lastSentMillis = System.currentTimeMillis();
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    // Only touched by the listener thread.
+    private final Map<String, NodeState> lastSequenceByNode = new HashMap<>();
+    private long nextEvictionMillis;
+
+    // Sends happen off the caller's thread, which may still hold the just-committed transaction's connection.
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "invalidation-bus-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Thread listener;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) return;
+        running = true;
+        Connection initial = null;
+        try {
+            initial = connect();
+        } catch (SQLException e) {
+            log.warn("Invalidation bus could not connect at startup, retrying in the background", e);
+        }
+        Connection connection = initial;
+        listener = new Thread(() -> listen(connection), "invalidation-bus-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) listener.interrupt();
+        sender.shutdown();
+    }
+
+    /**
+     * Registers callbacks for messages on {@code topic} from other nodes: {@code onInvalidate} receives the key,
+     * {@code onFlush} must drop everything the cache holds.
+     */
+    public void subscribe(String topic, Consumer<String> onInvalidate, Runnable onFlush) {
+        subscribers.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(new Subscriber(onInvalidate, onFlush));
+    }
+
+    public void publish(String topic, String key) {
+        if (!enabled) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    sender.execute(() -> send(topic, key));
+                }
+            });
+        } else {
+            sender.execute(() -> send(topic, key));
+        }
+    }
+
+    @Scheduled(fixedRateString = "${invalidation-bus.heartbeat-interval-ms:60000}",
+            initialDelayString = "${invalidation-bus.heartbeat-interval-ms:60000}")
+    public void heartbeat() {
+        if (!enabled) return;
+        // Through the sender, so the number it carries is never ahead of a message still being sent.
+        sender.execute(() -> send(new Message(nodeId, sequence.get(), null, null, false)));
+    }
+
+    @EventListener
+    public void onSubscriptionChanged(SubscriptionChangedEvent event) {
+        publish(SUBSCRIPTIONS, Integer.toString(event.userId()));
+    }
+
+    private void send(String topic, String key) {
+        // Numbered before sending: if the send fails, receivers see the gap and flush.
+        send(new Message(nodeId, sequence.incrementAndGet(), topic, key, false));
+    }
+
+    private void send(Message message) {
+        long nowMillis = System.currentTimeMillis();
+        boolean resumed = nowMillis - lastSentMillis > TimeUnit.MINUTES.toMillis(nodeSilenceTimeoutMinutes);
+        try {
+            jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, objectMapper.writeValueAsString(
+                    new Message(message.node(), message.sequence(), message.topic(), message.key(), resumed)));
+            lastSentMillis = nowMillis;
+        } catch (Exception e) {
+            log.warn("Failed to publish cache invalidation {}:{}", message.topic(), message.key(), e);
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    private void listen(Connection initial) {
+        // Caches may already have loaded by the time a connection made here is listening.
+        boolean flushOnConnect = initial == null;
+        long backoffMillis = 1000;
+        while (running) {
+            try (Connection connection = initial != null ? initial : connect()) {
+                initial = null;
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                if (flushOnConnect) {
+                    lastSequenceByNode.clear();
+                    flushAll("connected to the invalidation channel after missing messages");
+                }
+                flushOnConnect = true;
+                backoffMillis = 1000;
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications == null || notifications.length == 0) {
+                        // Nothing arrived; make sure the connection is still alive rather than silently dead.
+                        try (Statement statement = connection.createStatement()) {
+                            statement.execute("SELECT 1");
+                        }
+                        evictSilentNodes(System.currentTimeMillis());
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        handle(notification.getParameter(), System.currentTimeMillis());
+                    }
+                    evictSilentNodes(System.currentTimeMillis());
+                }
+            } catch (SQLException e) {
+                initial = null;
+                if (!running) return;
+                log.warn("Invalidation bus connection lost, reconnecting in {} ms", backoffMillis, e);
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, MAX_RECONNECT_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    void handle(String payload, long nowMillis) {
+        Message message;
+        try {
+            message = objectMapper.readValue(payload, Message.class);
+        } catch (Exception e) {
+            log.warn("Ignoring malformed cache invalidation: {}", payload);
+            return;
+        }
+        if (nodeId.equals(message.node())) return;
+
+        NodeState previous = lastSequenceByNode.put(message.node(), new NodeState(message.sequence(), nowMillis));
+        boolean heartbeat = message.topic() == null;
+        if (previous == null ? message.resumed()
+                : message.sequence() != previous.sequence() + (heartbeat ? 0 : 1)) {
+            flushAll("missed messages from " + message.node());
+            return;
+        }
+        if (heartbeat) return;
+
+        for (Subscriber subscriber : subscribers.getOrDefault(message.topic(), List.of())) {
+            try {
+                subscriber.onInvalidate().accept(message.key());
+            } catch (RuntimeException e) {
+                log.warn("Cache invalidation {}:{} failed", message.topic(), message.key(), e);
+            }
+        }
+    }
+
+    void evictSilentNodes(long nowMillis) {
+        if (nowMillis < nextEvictionMillis) return;
+        nextEvictionMillis = nowMillis + EVICTION_INTERVAL_MILLIS;
+        long cutoff = nowMillis - TimeUnit.MINUTES.toMillis(nodeSilenceTimeoutMinutes);
+        lastSequenceByNode.values().removeIf(state -> state.seenAtMillis() < cutoff);
+    }
+
+    int trackedNodes() {
+        return lastSequenceByNode.size();
+    }
+
+    private void flushAll(String reason) {
+        log.info("Flushing all subscribed caches: {}", reason);
+        for (List<Subscriber> topicSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : topicSubscribers) {
+                try {
+                    subscriber.onFlush().run();
+                } catch (RuntimeException e) {
+                    log.warn("Cache flush failed", e);
+                }
+            }
+        }
+    }
+
+    private record Subscriber(Consumer<String> onInvalidate, Runnable onFlush) {
+    }
+
+    private record NodeState(long sequence, long seenAtMillis) {
+    }
+
+    private record Message(String node, long sequence, String topic, String key, boolean resumed) {
+    }
+}
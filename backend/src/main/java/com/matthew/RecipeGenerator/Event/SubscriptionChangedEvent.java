@@ -0,0 +1,16 @@
+package com.matthew.RecipeGenerator.Event;
+
+import com.matthew.RecipeGenerator.Model.UserSubscription;
+
+import java.time.Instant;
+
+/**
+ * Published by every writer of {@link UserSubscription} after the row is saved.
+ */
+public record SubscriptionChangedEvent(int userId, Long subscriptionId, String status, Instant expirationDate) {
+
+    public static SubscriptionChangedEvent of(UserSubscription subscription) {
+        return new SubscriptionChangedEvent(subscription.getUser().getUserId(), subscription.getId(),
+                subscription.getStatus(), subscription.getExpirationDate());
+    }
+}
@@ -0,0 +1,54 @@
+package com.matthew.RecipeGenerator.Model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "apple_notification_inbox", indexes = {
+        @Index(name = "idx_apple_notification_inbox_status_next_attempt", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_apple_notification_inbox_original_transaction", columnList = "original_transaction_id, signed_date")
+})
+@Data
+@NoArgsConstructor
+public class AppleNotificationInbox {
+    public static final String PENDING = "PENDING";
+    public static final String DONE = "DONE";
+    public static final String DEAD = "DEAD";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "notification_uuid", nullable = false, unique = true, length = 64)
+    private String notificationUuid;
+
+    // Taken from the verified payload at receipt; only used to order notifications, the worker verifies again.
+    @Column(name = "original_transaction_id")
+    private String originalTransactionId;
+
+    @Column(name = "signed_date", nullable = false)
+    private long signedDate;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false, length = 16)
+    private String status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(nullable = false, updatable = false)
+    private Instant receivedAt;
+
+    private Instant processedAt;
+}
@@ -9,6 +9,10 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_password_reset_token_token", columnList = "token"),
+        @Index(name = "idx_password_reset_token_expiry_date", columnList = "expiry_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,26 @@
+package com.matthew.RecipeGenerator.Model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "pregenerated_recipes", indexes = @Index(name = "idx_pregenerated_recipes_key", columnList = "ingredient_key"))
+@Data
+@NoArgsConstructor
+public class PregeneratedRecipe {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "ingredient_key", nullable = false, columnDefinition = "TEXT")
+    private String ingredientKey; // Canonical ingredient set, see IngredientKeys.canonicalSet
+
+    @Column(name = "ai_response", nullable = false, columnDefinition = "TEXT")
+    private String aiResponse;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -8,11 +8,13 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+
 @Data
 @Entity
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "recipe_ingredient")
+@Table(name = "recipe_ingredient", indexes = @Index(name = "idx_recipe_ingredient_recipe", columnList = "recipe_id"))
 public class RecipeIngredient {
 
     @Getter
@@ -43,4 +45,14 @@ public class RecipeIngredient {
     @Setter
     @Column(name = "unit", nullable = true)
     private String unit; // Stores the measurement unit (e.g., "grams", "cups", "tablespoons").
+
+    @Getter
+    @Setter
+    @Column(name = "quantity_value", precision = 14, scale = 4)
+    private BigDecimal quantityValue; // Parsed quantity expressed in canonicalUnit, null when not numeric.
+
+    @Getter
+    @Setter
+    @Column(name = "canonical_unit", length = 64)
+    private String canonicalUnit; // "ml", "g" or the normalized raw unit (e.g., "clove").
 }
\ No newline at end of file
@@ -7,7 +7,7 @@ import lombok.NoArgsConstructor;
 import java.time.Instant;
 
 @Entity
-@Table(name = "refresh_tokens")
+@Table(name = "refresh_tokens", indexes = @Index(name = "idx_refresh_tokens_expiry_date", columnList = "expiry_date"))
 @Data
 @NoArgsConstructor
 public class RefreshToken {
@@ -15,8 +15,9 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
-    private String token;
+    // SHA-256 of the token handed to the client; the raw value is never stored.
+    @Column(name = "token", nullable = false, unique = true)
+    private String tokenHash;
 
     @OneToOne
     @JoinColumn(name = "user_id", referencedColumnName = "user_id")
@@ -0,0 +1,26 @@
+package com.matthew.RecipeGenerator.Model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "scheduler_lock")
+@Data
+@NoArgsConstructor
+public class SchedulerLock {
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private Instant lockedUntil;
+
+    @Column(nullable = false)
+    private Instant lockedAt;
+
+    @Column(nullable = false)
+    private String lockedBy;
+}
@@ -8,6 +8,7 @@ import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.time.ZonedDateTime;
@@ -16,7 +17,7 @@ import java.util.Collections;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_verification_token_expires_at", columnList = "verification_token_expires_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -62,6 +63,13 @@ public class User implements UserDetails {
     @Setter
     private String verificationToken;
 
+    @Column(name = "verification_token_expires_at")
+    private ZonedDateTime verificationTokenExpiresAt;
+
+    // Carried in access tokens as "ver"; bumped only through UserRepo.incrementSecurityVersion to revoke them.
+    @Column(name = "security_version", nullable = false, updatable = false, columnDefinition = "integer default 0")
+    private int securityVersion;
+
     @UpdateTimestamp
     @Column(nullable = false)
     private ZonedDateTime userUpdatedAt;
@@ -75,7 +83,7 @@ public class User implements UserDetails {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.emptyList();
+        return role == null ? Collections.emptyList() : List.of(new SimpleGrantedAuthority("ROLE_" + role));
     }
 
     @Override
@@ -0,0 +1,72 @@
+package com.matthew.RecipeGenerator.Repo;
+
+import com.matthew.RecipeGenerator.Model.AppleNotificationInbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface AppleNotificationInboxRepo extends JpaRepository<AppleNotificationInbox, Long> {
+
+    /**
+     * Stores a notification unless one with the same UUID was already received. Returns 0 for a duplicate.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO apple_notification_inbox (notification_uuid, original_transaction_id, signed_date, " +
+            "payload, status, attempts, next_attempt_at, received_at) " +
+            "VALUES (:notificationUuid, :originalTransactionId, :signedDate, :payload, 'PENDING', 0, :now, :now) " +
+            "ON CONFLICT (notification_uuid) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("notificationUuid") String notificationUuid,
+                       @Param("originalTransactionId") String originalTransactionId,
+                       @Param("signedDate") long signedDate,
+                       @Param("payload") String payload,
+                       @Param("now") Instant now);
+
+    /**
+     * Leases due notifications, taking only the oldest pending one per original transaction so each subscription's
+     * notifications are applied in order. A later notification waits while an earlier one is leased or backing off.
+     */
+    @Transactional
+    @Query(value = "UPDATE apple_notification_inbox SET next_attempt_at = :leaseUntil WHERE id IN (" +
+            "SELECT i.id FROM apple_notification_inbox i WHERE i.status = 'PENDING' AND i.next_attempt_at <= :now " +
+            "AND NOT EXISTS (SELECT 1 FROM apple_notification_inbox p WHERE p.status = 'PENDING' " +
+            "AND p.original_transaction_id = i.original_transaction_id " +
+            "AND (p.signed_date < i.signed_date OR (p.signed_date = i.signed_date AND p.id < i.id))) " +
+            "ORDER BY i.signed_date LIMIT :batchSize FOR UPDATE SKIP LOCKED) RETURNING *", nativeQuery = true)
+    List<AppleNotificationInbox> claimDue(@Param("now") Instant now,
+                                          @Param("leaseUntil") Instant leaseUntil,
+                                          @Param("batchSize") int batchSize);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE AppleNotificationInbox n SET n.status = 'DONE', n.processedAt = :processedAt, " +
+            "n.attempts = n.attempts + 1, n.lastError = NULL WHERE n.id = :id")
+    int markDone(@Param("id") Long id, @Param("processedAt") Instant processedAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE AppleNotificationInbox n SET n.status = :status, n.attempts = :attempts, " +
+            "n.nextAttemptAt = :nextAttemptAt, n.lastError = :lastError WHERE n.id = :id")
+    int markAttemptFailed(@Param("id") Long id,
+                          @Param("status") String status,
+                          @Param("attempts") int attempts,
+                          @Param("nextAttemptAt") Instant nextAttemptAt,
+                          @Param("lastError") String lastError);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM apple_notification_inbox WHERE id IN (SELECT id FROM apple_notification_inbox " +
+            "WHERE status = 'DONE' AND processed_at < :cutoff LIMIT :batchSize FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int deleteProcessedBefore(@Param("cutoff") Instant cutoff, @Param("batchSize") int batchSize);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM apple_notification_inbox WHERE id IN (SELECT id FROM apple_notification_inbox " +
+            "WHERE status = 'DEAD' AND received_at < :cutoff LIMIT :batchSize FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int deleteDeadBefore(@Param("cutoff") Instant cutoff, @Param("batchSize") int batchSize);
+}
@@ -0,0 +1,48 @@
+package com.matthew.RecipeGenerator.Repo;
+
+import com.matthew.RecipeGenerator.Model.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmailOutboxRepo extends JpaRepository<EmailOutbox, Long> {
+
+    /**
+     * Claims up to {@code batchSize} due emails by pushing their next attempt out to {@code leaseUntil}. Rows
+     * claimed by another worker are skipped, and rows left behind by a crashed worker come back once the lease ends.
+     */
+    @Transactional
+    @Query(value = "UPDATE email_outbox SET next_attempt_at = :leaseUntil WHERE id IN (SELECT id FROM email_outbox " +
+            "WHERE status = 'PENDING' AND next_attempt_at <= :now ORDER BY next_attempt_at LIMIT :batchSize " +
+            "FOR UPDATE SKIP LOCKED) RETURNING *", nativeQuery = true)
+    List<EmailOutbox> claimDue(@Param("now") Instant now,
+                               @Param("leaseUntil") Instant leaseUntil,
+                               @Param("batchSize") int batchSize);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox e SET e.status = 'SENT', e.sentAt = :sentAt, e.attempts = e.attempts + 1 WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") Instant sentAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.attempts = :attempts, e.nextAttemptAt = :nextAttemptAt, " +
+            "e.lastError = :lastError WHERE e.id = :id")
+    int markAttemptFailed(@Param("id") Long id,
+                          @Param("status") String status,
+                          @Param("attempts") int attempts,
+                          @Param("nextAttemptAt") Instant nextAttemptAt,
+                          @Param("lastError") String lastError);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM email_outbox WHERE id IN (SELECT id FROM email_outbox WHERE status = 'SENT' " +
+            "AND sent_at < :cutoff LIMIT :batchSize FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int deleteSentBefore(@Param("cutoff") Instant cutoff, @Param("batchSize") int batchSize);
+}
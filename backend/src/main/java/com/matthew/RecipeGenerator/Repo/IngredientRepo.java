@@ -1,12 +1,30 @@
 package com.matthew.RecipeGenerator.Repo;
 
 import com.matthew.RecipeGenerator.Model.Ingredient;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface IngredientRepo extends JpaRepository<Ingredient, Integer> {
 
     Optional<Ingredient> findByName(String name);
 
+    @Query("SELECT i.id, i.name, COUNT(ri.id) FROM Ingredient i " +
+            "LEFT JOIN RecipeIngredient ri ON ri.ingredient = i " +
+            "GROUP BY i.id, i.name")
+    List<Object[]> findNamesWithUsageCount();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT i FROM Ingredient i ORDER BY i.id")
+    Stream<Ingredient> streamAllOrderById();
+
 }
@@ -3,11 +3,21 @@ package com.matthew.RecipeGenerator.Repo;
 import com.matthew.RecipeGenerator.Model.PasswordResetToken;
 import com.matthew.RecipeGenerator.Model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface PasswordResetTokenRepo extends JpaRepository<PasswordResetToken, Long> {
     Optional<PasswordResetToken> findByToken(String token);
     Optional<PasswordResetToken> findByUser(User user);
-}
 
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM password_reset_token WHERE id IN (SELECT id FROM password_reset_token " +
+            "WHERE expiry_date < :now ORDER BY expiry_date LIMIT :batchSize FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
+}
@@ -0,0 +1,31 @@
+package com.matthew.RecipeGenerator.Repo;
+
+import com.matthew.RecipeGenerator.Model.PregeneratedRecipe;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface PregeneratedRecipeRepo extends JpaRepository<PregeneratedRecipe, Long> {
+    /**
+     * Removes and returns the oldest fresh entry for the set. Concurrent callers skip each other's locked row, so
+     * two requests for the same set never get the same entry.
+     */
+    @Transactional
+    @Query(value = "DELETE FROM pregenerated_recipes WHERE id = (SELECT id FROM pregenerated_recipes " +
+            "WHERE ingredient_key = :ingredientKey AND created_at > :createdAfter ORDER BY created_at LIMIT 1 " +
+            "FOR UPDATE SKIP LOCKED) RETURNING *", nativeQuery = true)
+    Optional<PregeneratedRecipe> takeOldest(@Param("ingredientKey") String ingredientKey,
+                                            @Param("createdAfter") Instant createdAfter);
+
+    long countByIngredientKeyAndCreatedAtAfter(String ingredientKey, Instant createdAfter);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PregeneratedRecipe p WHERE p.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") Instant cutoff);
+}
@@ -1,11 +1,40 @@
 package com.matthew.RecipeGenerator.Repo;
 
+import com.matthew.RecipeGenerator.Dto.ShoppingListItem;
 import com.matthew.RecipeGenerator.Model.RecipeIngredient;
+import com.matthew.RecipeGenerator.Model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface RecipeIngredientRepo extends JpaRepository<RecipeIngredient, Integer> {
     List<RecipeIngredient> findByRecipeId(int recipeId);
 
+    @Query("SELECT new com.matthew.RecipeGenerator.Dto.ShoppingListItem(i.id, i.name, SUM(ri.quantityValue), ri.canonicalUnit) " +
+            "FROM RecipeIngredient ri JOIN ri.ingredient i " +
+            "WHERE ri.recipe.id IN :recipeIds AND ri.recipe.user = :user " +
+            "GROUP BY i.id, i.name, ri.canonicalUnit " +
+            "ORDER BY i.name")
+    List<ShoppingListItem> aggregateShoppingList(@Param("user") User user, @Param("recipeIds") Collection<Integer> recipeIds);
+
+    @Query("SELECT ri.recipe.id, ri.ingredient.id FROM RecipeIngredient ri " +
+            "WHERE ri.recipe.user.userId = :userId AND ri.ingredient IS NOT NULL")
+    List<Object[]> findRecipeIngredientIdsByUserId(@Param("userId") int userId);
+
+    @Query("SELECT ri.recipe.user.userId FROM RecipeIngredient ri WHERE ri.id = :id")
+    Optional<Integer> findOwnerUserId(@Param("id") int id);
+
+    /**
+     * Rows written before quantities were normalized, as (id, quantity, unit), in id order.
+     */
+    @Query("SELECT ri.id, ri.quantity, ri.unit FROM RecipeIngredient ri " +
+            "WHERE ri.canonicalUnit IS NULL AND ri.id > :afterId ORDER BY ri.id")
+    List<Object[]> findUnnormalizedPage(@Param("afterId") int afterId, Pageable pageable);
 }
@@ -3,16 +3,39 @@ package com.matthew.RecipeGenerator.Repo;
 import com.matthew.RecipeGenerator.Model.RefreshToken;
 import com.matthew.RecipeGenerator.Model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.Optional;
 
 @Repository
 public interface RefreshTokenRepo extends JpaRepository<RefreshToken, Long> {
-    Optional<RefreshToken> findByToken(String token);
-    Optional<RefreshToken> findByUser(User user);
-    void deleteByUser(User user);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.user = :user")
+    int deleteByUser(@Param("user") User user);
+
+    /**
+     * Swaps an unexpired token for a new one in a single statement and returns its owner. Concurrent rotations of
+     * the same token race on the row lock; only the first matches, the rest see the new hash and get nothing back.
+     */
+    @Query(value = "UPDATE refresh_tokens SET token = :newHash, expiry_date = :expiryDate " +
+            "WHERE token = :oldHash AND expiry_date > now() RETURNING user_id", nativeQuery = true)
+    Optional<Integer> rotate(@Param("oldHash") String oldHash,
+                             @Param("newHash") String newHash,
+                             @Param("expiryDate") Instant expiryDate);
+
+    @Query(value = "DELETE FROM refresh_tokens WHERE token = :tokenHash RETURNING user_id", nativeQuery = true)
+    Optional<Integer> deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+    // Rows another node is already deleting are skipped rather than waited on.
+    @Modifying
     @Transactional
-    void deleteByToken(String token);
-}
\ No newline at end of file
+    @Query(value = "DELETE FROM refresh_tokens WHERE id IN (SELECT id FROM refresh_tokens WHERE expiry_date < :now " +
+            "ORDER BY expiry_date LIMIT :batchSize FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") Instant now, @Param("batchSize") int batchSize);
+}
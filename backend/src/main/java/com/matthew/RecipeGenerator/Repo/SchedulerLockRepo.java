@@ -0,0 +1,45 @@
+package com.matthew.RecipeGenerator.Repo;
+
+import com.matthew.RecipeGenerator.Model.SchedulerLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface SchedulerLockRepo extends JpaRepository<SchedulerLock, String> {
+
+    /**
+     * Takes the named lease if nobody holds it or the previous holder's lease has run out. Returns 1 when acquired.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO scheduler_lock (name, locked_until, locked_at, locked_by) " +
+            "VALUES (:name, :lockedUntil, :now, :owner) " +
+            "ON CONFLICT (name) DO UPDATE SET locked_until = EXCLUDED.locked_until, " +
+            "locked_at = EXCLUDED.locked_at, locked_by = EXCLUDED.locked_by " +
+            "WHERE scheduler_lock.locked_until <= EXCLUDED.locked_at", nativeQuery = true)
+    int tryAcquire(@Param("name") String name,
+                   @Param("owner") String owner,
+                   @Param("now") Instant now,
+                   @Param("lockedUntil") Instant lockedUntil);
+
+    /**
+     * Extends a lease this node still holds. Returns 0 if it has run out or been taken over in the meantime.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = :lockedUntil " +
+            "WHERE l.name = :name AND l.lockedBy = :owner AND l.lockedUntil > :now")
+    int renew(@Param("name") String name,
+              @Param("owner") String owner,
+              @Param("now") Instant now,
+              @Param("lockedUntil") Instant lockedUntil);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = :lockedUntil WHERE l.name = :name AND l.lockedBy = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("lockedUntil") Instant lockedUntil);
+}
@@ -2,9 +2,14 @@ package com.matthew.RecipeGenerator.Repo;
 
 import com.matthew.RecipeGenerator.Model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.swing.text.html.Option;
+import java.time.ZonedDateTime;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +18,35 @@ public interface UserRepo extends JpaRepository<User, Integer> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
     Optional<User> findByVerificationToken(String token);
+
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.subscription WHERE u.email = :email")
+    Optional<User> findWithSubscriptionByEmail(@Param("email") String email);
+
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.subscription WHERE u.userId = :userId")
+    Optional<User> findWithSubscriptionByUserId(@Param("userId") int userId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.securityVersion = u.securityVersion + 1 WHERE u.userId = :userId")
+    int incrementSecurityVersion(@Param("userId") int userId);
+
+    /**
+     * Clears expired verification tokens. Tokens issued before expiries were recorded are treated as expiring
+     * at {@code legacyCutoff} after account creation.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE users SET verification_token = NULL, verification_token_expires_at = NULL " +
+            "WHERE user_id IN (SELECT user_id FROM users WHERE verification_token IS NOT NULL " +
+            "AND (verification_token_expires_at < :now " +
+            "OR (verification_token_expires_at IS NULL AND user_created_at < :legacyCutoff)) " +
+            "LIMIT :batchSize FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int clearExpiredVerificationTokens(@Param("now") ZonedDateTime now,
+                                       @Param("legacyCutoff") ZonedDateTime legacyCutoff,
+                                       @Param("batchSize") int batchSize);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.userId = :userId")
+    int updatePassword(@Param("userId") int userId, @Param("password") String password);
 }
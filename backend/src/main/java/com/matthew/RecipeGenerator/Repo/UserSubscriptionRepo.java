@@ -2,8 +2,14 @@ package com.matthew.RecipeGenerator.Repo;
 
 import com.matthew.RecipeGenerator.Model.User;
 import com.matthew.RecipeGenerator.Model.UserSubscription;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,4 +17,43 @@ public interface UserSubscriptionRepo extends JpaRepository<UserSubscription, In
 
      Optional<UserSubscription> findByOriginalTransactionId(String originalTransactionId);
      Optional<UserSubscription> findByUserAndPlatform(User user, String platform);
+     Optional<UserSubscription> findByUserUserId(int userId);
+
+     @Query("SELECT s.id, s.user.userId, s.status, s.expirationDate FROM UserSubscription s " +
+             "WHERE s.id > :afterId ORDER BY s.id")
+     List<Object[]> findEntitlementPage(@Param("afterId") long afterId, Pageable pageable);
+
+     List<UserSubscription> findByIdIn(Collection<Long> ids);
+
+     /**
+      * One keyset page of iOS subscriptions the transaction sync should re-check: those expiring within the
+      * horizon (or recently lapsed, to pick up late renewals), never verified, or active but stale.
+      * Returns id and expirationDate.
+      */
+     @Query("SELECT s.id, s.expirationDate FROM UserSubscription s WHERE s.platform = 'ios' AND s.id > :afterId " +
+             "AND ((s.expirationDate BETWEEN :lapsedAfter AND :expiringBefore) " +
+             "OR s.lastVerifiedAt IS NULL " +
+             "OR (s.status = 'ACTIVE' AND s.lastVerifiedAt < :staleBefore)) " +
+             "ORDER BY s.id")
+     List<Object[]> findDueForSync(@Param("afterId") long afterId,
+                                   @Param("lapsedAfter") Instant lapsedAfter,
+                                   @Param("expiringBefore") Instant expiringBefore,
+                                   @Param("staleBefore") Instant staleBefore,
+                                   Pageable pageable);
+
+     /**
+      * One keyset page of ACTIVE subscriptions with an expiration date. Returns id, user id and expirationDate.
+      */
+     @Query("SELECT s.id, s.user.userId, s.expirationDate FROM UserSubscription s " +
+             "WHERE s.id > :afterId AND s.status = 'ACTIVE' AND s.expirationDate IS NOT NULL ORDER BY s.id")
+     List<Object[]> findActiveExpiryPage(@Param("afterId") long afterId, Pageable pageable);
+
+     /**
+      * Flips the given subscriptions to EXPIRED if they are still ACTIVE and really past their expiration, and
+      * returns id, user_id and expiration_date of the rows that changed.
+      */
+     @Transactional
+     @Query(value = "UPDATE user_subscription SET status = 'EXPIRED' WHERE id IN (:ids) AND status = 'ACTIVE' " +
+             "AND expiration_date <= :now RETURNING id, user_id, expiration_date", nativeQuery = true)
+     List<Object[]> expireDue(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
 }
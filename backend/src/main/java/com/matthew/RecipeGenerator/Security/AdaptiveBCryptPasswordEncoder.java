@@ -0,0 +1,70 @@
+package com.matthew.RecipeGenerator.Security;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder whose work factor is calibrated at startup: the highest strength whose hash time stays within
+ * the target latency on this machine, never below the configured minimum. Hashes created with a lower strength
+ * report {@link #upgradeEncoding(String)} so they can be re-encoded on the next successful login. Stronger hashes
+ * are left alone, as Spring's {@link BCryptPasswordEncoder} does: nodes that calibrate differently would otherwise
+ * keep rewriting each other's hashes.
+ */
+@Slf4j
+public class AdaptiveBCryptPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    private final BCryptPasswordEncoder delegate;
+    @Getter
+    private final int strength;
+    @Getter
+    private final long calibrationMillis;
+
+    public AdaptiveBCryptPasswordEncoder(int minStrength, int maxStrength, long targetMillis) {
+        int strength = minStrength;
+        long elapsed = timeHash(minStrength);
+        // Each step doubles the cost, so stop as soon as the next strength would overshoot the target.
+        while (strength < maxStrength && elapsed * 2 <= targetMillis) {
+            strength++;
+            elapsed = timeHash(strength);
+        }
+        this.strength = strength;
+        this.calibrationMillis = elapsed;
+        this.delegate = new BCryptPasswordEncoder(strength);
+        log.info("Calibrated BCrypt strength {} ({} ms per hash, target {} ms, minimum {})",
+                strength, elapsed, targetMillis, minStrength);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) return false;
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        return !matcher.find() || Integer.parseInt(matcher.group(1)) < strength;
+    }
+
+    private static long timeHash(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        // One untimed run first so class loading and JIT warm-up don't skew the measurement.
+        encoder.encode(CALIBRATION_PASSWORD);
+        long start = System.nanoTime();
+        encoder.encode(CALIBRATION_PASSWORD);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
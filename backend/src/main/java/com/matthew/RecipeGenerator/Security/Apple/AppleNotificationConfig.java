@@ -1,19 +1,14 @@
 package com.matthew.RecipeGenerator.Security.Apple;
 
 import com.apple.itunes.storekit.model.Environment;
-import com.apple.itunes.storekit.verification.SignedDataVerifier;
 import com.matthew.RecipeGenerator.Service.AppleCertificateCacheService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import javax.annotation.Signed;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.InputStream;
-import java.util.HashSet;
-import java.util.Set;
+import java.time.Duration;
 
 @Configuration
 public class AppleNotificationConfig {
@@ -24,15 +19,23 @@ public class AppleNotificationConfig {
     @Value("${apple.environment}")
     private String environment;
 
+    @Value("${apple.verification.chain-cache.ttl-minutes:720}")
+    private long chainCacheTtlMinutes;
+
+    @Value("${apple.verification.chain-cache.max-entries:1000}")
+    private int chainCacheMaxEntries;
+
     @Autowired
     private AppleCertificateCacheService certificateCacheService;
 
     @Bean
-    public SignedDataVerifier notificationVerifier() {
+    public AppleSignedDataVerifier notificationVerifier(MeterRegistry meterRegistry) {
         Environment env = Environment.valueOf(environment);
         Long appAppleId = null;
         boolean onlineChecks = true;
 
-        return new SignedDataVerifier(certificateCacheService.getCachedCertificates(), bundleId, appAppleId, env, onlineChecks);
+        // Built empty; AppleWarmup fills it in once the root certificates have been fetched.
+        return new AppleSignedDataVerifier(certificateCacheService, bundleId, appAppleId, env, onlineChecks,
+                Duration.ofMinutes(chainCacheTtlMinutes), chainCacheMaxEntries, meterRegistry);
     }
-}
\ No newline at end of file
+}
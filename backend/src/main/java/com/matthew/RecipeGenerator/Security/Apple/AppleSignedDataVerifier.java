@@ -0,0 +1,190 @@
+package com.matthew.RecipeGenerator.Security.Apple;
+
+import com.apple.itunes.storekit.model.Environment;
+import com.apple.itunes.storekit.model.JWSRenewalInfoDecodedPayload;
+import com.apple.itunes.storekit.model.JWSTransactionDecodedPayload;
+import com.apple.itunes.storekit.model.ResponseBodyV2DecodedPayload;
+import com.apple.itunes.storekit.verification.SignedDataVerifier;
+import com.apple.itunes.storekit.verification.VerificationException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matthew.RecipeGenerator.Service.AppleCertificateCacheService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link SignedDataVerifier}. The verifier needs Apple's root certificates, which are fetched
+ * after startup, so it is built by {@link #rebuild()} once they are available and can be swapped atomically
+ * whenever they change.
+ * <p>
+ * Certificate chains that recently passed full online verification (including the OCSP revocation check) are
+ * remembered by fingerprint. Payloads signed with a remembered chain are verified offline: the chain and
+ * signature are still checked, but without the revocation round trip. Entries live for the configured TTL,
+ * never past the expiry of any certificate in the chain.
+ */
+public class AppleSignedDataVerifier {
+
+    private static final ObjectMapper HEADER_READER = new ObjectMapper();
+
+    private final AppleCertificateCacheService certificateCacheService;
+    private final String bundleId;
+    private final Long appAppleId;
+    private final Environment environment;
+    private final boolean onlineChecks;
+    private final Duration chainTtl;
+    private final int maxCachedChains;
+
+    private final AtomicReference<Verifiers> delegate = new AtomicReference<>();
+    // Chain fingerprint -> epoch millis until which the chain is trusted without an online check.
+    private final Map<String, Long> verifiedChains = new ConcurrentHashMap<>();
+
+    private final Counter chainCacheHits;
+    private final Counter chainCacheMisses;
+
+    public AppleSignedDataVerifier(AppleCertificateCacheService certificateCacheService, String bundleId,
+                                   Long appAppleId, Environment environment, boolean onlineChecks,
+                                   Duration chainTtl, int maxCachedChains, MeterRegistry meterRegistry) {
+        this.certificateCacheService = certificateCacheService;
+        this.bundleId = bundleId;
+        this.appAppleId = appAppleId;
+        this.environment = environment;
+        this.onlineChecks = onlineChecks;
+        this.chainTtl = chainTtl;
+        this.maxCachedChains = maxCachedChains;
+        this.chainCacheHits = Counter.builder("apple.verification.chain.cache").tag("result", "hit").register(meterRegistry);
+        this.chainCacheMisses = Counter.builder("apple.verification.chain.cache").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("apple.verification.chain.cache.size", verifiedChains, Map::size).register(meterRegistry);
+    }
+
+    public void rebuild() {
+        if (!certificateCacheService.isLoaded()) {
+            throw new IllegalStateException("Apple root certificates have not been loaded");
+        }
+        SignedDataVerifier online = newVerifier(onlineChecks);
+        SignedDataVerifier offline = onlineChecks ? newVerifier(false) : online;
+        delegate.set(new Verifiers(online, offline));
+        // Chains were validated against the previous roots.
+        verifiedChains.clear();
+    }
+
+    SignedDataVerifier newVerifier(boolean onlineChecks) {
+        return new SignedDataVerifier(certificateCacheService.getCachedCertificates(), bundleId, appAppleId,
+                environment, onlineChecks);
+    }
+
+    public boolean isReady() {
+        return delegate.get() != null;
+    }
+
+    public ResponseBodyV2DecodedPayload verifyAndDecodeNotification(String signedPayload) throws VerificationException {
+        ChainLookup lookup = lookup(signedPayload);
+        ResponseBodyV2DecodedPayload payload = lookup.verifier().verifyAndDecodeNotification(signedPayload);
+        remember(lookup);
+        return payload;
+    }
+
+    public JWSTransactionDecodedPayload verifyAndDecodeTransaction(String signedTransaction) throws VerificationException {
+        ChainLookup lookup = lookup(signedTransaction);
+        JWSTransactionDecodedPayload payload = lookup.verifier().verifyAndDecodeTransaction(signedTransaction);
+        remember(lookup);
+        return payload;
+    }
+
+    public JWSRenewalInfoDecodedPayload verifyAndDecodeRenewalInfo(String signedRenewalInfo) throws VerificationException {
+        ChainLookup lookup = lookup(signedRenewalInfo);
+        JWSRenewalInfoDecodedPayload payload = lookup.verifier().verifyAndDecodeRenewalInfo(signedRenewalInfo);
+        remember(lookup);
+        return payload;
+    }
+
+    private ChainLookup lookup(String jws) {
+        Verifiers verifiers = delegate.get();
+        if (verifiers == null) {
+            throw new IllegalStateException("Apple signed data verifier is still warming up");
+        }
+        if (verifiers.online() == verifiers.offline()) {
+            return new ChainLookup(verifiers.online(), null, null);
+        }
+
+        JsonNode chain = readChain(jws);
+        if (chain == null) {
+            // Let the verifier produce the proper error for a malformed payload.
+            return new ChainLookup(verifiers.online(), null, null);
+        }
+        String fingerprint = fingerprint(chain);
+        Long trustedUntil = verifiedChains.get(fingerprint);
+        if (trustedUntil != null && trustedUntil > System.currentTimeMillis()) {
+            chainCacheHits.increment();
+            return new ChainLookup(verifiers.offline(), null, null);
+        }
+        chainCacheMisses.increment();
+        return new ChainLookup(verifiers.online(), fingerprint, chain);
+    }
+
+    private void remember(ChainLookup lookup) {
+        if (lookup.fingerprint() == null) return;
+        long trustedUntil = System.currentTimeMillis() + chainTtl.toMillis();
+        try {
+            CertificateFactory factory = CertificateFactory.getInstance("X.509");
+            for (JsonNode certificate : lookup.chain()) {
+                X509Certificate x509 = (X509Certificate) factory.generateCertificate(
+                        new ByteArrayInputStream(Base64.getDecoder().decode(certificate.asText())));
+                trustedUntil = Math.min(trustedUntil, x509.getNotAfter().getTime());
+            }
+        } catch (Exception e) {
+            return;
+        }
+
+        if (verifiedChains.size() >= maxCachedChains) {
+            long now = System.currentTimeMillis();
+            verifiedChains.values().removeIf(until -> until <= now);
+            if (verifiedChains.size() >= maxCachedChains) {
+                verifiedChains.clear();
+            }
+        }
+        verifiedChains.put(lookup.fingerprint(), trustedUntil);
+    }
+
+    private static JsonNode readChain(String jws) {
+        try {
+            int headerEnd = jws.indexOf('.');
+            if (headerEnd <= 0) return null;
+            JsonNode chain = HEADER_READER.readTree(Base64.getUrlDecoder().decode(jws.substring(0, headerEnd))).get("x5c");
+            return chain != null && chain.isArray() && !chain.isEmpty() ? chain : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String fingerprint(JsonNode chain) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            for (JsonNode certificate : chain) {
+                sha256.update(certificate.asText().getBytes(StandardCharsets.US_ASCII));
+                sha256.update((byte) '.');
+            }
+            return Base64.getEncoder().encodeToString(sha256.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Verifiers(SignedDataVerifier online, SignedDataVerifier offline) {
+    }
+
+    private record ChainLookup(SignedDataVerifier verifier, String fingerprint, JsonNode chain) {
+    }
+}
@@ -0,0 +1,117 @@
+package com.matthew.RecipeGenerator.Security.Apple;
+
+import com.matthew.RecipeGenerator.Service.AppleCertificateCacheService;
+import com.matthew.RecipeGenerator.Service.SchedulerLockService;
+import com.matthew.RecipeGenerator.Service.TransactionHistorySyncService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Builds the signed data verifier from the locally stored root certificates (downloading them if there are none)
+ * and runs the first transaction history sync after the application is ready, so none of this network work
+ * delays startup. The certificates are refreshed periodically in the background. Reported as the
+ * "appleWarmup" health contributor; it is deliberately left out of the readiness group, since the app can serve
+ * everything except App Store verification while it runs.
+ */
+@Slf4j
+@Component
+public class AppleWarmup implements HealthIndicator {
+
+    private enum State { PENDING, CERTIFICATES_LOADED, COMPLETE }
+
+    @Autowired
+    private AppleCertificateCacheService certificateCacheService;
+
+    @Autowired
+    private AppleSignedDataVerifier verifier;
+
+    @Autowired
+    private TransactionHistorySyncService transactionHistorySyncService;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Value("${apple.warmup.max-backoff-ms:300000}")
+    private long maxBackoffMillis;
+
+    private volatile State state = State.PENDING;
+    private volatile String lastError;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        long backoffMillis = 1000;
+        if (certificateCacheService.isLoaded()) {
+            // Loaded from the local store; the network refresh happens later in refreshCertificates.
+            verifier.rebuild();
+        }
+        while (!verifier.isReady()) {
+            try {
+                certificateCacheService.fetchAndCacheCertificates();
+                verifier.rebuild();
+                lastError = null;
+            } catch (RuntimeException e) {
+                lastError = e.getMessage();
+                log.warn("Apple warm-up failed, retrying in {} ms", backoffMillis);
+                if (!sleep(backoffMillis)) return;
+                backoffMillis = Math.min(backoffMillis * 2, maxBackoffMillis);
+            }
+        }
+        state = State.CERTIFICATES_LOADED;
+
+        // Shares the periodic sync's lock, so a rolling restart doesn't sync once per replica.
+        schedulerLockService.runExclusively("apple-transaction-sync", Duration.ofMinutes(50), Duration.ofMinutes(5), () -> {
+            log.info("Performing startup sync with Apple Transaction History API...");
+            transactionHistorySyncService.syncTransactionHistory();
+        });
+        state = State.COMPLETE;
+        log.info("Apple warm-up completed in {} ms", System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Re-downloads the root certificates and rebuilds the verifier if they changed, without a restart.
+     */
+    @Scheduled(fixedDelayString = "${apple.certificates.refresh-interval-ms:86400000}",
+            initialDelayString = "${apple.certificates.refresh-initial-delay-ms:600000}")
+    public void refreshCertificates() {
+        try {
+            if (certificateCacheService.fetchAndCacheCertificates() || !verifier.isReady()) {
+                verifier.rebuild();
+                log.info("Rebuilt Apple signed data verifier with refreshed root certificates");
+            }
+        } catch (RuntimeException e) {
+            log.warn("Apple root certificate refresh failed; keeping the current certificates", e);
+        }
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = state == State.PENDING && lastError != null ? Health.down() : Health.up();
+        builder.withDetail("state", state.name());
+        if (lastError != null) {
+            builder.withDetail("lastError", lastError);
+        }
+        return builder.build();
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -2,17 +2,11 @@ package com.matthew.RecipeGenerator.Security;
 import com.matthew.RecipeGenerator.Model.User;
 import com.matthew.RecipeGenerator.Repo.UserRepo;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 
-import java.util.Collections;
-import java.util.Set;
-import java.util.stream.Collectors;
-
 @Component
 public class CustomUserDetailsService implements UserDetailsService {
 
@@ -24,12 +18,11 @@ public class CustomUserDetailsService implements UserDetailsService {
         User user = userRepository.findByEmail(email).orElseThrow(() ->
                 new UsernameNotFoundException("User not exists by Username or Email"));
 
-        GrantedAuthority authority = new SimpleGrantedAuthority(user.getRole());
-
+        // Same ROLE_-prefixed authorities as token-authenticated requests, so hasRole rules apply to both.
         return new org.springframework.security.core.userdetails.User(
                 user.getUsername(),
                 user.getPassword(),
-                Collections.singleton(authority)
+                user.getAuthorities()
         );
     }
 
@@ -2,6 +2,8 @@ package com.matthew.RecipeGenerator.Security.Jwt;
 
 import com.matthew.RecipeGenerator.Model.User;
 import com.matthew.RecipeGenerator.Security.CustomUserDetailsService;
+import com.matthew.RecipeGenerator.Security.PrincipalCache;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -27,6 +29,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
     private CustomUserDetailsService customUserDetailsService;
+    private PrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
@@ -39,9 +42,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         String token = authHeader.substring(7);
-        String username = null;
+        Claims claims;
         try {
-            username = jwtUtil.getUsername(token);
+            // Signature and expiry are verified here, once per request (or served from the verified-token cache).
+            claims = jwtUtil.verifyAndGetClaims(token);
         } catch (ExpiredJwtException e) {
             // Handle the expired token case
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -49,14 +53,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
+        String username = claims.getSubject();
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            User user = customUserDetailsService.loadUserEntityByUsername(username);
-
-            if (jwtUtil.validateToken(token)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+            Integer userId = claims.get(JwtUtil.USER_ID_CLAIM, Integer.class);
+            User user;
+            if (userId == null) {
+                // Tokens issued before the uid/ver claims existed still resolve by username.
+                user = customUserDetailsService.loadUserEntityByUsername(username);
+            } else {
+                user = resolvePrincipal(userId, claims.get(JwtUtil.SECURITY_VERSION_CLAIM, Integer.class));
+                if (user == null) {
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    response.getWriter().write("Token has been revoked");
+                    return;
+                }
             }
+
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
 
 //        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
@@ -71,4 +86,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         chain.doFilter(request, response);
     }
+
+    private User resolvePrincipal(int userId, Integer tokenVersion) {
+        if (tokenVersion == null) return null;
+        User user = principalCache.get(userId);
+        if (user != null && tokenVersion > user.getSecurityVersion()) {
+            // Newer than our cached copy: the version was bumped elsewhere, so refresh once.
+            user = principalCache.reload(userId);
+        }
+        return user != null && tokenVersion == user.getSecurityVersion() ? user : null;
+    }
 }
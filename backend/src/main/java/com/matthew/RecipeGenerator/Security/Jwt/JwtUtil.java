@@ -2,75 +2,102 @@ package com.matthew.RecipeGenerator.Security.Jwt;
 
 import com.matthew.RecipeGenerator.Model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
-import io.jsonwebtoken.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
-import java.security.Key;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class JwtUtil {
 
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String SECURITY_VERSION_CLAIM = "ver";
+
     @Value("${jwt.secret}")
     private String secret;
 
     @Value("${jwt.expiration}")
     private long expiration;
 
-    public Boolean validateToken(String token) {
-        Jwts.parser()
-                .verifyWith((SecretKey) key())
-                .build()
-                .parse(token);
-        return true;
+    // 0 disables the verified-token cache.
+    @Value("${jwt.cache.max-entries:10000}")
+    private int maxCachedTokens;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // Signature segment of recently verified tokens -> the token and its claims, so repeat requests skip the HMAC
+    // check. A hit still compares the whole token, which is a plain string compare rather than another digest.
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
 
-    public String getUsername(String token){
-        return Jwts.parser()
-                .verifyWith((SecretKey) key())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+    /**
+     * Verifies the signature and expiry once and returns the claims. Throws
+     * {@link io.jsonwebtoken.ExpiredJwtException} for expired tokens and other
+     * {@link io.jsonwebtoken.JwtException}s for invalid ones.
+     */
+    public Claims verifyAndGetClaims(String token) {
+        if (maxCachedTokens <= 0) {
+            return parser.parseSignedClaims(token).getPayload();
+        }
+
+        String signature = token.substring(token.lastIndexOf('.') + 1);
+        VerifiedToken cached = verifiedTokens.get(signature);
+        if (cached != null && cached.token().equals(token)) {
+            if (cached.expiresAtMillis() > System.currentTimeMillis()) {
+                return cached.claims();
+            }
+            verifiedTokens.remove(signature, cached);
+        }
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        if (claims.getExpiration() != null) {
+            cache(signature, new VerifiedToken(token, claims, claims.getExpiration().getTime()));
+        }
+        return claims;
     }
 
-    private Key key(){
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+    public String getUsername(String token) {
+        return verifyAndGetClaims(token).getSubject();
     }
 
-    public String generateToken(Authentication authentication) {
-        String username = ((UserDetails) authentication.getPrincipal()).getUsername();
+    public String generateToken(User user) {
+        String username = user.getUsername();
         Date currentDate = new Date();
         Date expireDate = new Date(currentDate.getTime() + expiration);
 
         Map<String, Object> claims = new HashMap<>();
         claims.put("username", username);
+        claims.put(USER_ID_CLAIM, user.getUserId());
+        claims.put(SECURITY_VERSION_CLAIM, user.getSecurityVersion());
 
         return Jwts.builder()
                 .claims(claims)
                 .subject(username)
                 .issuedAt(new Date())
                 .expiration(expireDate)
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, Jwts.SIG.HS256)
                 .compact();
     }
 
     public String refreshToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith((SecretKey) key())
-                .build()
-                .parseSignedClaims(token)
-                .getBody();
+        Claims claims = verifyAndGetClaims(token);
 
         Date now = new Date();
         Date newExpiration = new Date(now.getTime() + expiration);
@@ -79,8 +106,21 @@ public class JwtUtil {
                 .claims(claims)
                 .issuedAt(now)
                 .expiration(newExpiration)
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, Jwts.SIG.HS256)
                 .compact();
     }
 
-}
\ No newline at end of file
+    private void cache(String signature, VerifiedToken verifiedToken) {
+        if (verifiedTokens.size() >= maxCachedTokens) {
+            long now = System.currentTimeMillis();
+            verifiedTokens.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+            if (verifiedTokens.size() >= maxCachedTokens) {
+                verifiedTokens.clear();
+            }
+        }
+        verifiedTokens.put(signature, verifiedToken);
+    }
+
+    private record VerifiedToken(String token, Claims claims, long expiresAtMillis) {
+    }
+}
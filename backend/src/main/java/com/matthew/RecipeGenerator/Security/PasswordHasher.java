@@ -0,0 +1,82 @@
+package com.matthew.RecipeGenerator.Security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt on a dedicated pool sized to the core count so password hashing cannot starve the request threads
+ * serving everything else. When the queue is full, calls fail fast with {@link RejectedExecutionException} so
+ * callers can shed load with a 503.
+ */
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer verifyTimer;
+    private final Timer encodeTimer;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                          @Value("${auth.hashing.queue-capacity:64}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        this.verifyTimer = Timer.builder("auth.password.hash").tag("operation", "verify").register(meterRegistry);
+        this.encodeTimer = Timer.builder("auth.password.hash").tag("operation", "encode").register(meterRegistry);
+        if (passwordEncoder instanceof AdaptiveBCryptPasswordEncoder adaptive) {
+            Gauge.builder("auth.bcrypt.strength", adaptive, AdaptiveBCryptPasswordEncoder::getStrength)
+                    .register(meterRegistry);
+            Gauge.builder("auth.bcrypt.calibration", adaptive, AdaptiveBCryptPasswordEncoder::getCalibrationMillis)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return await(executor.submit(() -> verifyTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword))));
+    }
+
+    public String encode(String rawPassword) {
+        return await(executor.submit(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword))));
+    }
+
+    /**
+     * True when the hash is weaker than what the current encoder produces, e.g. a BCrypt strength below the
+     * calibrated one.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.matthew.RecipeGenerator.Security;
+
+import com.matthew.RecipeGenerator.Event.InvalidationBus;
+import com.matthew.RecipeGenerator.Event.SubscriptionChangedEvent;
+import com.matthew.RecipeGenerator.Model.User;
+import com.matthew.RecipeGenerator.Model.UserSubscription;
+import com.matthew.RecipeGenerator.Repo.UserRepo;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded, TTL'd cache of authenticated users (with their subscription) keyed by user id, so the JWT filter does
+ * not query the database on every request. Entries are immutable snapshots; every lookup hands out a fresh,
+ * detached {@link User} built from one, so requests never share a mutable principal. Entries are dropped whenever
+ * the user's security version is bumped or their subscription changes, on this node or (via the
+ * {@link InvalidationBus}) another.
+ */
+@Component
+public class PrincipalCache {
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Value("${auth.principal-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${auth.principal-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final Map<Integer, CachedPrincipal> principals = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationBus.subscribe(InvalidationBus.USERS, key -> invalidate(Integer.parseInt(key)), principals::clear);
+        invalidationBus.subscribe(InvalidationBus.SUBSCRIPTIONS, key -> invalidate(Integer.parseInt(key)), principals::clear);
+    }
+
+    /**
+     * Returns a copy of the cached user, loading it (one query) when absent or expired. Returns null if the user no
+     * longer exists. The copy carries no password hash or recipes, and is never equal to the loaded entity, so callers
+     * must compare users by id.
+     */
+    public User get(int userId) {
+        CachedPrincipal cached = principals.get(userId);
+        if (cached != null && cached.expiresAtMillis() > System.currentTimeMillis()) {
+            return cached.principal().toUser();
+        }
+        return reload(userId);
+    }
+
+    public User reload(int userId) {
+        User user = userRepo.findWithSubscriptionByUserId(userId).orElse(null);
+        if (user == null) {
+            principals.remove(userId);
+            return null;
+        }
+        if (principals.size() >= maxEntries) {
+            long now = System.currentTimeMillis();
+            principals.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+            if (principals.size() >= maxEntries) {
+                principals.clear();
+            }
+        }
+        Principal principal = Principal.of(user);
+        principals.put(userId, new CachedPrincipal(principal, System.currentTimeMillis() + ttlSeconds * 1000));
+        return principal.toUser();
+    }
+
+    public void invalidate(int userId) {
+        principals.remove(userId);
+    }
+
+    @EventListener
+    public void onSubscriptionChanged(SubscriptionChangedEvent event) {
+        invalidate(event.userId());
+    }
+
+    /**
+     * Revokes every access token issued to the user so far.
+     */
+    public void bumpSecurityVersion(int userId) {
+        userRepo.incrementSecurityVersion(userId);
+        invalidate(userId);
+        invalidationBus.publish(InvalidationBus.USERS, Integer.toString(userId));
+    }
+
+    private record CachedPrincipal(Principal principal, long expiresAtMillis) {
+    }
+
+    private record Principal(int userId, String username, String email, String firstName, String lastName,
+                             String role, boolean enabled, int securityVersion, ZonedDateTime userCreatedAt,
+                             Subscription subscription) {
+
+        static Principal of(User user) {
+            UserSubscription subscription = user.getSubscription();
+            return new Principal(user.getUserId(), user.getUsername(), user.getEmail(), user.getFirstName(),
+                    user.getLastName(), user.getRole(), user.isEnabled(), user.getSecurityVersion(),
+                    user.getUserCreatedAt(), subscription == null ? null : Subscription.of(subscription));
+        }
+
+        User toUser() {
+            User user = User.builder()
+                    .userId(userId)
+                    .username(username)
+                    .email(email)
+                    .firstName(firstName)
+                    .lastName(lastName)
+                    .role(role)
+                    .enabled(enabled)
+                    .securityVersion(securityVersion)
+                    .userCreatedAt(userCreatedAt)
+                    .build();
+            if (subscription != null) user.setSubscription(subscription.toSubscription());
+            return user;
+        }
+    }
+
+    private record Subscription(Long id, String platform, String productId, String originalTransactionId,
+                                String latestTransactionId, Instant purchaseDate, Instant expirationDate,
+                                Instant cancellationDate, boolean trial, boolean autoRenew, String status,
+                                Instant lastVerifiedAt) {
+
+        static Subscription of(UserSubscription subscription) {
+            return new Subscription(subscription.getId(), subscription.getPlatform(), subscription.getProductId(),
+                    subscription.getOriginalTransactionId(), subscription.getLatestTransactionId(),
+                    subscription.getPurchaseDate(), subscription.getExpirationDate(),
+                    subscription.getCancellationDate(), subscription.isTrial(), subscription.isAutoRenew(),
+                    subscription.getStatus(), subscription.getLastVerifiedAt());
+        }
+
+        UserSubscription toSubscription() {
+            UserSubscription subscription = new UserSubscription();
+            subscription.setId(id);
+            subscription.setPlatform(platform);
+            subscription.setProductId(productId);
+            subscription.setOriginalTransactionId(originalTransactionId);
+            subscription.setLatestTransactionId(latestTransactionId);
+            subscription.setPurchaseDate(purchaseDate);
+            subscription.setExpirationDate(expirationDate);
+            subscription.setCancellationDate(cancellationDate);
+            subscription.setTrial(trial);
+            subscription.setAutoRenew(autoRenew);
+            subscription.setStatus(status);
+            subscription.setLastVerifiedAt(lastVerifiedAt);
+            return subscription;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.matthew.RecipeGenerator.Security;
+
+import com.matthew.RecipeGenerator.Model.User;
+import com.matthew.RecipeGenerator.Util.SlidingWindowRateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Throttles the endpoints that burn BCrypt CPU, SMTP sends or OpenAI spend. Runs after JWT authentication so the
+ * generation endpoint can be limited per user; everything is in memory, with no database access. Client IPs come
+ * from {@code getRemoteAddr()}, which honours X-Forwarded-For from trusted proxies via
+ * {@code server.forward-headers-strategy}. Login is also limited per email, which the controller checks once it
+ * has read the request body.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final long MINUTE = 60_000L;
+
+    private final SlidingWindowRateLimiter loginByIp;
+    private final SlidingWindowRateLimiter loginByEmail;
+    private final SlidingWindowRateLimiter registerByIp;
+    private final SlidingWindowRateLimiter resetByIp;
+    private final SlidingWindowRateLimiter resetByEmail;
+    private final SlidingWindowRateLimiter generationByUser;
+
+    public RateLimitFilter(@Value("${rate-limit.max-keys:100000}") int maxKeys,
+                           @Value("${rate-limit.login.per-minute:10}") int loginPerMinute,
+                           @Value("${rate-limit.login.email.per-hour:30}") int loginPerEmailPerHour,
+                           @Value("${rate-limit.register.per-hour:10}") int registerPerHour,
+                           @Value("${rate-limit.request-reset.ip.per-hour:20}") int resetPerIpPerHour,
+                           @Value("${rate-limit.request-reset.email.per-hour:3}") int resetPerEmailPerHour,
+                           @Value("${rate-limit.generation.per-minute:5}") int generationPerMinute) {
+        this.loginByIp = new SlidingWindowRateLimiter(loginPerMinute, MINUTE, maxKeys);
+        // Per-email limits fail open when full; the per-IP limit in front of them still applies.
+        this.loginByEmail = new SlidingWindowRateLimiter(loginPerEmailPerHour, 60 * MINUTE, maxKeys, true);
+        this.registerByIp = new SlidingWindowRateLimiter(registerPerHour, 60 * MINUTE, maxKeys);
+        this.resetByIp = new SlidingWindowRateLimiter(resetPerIpPerHour, 60 * MINUTE, maxKeys);
+        this.resetByEmail = new SlidingWindowRateLimiter(resetPerEmailPerHour, 60 * MINUTE, maxKeys, true);
+        this.generationByUser = new SlidingWindowRateLimiter(generationPerMinute, MINUTE, maxKeys);
+    }
+
+    /**
+     * Counts a login attempt against the account's email, however many IPs it comes from. Returns 0 when allowed,
+     * otherwise the number of milliseconds after which the client should retry.
+     */
+    public long tryAcquireLogin(String email) {
+        if (email == null) return 0;
+        return loginByEmail.tryAcquire(email.trim().toLowerCase(Locale.ROOT), System.currentTimeMillis());
+    }
+
+    public static String retryAfterSeconds(long retryAfterMillis) {
+        return String.valueOf(Math.max(1, (retryAfterMillis + 999) / 1000));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long retryAfterMillis = check(request, System.currentTimeMillis());
+        if (retryAfterMillis > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds(retryAfterMillis));
+            response.getWriter().write("Too many requests. Please try again later.");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private long check(HttpServletRequest request, long now) {
+        String path = request.getRequestURI();
+        String method = request.getMethod();
+
+        if (HttpMethod.POST.matches(method)) {
+            switch (path) {
+                case "/api/auth/login" -> {
+                    return loginByIp.tryAcquire(request.getRemoteAddr(), now);
+                }
+                case "/api/auth/register" -> {
+                    return registerByIp.tryAcquire(request.getRemoteAddr(), now);
+                }
+                case "/api/auth/request-reset" -> {
+                    long retryAfter = resetByIp.tryAcquire(request.getRemoteAddr(), now);
+                    String email = request.getParameter("email");
+                    if (retryAfter == 0 && email != null) {
+                        retryAfter = resetByEmail.tryAcquire(email.trim().toLowerCase(Locale.ROOT), now);
+                    }
+                    return retryAfter;
+                }
+                default -> {
+                    return 0;
+                }
+            }
+        }
+
+        if (HttpMethod.GET.matches(method) && "/recipes".equals(path)) {
+            String query = request.getQueryString();
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (query != null && query.contains("ingredients=")
+                    && authentication != null && authentication.getPrincipal() instanceof User user) {
+                return generationByUser.tryAcquire(Integer.toString(user.getUserId()), now);
+            }
+        }
+        return 0;
+    }
+}
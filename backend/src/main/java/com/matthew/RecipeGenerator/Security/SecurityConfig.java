@@ -1,22 +1,22 @@
 package com.matthew.RecipeGenerator.Security;
 
+import com.matthew.RecipeGenerator.Actuator.IngredientAnalyticsEndpoint;
 import com.matthew.RecipeGenerator.Security.Jwt.JwtAuthenticationEntryPoint;
 import com.matthew.RecipeGenerator.Security.Jwt.JwtAuthenticationFilter;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
-import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -33,6 +33,8 @@ public class SecurityConfig {
     private JwtAuthenticationEntryPoint authenticationEntryPoint;
     @Autowired
     private UserDetailsService userDetailsService;
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -42,13 +44,18 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**", "/api/webhook/**").permitAll()  // Allow public access for authentication
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .requestMatchers(EndpointRequest.to(IngredientAnalyticsEndpoint.class)).hasRole("ADMIN")
                         .requestMatchers("/apple-app-site-association", "/.well-known/apple-app-site-association", "/.well-known/assetlinks.json").permitAll()
                         .requestMatchers("/verify-email", "/terms-of-service", "/images/logo.png", "images/favicon.ico", "images/favicon.ico").permitAll()
                         .anyRequest().authenticated()
-                ).httpBasic(Customizer.withDefaults())
+                )
+                // Basic auth would check passwords on the request thread, outside the login rate limits and PasswordHasher.
+                .httpBasic(httpBasic -> httpBasic.disable())
                 .exceptionHandling(exception -> exception
                         .authenticationEntryPoint(authenticationEntryPoint))
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class)
                 .build();
     }
 
@@ -73,7 +80,9 @@ public class SecurityConfig {
     }
 
     @Bean
-    public static PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public static PasswordEncoder passwordEncoder(@Value("${auth.bcrypt.min-strength:10}") int minStrength,
+                                                  @Value("${auth.bcrypt.max-strength:14}") int maxStrength,
+                                                  @Value("${auth.bcrypt.target-millis:250}") long targetMillis) {
+        return new AdaptiveBCryptPasswordEncoder(minStrength, maxStrength, targetMillis);
     }
 }
\ No newline at end of file
@@ -5,7 +5,17 @@ import java.util.Set;
 
 public interface AppleCertificateCacheService {
 
-    void fetchAndCacheCertificates();
+    /**
+     * Downloads the Apple root certificates, persists them to the local store and swaps them in. Returns true
+     * if they differ from the certificates held before.
+     */
+    boolean fetchAndCacheCertificates();
+
+    /**
+     * Returns fresh streams over the cached certificates on every call; empty until they have been loaded.
+     */
     Set<InputStream> getCachedCertificates();
 
+    boolean isLoaded();
+
 }
@@ -2,33 +2,99 @@ package com.matthew.RecipeGenerator.Service;
 
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.HashSet;
-import java.util.Set;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.*;
 
+/**
+ * Provides Apple's root certificates to the signed data verifier. Every root is pinned to its SHA-256 fingerprint
+ * and a certificate that doesn't match is rejected wherever it came from, so neither a modified local copy nor a
+ * tampered download can swap in another root. At startup the roots are read from the copies bundled on the
+ * classpath, falling back to the last downloaded copies in an app-owned directory; downloads refresh that directory.
+ */
 @Service
 @Slf4j
 public class AppleCertificateCacheServiceImpl implements AppleCertificateCacheService {
 
-    private static final String APPLE_ROOT_CERT_URL = "https://www.apple.com/certificateauthority/AppleRootCA-G3.cer";
-    private static final String APPLE_INC_ROOT_CERT_URL = "https://www.apple.com/appleca/AppleIncRootCertificate.cer";
+    static final Map<String, RootCertificate> APPLE_ROOTS = Map.of(
+            "apple-root-ca-g3", new RootCertificate("AppleRootCA-G3.cer",
+                    "https://www.apple.com/certificateauthority/AppleRootCA-G3.cer",
+                    "63343abfb89a6a03ebb57e9b3f5fa7be7c4f5c756f3017b3a8c488c3653e9179"),
+            "apple-inc-root", new RootCertificate("AppleIncRootCertificate.cer",
+                    "https://www.apple.com/appleca/AppleIncRootCertificate.cer",
+                    "b0b1730ecbc7ff4505142c49f1295e6eda6bcaed7e2c68c5be91b5a11001f024"));
 
-    private final Set<InputStream> cachedCertificates = new HashSet<>();
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+    private static final int READ_TIMEOUT_MILLIS = 10000;
+
+    private final Map<String, RootCertificate> roots;
+
+    @Value("${apple.certificates.bundled-location:classpath:apple/}")
+    private String bundledLocation;
+
+    @Value("${apple.certificates.store-dir:${user.home}/.recipe-generator/apple-root-certificates}")
+    private Path storeDir;
+
+    private final DefaultResourceLoader resourceLoader = new DefaultResourceLoader();
+
+    // DER-encoded certificates, so a verifier can be (re)built from them any number of times.
+    private volatile List<byte[]> cachedCertificates = List.of();
+
+    public AppleCertificateCacheServiceImpl() {
+        this(APPLE_ROOTS);
+    }
+
+    AppleCertificateCacheServiceImpl(Map<String, RootCertificate> roots) {
+        this.roots = Map.copyOf(roots);
+    }
 
     @PostConstruct
-    public void initialize() {
-        fetchAndCacheCertificates();
+    public void loadLocalCertificates() {
+        List<byte[]> certificates = new ArrayList<>();
+        for (RootCertificate root : roots.values()) {
+            byte[] certificate = readLocal(resourceLoader.getResource(bundledLocation + root.fileName()), root);
+            if (certificate == null) {
+                certificate = readLocal(new FileSystemResource(storeDir.resolve(root.fileName())), root);
+            }
+            if (certificate == null) {
+                log.info("No local copy of Apple root certificate {}; certificates will be downloaded", root.fileName());
+                return;
+            }
+            certificates.add(certificate);
+        }
+        cachedCertificates = List.copyOf(certificates);
+        log.info("Loaded Apple root certificates from local copies");
     }
 
-    public void fetchAndCacheCertificates() {
+    public boolean fetchAndCacheCertificates() {
         try {
-            cachedCertificates.add(downloadCertificate(APPLE_ROOT_CERT_URL));
-            cachedCertificates.add(downloadCertificate(APPLE_INC_ROOT_CERT_URL));
+            List<byte[]> certificates = new ArrayList<>();
+            for (RootCertificate root : roots.values()) {
+                certificates.add(checkPinned(downloadCertificate(root.url()), root));
+            }
+
+            boolean changed = !sameCertificates(cachedCertificates, certificates);
+            persist(certificates);
+            cachedCertificates = List.copyOf(certificates);
             log.info("Successfully fetched and cached Apple root certificates.");
+            return changed;
         } catch (Exception e) {
             log.error("Failed to fetch Apple root certificates", e);
             throw new RuntimeException("Failed to fetch Apple root certificates", e);
@@ -36,20 +102,103 @@ public class AppleCertificateCacheServiceImpl implements AppleCertificateCacheSe
     }
 
     public Set<InputStream> getCachedCertificates() {
-        return cachedCertificates;
+        Set<InputStream> streams = new HashSet<>();
+        for (byte[] certificate : cachedCertificates) {
+            streams.add(new ByteArrayInputStream(certificate));
+        }
+        return streams;
+    }
+
+    public boolean isLoaded() {
+        return !cachedCertificates.isEmpty();
+    }
+
+    private byte[] readLocal(Resource resource, RootCertificate root) {
+        if (!resource.exists()) return null;
+        try (InputStream in = resource.getInputStream()) {
+            return checkPinned(in.readAllBytes(), root);
+        } catch (Exception e) {
+            log.warn("Ignoring Apple root certificate {}: {}", resource.getDescription(), e.getMessage());
+            return null;
+        }
     }
 
-    private InputStream downloadCertificate(String certUrl) throws Exception {
+    /**
+     * Returns the DER encoding of the certificate if its fingerprint is the pinned one and it is still valid.
+     */
+    private static byte[] checkPinned(byte[] data, RootCertificate root) throws CertificateException {
+        X509Certificate certificate = (X509Certificate) CertificateFactory.getInstance("X.509")
+                .generateCertificate(new ByteArrayInputStream(data));
+        byte[] encoded = certificate.getEncoded();
+        if (!MessageDigest.isEqual(sha256(encoded), HexFormat.of().parseHex(root.sha256()))) {
+            throw new CertificateException(root.fileName() + " does not match its pinned SHA-256 fingerprint");
+        }
+        certificate.checkValidity();
+        return encoded;
+    }
+
+    private void persist(List<byte[]> certificates) throws IOException {
+        if (!Files.isDirectory(storeDir)) {
+            if (storeDir.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                Files.createDirectories(storeDir,
+                        PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            } else {
+                Files.createDirectories(storeDir);
+            }
+        }
+        Iterator<byte[]> encoded = certificates.iterator();
+        for (RootCertificate root : roots.values()) {
+            byte[] certificate = encoded.next();
+            Path target = storeDir.resolve(root.fileName());
+            if (Files.exists(target) && Arrays.equals(Files.readAllBytes(target), certificate)) continue;
+
+            Path temp = Files.createTempFile(storeDir, "apple-root", ".cer.tmp");
+            try {
+                Files.write(temp, certificate);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private static boolean sameCertificates(List<byte[]> current, List<byte[]> downloaded) {
+        if (current.size() != downloaded.size()) return false;
+        for (int i = 0; i < current.size(); i++) {
+            if (!Arrays.equals(current.get(i), downloaded.get(i))) return false;
+        }
+        return true;
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private byte[] downloadCertificate(String certUrl) throws Exception {
         URL url = new URL(certUrl);
         HttpURLConnection connection = (HttpURLConnection) url.openConnection();
         connection.setRequestMethod("GET");
         connection.setDoInput(true);
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
         connection.connect();
 
-        if (connection.getResponseCode() != 200) {
-            throw new RuntimeException("Failed to download certificate from: " + certUrl);
+        try {
+            if (connection.getResponseCode() != 200) {
+                throw new RuntimeException("Failed to download certificate from: " + certUrl);
+            }
+            try (InputStream body = connection.getInputStream()) {
+                return body.readAllBytes();
+            }
+        } finally {
+            connection.disconnect();
         }
+    }
 
-        return connection.getInputStream();
+    record RootCertificate(String fileName, String url, String sha256) {
     }
-}
\ No newline at end of file
+}
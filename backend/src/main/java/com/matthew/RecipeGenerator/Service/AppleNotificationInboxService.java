@@ -0,0 +1,15 @@
+package com.matthew.RecipeGenerator.Service;
+
+public interface AppleNotificationInboxService {
+    /**
+     * Verifies the signed payload and stores the raw webhook body for asynchronous processing. Returns false if the
+     * notification was already received. Throws {@link IllegalArgumentException} if the body is not a validly signed
+     * App Store server notification, and {@link IllegalStateException} while the verifier is still warming up.
+     */
+    boolean enqueue(String jsonPayload);
+
+    /**
+     * Verifies and applies due notifications. Returns the number processed successfully.
+     */
+    int processPending();
+}
@@ -0,0 +1,183 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.apple.itunes.storekit.model.ResponseBodyV2DecodedPayload;
+import com.apple.itunes.storekit.verification.VerificationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matthew.RecipeGenerator.Model.AppleNotificationInbox;
+import com.matthew.RecipeGenerator.Repo.AppleNotificationInboxRepo;
+import com.matthew.RecipeGenerator.Security.Apple.AppleSignedDataVerifier;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Service
+public class AppleNotificationInboxServiceImpl implements AppleNotificationInboxService {
+
+    @Autowired
+    private AppleNotificationInboxRepo inboxRepo;
+
+    @Autowired
+    private AppleNotificationService appleNotificationService;
+
+    @Autowired
+    private AppleSignedDataVerifier verifier;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${apple.notifications.workers:4}")
+    private int workers;
+
+    @Value("${apple.notifications.batch-size:50}")
+    private int batchSize;
+
+    @Value("${apple.notifications.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${apple.notifications.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${apple.notifications.retry-base-seconds:10}")
+    private long retryBaseSeconds;
+
+    @Value("${apple.notifications.retention-days:30}")
+    private long retentionDays;
+
+    @Value("${apple.notifications.dead-retention-days:90}")
+    private long deadRetentionDays;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "apple-notification-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public boolean enqueue(String jsonPayload) {
+        // The webhook is public, so nothing is stored before its signature checks out: the UUID (dedup) and the
+        // transaction id and signed date (ordering) steer how other notifications are processed. Repeat chains
+        // are verified from the chain cache, so this stays cheap.
+        if (!verifier.isReady()) {
+            throw new IllegalStateException("Apple signed data verifier is still warming up");
+        }
+        String signedPayload;
+        try {
+            signedPayload = objectMapper.readTree(jsonPayload).path("signedPayload").asText(null);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Not an App Store server notification", e);
+        }
+        if (signedPayload == null || signedPayload.isEmpty()) {
+            throw new IllegalArgumentException("Signed payload is missing or empty");
+        }
+
+        ResponseBodyV2DecodedPayload notification;
+        String originalTransactionId = null;
+        try {
+            notification = verifier.verifyAndDecodeNotification(signedPayload);
+            if (notification.getData() != null && notification.getData().getSignedTransactionInfo() != null) {
+                originalTransactionId = verifier.verifyAndDecodeTransaction(
+                        notification.getData().getSignedTransactionInfo()).getOriginalTransactionId();
+            }
+        } catch (VerificationException e) {
+            throw new IllegalArgumentException("App Store notification failed verification: " + e.getStatus(), e);
+        }
+
+        if (notification.getNotificationUUID() == null || notification.getSignedDate() == null) {
+            throw new IllegalArgumentException("Notification UUID or signed date is missing");
+        }
+        return inboxRepo.insertIfAbsent(notification.getNotificationUUID(), originalTransactionId,
+                notification.getSignedDate(), jsonPayload, Instant.now()) > 0;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${apple.notifications.poll-interval-ms:1000}")
+    public int processPending() {
+        if (!verifier.isReady()) return 0;
+
+        int processed = 0;
+        List<AppleNotificationInbox> batch;
+        do {
+            Instant now = Instant.now();
+            batch = inboxRepo.claimDue(now, now.plusSeconds(leaseSeconds), batchSize);
+
+            // Each claimed row belongs to a different original transaction, so the batch can run in parallel.
+            List<Future<?>> results = new ArrayList<>(batch.size());
+            for (AppleNotificationInbox notification : batch) {
+                results.add(executor.submit(() -> appleNotificationService.processNotification(notification.getPayload())));
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                AppleNotificationInbox notification = batch.get(i);
+                try {
+                    results.get(i).get();
+                    inboxRepo.markDone(notification.getId(), Instant.now());
+                    processed++;
+                } catch (ExecutionException e) {
+                    recordFailure(notification, e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return processed;
+                }
+            }
+        } while (batch.size() == batchSize);
+        return processed;
+    }
+
+    @Scheduled(cron = "${apple.notifications.cleanup-cron:0 45 3 * * *}")
+    public void deleteProcessedNotifications() {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(retentionDays));
+        int deleted;
+        do {
+            deleted = inboxRepo.deleteProcessedBefore(cutoff, 1000);
+        } while (deleted == 1000);
+
+        // Dead letters are kept longer so they can be looked into, but not forever.
+        Instant deadCutoff = Instant.now().minus(Duration.ofDays(deadRetentionDays));
+        do {
+            deleted = inboxRepo.deleteDeadBefore(deadCutoff, 1000);
+        } while (deleted == 1000);
+    }
+
+    private void recordFailure(AppleNotificationInbox notification, Throwable failure) {
+        int attempts = notification.getAttempts() + 1;
+        // Verification failures are retried like any other: the payload already passed verification on enqueue,
+        // so a failure here is more likely the verifier (an unreachable OCSP responder, a cache being rebuilt).
+        String status = attempts >= maxAttempts ? AppleNotificationInbox.DEAD : AppleNotificationInbox.PENDING;
+        long delaySeconds = Math.min(retryBaseSeconds << Math.min(attempts - 1, 20), Duration.ofHours(6).toSeconds());
+        inboxRepo.markAttemptFailed(notification.getId(), status, attempts,
+                Instant.now().plusSeconds(delaySeconds), String.valueOf(failure));
+        if (AppleNotificationInbox.DEAD.equals(status)) {
+            log.error("Moving App Store notification {} to dead letters after {} attempts",
+                    notification.getNotificationUuid(), attempts, failure);
+        } else {
+            log.warn("App Store notification {} failed (attempt {}), retrying in {}s",
+                    notification.getNotificationUuid(), attempts, delaySeconds, failure);
+        }
+    }
+}
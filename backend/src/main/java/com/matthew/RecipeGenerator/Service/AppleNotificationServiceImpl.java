@@ -1,14 +1,16 @@
 package com.matthew.RecipeGenerator.Service;
 
 import com.apple.itunes.storekit.model.*;
-import com.apple.itunes.storekit.verification.SignedDataVerifier;
 import com.apple.itunes.storekit.verification.VerificationStatus;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matthew.RecipeGenerator.Event.SubscriptionChangedEvent;
 import com.matthew.RecipeGenerator.Model.UserSubscription;
 import com.matthew.RecipeGenerator.Repo.UserSubscriptionRepo;
+import com.matthew.RecipeGenerator.Security.Apple.AppleSignedDataVerifier;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
@@ -19,11 +21,14 @@ import java.util.Optional;
 public class AppleNotificationServiceImpl implements AppleNotificationService {
 
     @Autowired
-    private SignedDataVerifier verifier;
+    private AppleSignedDataVerifier verifier;
 
     @Autowired
     private UserSubscriptionRepo subscriptionRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -104,5 +109,8 @@ public class AppleNotificationServiceImpl implements AppleNotificationService {
         }
 
         subscriptionRepository.save(subscription);
+        if (subscription.getUser() != null) {
+            eventPublisher.publishEvent(SubscriptionChangedEvent.of(subscription));
+        }
     }
 }
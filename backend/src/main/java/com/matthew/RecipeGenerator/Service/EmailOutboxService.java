@@ -0,0 +1,13 @@
+package com.matthew.RecipeGenerator.Service;
+
+public interface EmailOutboxService {
+    /**
+     * Queues an email. Joins the caller's transaction, so the email is only sent if that transaction commits.
+     */
+    void enqueue(String recipient, String subject, String body);
+
+    /**
+     * Sends due emails in batches until none are left. Returns the number sent.
+     */
+    int dispatchPending();
+}
@@ -0,0 +1,139 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Model.EmailOutbox;
+import com.matthew.RecipeGenerator.Repo.EmailOutboxRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+public class EmailOutboxServiceImpl implements EmailOutboxService {
+
+    @Autowired
+    private EmailOutboxRepo emailOutboxRepo;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Value("${email.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${email.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${email.outbox.retry-base-seconds:30}")
+    private long retryBaseSeconds;
+
+    @Value("${email.outbox.retention-days:7}")
+    private long retentionDays;
+
+    @Override
+    @Transactional
+    public void enqueue(String recipient, String subject, String body) {
+        Instant now = Instant.now();
+        EmailOutbox email = new EmailOutbox();
+        email.setRecipient(recipient);
+        email.setSubject(subject);
+        email.setBody(body);
+        email.setStatus(EmailOutbox.PENDING);
+        email.setNextAttemptAt(now);
+        email.setCreatedAt(now);
+        emailOutboxRepo.save(email);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:2000}")
+    public int dispatchPending() {
+        int sent = 0;
+        List<EmailOutbox> batch;
+        do {
+            Instant now = Instant.now();
+            batch = emailOutboxRepo.claimDue(now, now.plusSeconds(leaseSeconds), batchSize);
+            if (!batch.isEmpty()) {
+                sent += send(batch);
+            }
+        } while (batch.size() == batchSize);
+        return sent;
+    }
+
+    @Scheduled(cron = "${email.outbox.cleanup-cron:0 30 3 * * *}")
+    public void deleteSentEmails() {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(retentionDays));
+        int deleted;
+        do {
+            deleted = emailOutboxRepo.deleteSentBefore(cutoff, 1000);
+        } while (deleted == 1000);
+    }
+
+    /**
+     * Sends the whole batch over one SMTP connection and records the outcome of each message.
+     */
+    private int send(List<EmailOutbox> batch) {
+        Map<SimpleMailMessage, EmailOutbox> messages = new IdentityHashMap<>();
+        for (EmailOutbox email : batch) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo(email.getRecipient());
+            message.setSubject(email.getSubject());
+            message.setText(email.getBody());
+            messages.put(message, email);
+        }
+
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        try {
+            mailSender.send(messages.keySet().toArray(new SimpleMailMessage[0]));
+        } catch (MailSendException e) {
+            failures.putAll(e.getFailedMessages());
+            if (failures.isEmpty()) {
+                messages.keySet().forEach(message -> failures.put(message, e));
+            }
+        } catch (MailException e) {
+            messages.keySet().forEach(message -> failures.put(message, e));
+        }
+
+        List<Long> sentIds = new ArrayList<>();
+        for (Map.Entry<SimpleMailMessage, EmailOutbox> entry : messages.entrySet()) {
+            Exception failure = failures.get(entry.getKey());
+            if (failure == null) {
+                sentIds.add(entry.getValue().getId());
+            } else {
+                recordFailure(entry.getValue(), failure);
+            }
+        }
+        if (!sentIds.isEmpty()) {
+            emailOutboxRepo.markSent(sentIds, Instant.now());
+        }
+        return sentIds.size();
+    }
+
+    private void recordFailure(EmailOutbox email, Exception failure) {
+        int attempts = email.getAttempts() + 1;
+        String status = attempts >= maxAttempts ? EmailOutbox.FAILED : EmailOutbox.PENDING;
+        // Exponential backoff: base, 2x base, 4x base, ... capped at a day.
+        long delaySeconds = Math.min(retryBaseSeconds << Math.min(attempts - 1, 20), Duration.ofDays(1).toSeconds());
+        emailOutboxRepo.markAttemptFailed(email.getId(), status, attempts,
+                Instant.now().plusSeconds(delaySeconds), failure.getMessage());
+        if (EmailOutbox.FAILED.equals(status)) {
+            log.error("Giving up on email {} after {} attempts", email.getId(), attempts, failure);
+        } else {
+            log.warn("Email {} failed (attempt {}), retrying in {}s: {}", email.getId(), attempts, delaySeconds, failure.getMessage());
+        }
+    }
+}
@@ -5,4 +5,9 @@ import com.matthew.RecipeGenerator.Model.User;
 public interface EmailVerificationService {
     public void sendVerificationEmail(User user);
     public User verifyEmailAndGetUser(String token);
+    /**
+     * Sends a fresh link to a still-disabled account unless one went out within the last few minutes. Returns
+     * whether an email was sent.
+     */
+    public boolean resendVerificationEmail(User user);
 }
@@ -4,10 +4,10 @@ import com.matthew.RecipeGenerator.Model.User;
 import com.matthew.RecipeGenerator.Repo.UserRepo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.ZonedDateTime;
 import java.util.UUID;
 
 @Service
@@ -17,35 +17,57 @@ public class EmailVerificationServiceImpl implements EmailVerificationService {
     private UserRepo userRepo;
 
     @Autowired
-    private JavaMailSender mailSender;
+    private EmailOutboxService emailOutboxService;
 
     @Value("${BACKEND_URL}")  // Inject the frontend URL from the properties file
     private String backendUrl;
 
+    @Value("${auth.verification.ttl-hours:48}")
+    private long verificationTtlHours;
 
+    @Value("${auth.verification.resend-after-minutes:10}")
+    private long resendAfterMinutes;
+
+    @Transactional
     public void sendVerificationEmail(User user) {
         String token = UUID.randomUUID().toString();
         user.setVerificationToken(token);
+        user.setVerificationTokenExpiresAt(ZonedDateTime.now().plusHours(verificationTtlHours));
         userRepo.save(user);
 
         String verificationUrl = "https://ingredigo.net/verify-email?token=" + token;
 
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
-        mailMessage.setTo(user.getEmail());
-        mailMessage.setSubject("Email Verification");
-        mailMessage.setText("Click the link to verify your email: " + verificationUrl);
-
-        mailSender.send(mailMessage);
+        emailOutboxService.enqueue(user.getEmail(), "Email Verification",
+                "Click the link to verify your email: " + verificationUrl);
     }
 
     public User verifyEmailAndGetUser(String token) {
         User user = userRepo.findByVerificationToken(token).orElse(null);
-        if (user != null) {
+        if (user != null && expiresAt(user).isAfter(ZonedDateTime.now())) {
             user.setEnabled(true);
             user.setVerificationToken(null);
+            user.setVerificationTokenExpiresAt(null);
             userRepo.save(user);
             return user;
         }
         return null;
     }
+
+    @Transactional
+    public boolean resendVerificationEmail(User user) {
+        if (user.isEnabled()) return false;
+        if (user.getVerificationToken() != null) {
+            ZonedDateTime issuedAt = expiresAt(user).minusHours(verificationTtlHours);
+            if (issuedAt.plusMinutes(resendAfterMinutes).isAfter(ZonedDateTime.now())) return false;
+        }
+        sendVerificationEmail(user);
+        return true;
+    }
+
+    // Tokens issued before expiries were recorded expire ttl-hours after the account was created.
+    private ZonedDateTime expiresAt(User user) {
+        return user.getVerificationTokenExpiresAt() != null
+                ? user.getVerificationTokenExpiresAt()
+                : user.getUserCreatedAt().plusHours(verificationTtlHours);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.matthew.RecipeGenerator.Service;
+
+public interface EntitlementService {
+    String NO_SUBSCRIPTION = "NONE";
+
+    String getStatus(int userId);
+}
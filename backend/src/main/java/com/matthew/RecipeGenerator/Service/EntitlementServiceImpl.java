@@ -0,0 +1,113 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Event.InvalidationBus;
+import com.matthew.RecipeGenerator.Event.SubscriptionChangedEvent;
+import com.matthew.RecipeGenerator.Model.UserSubscription;
+import com.matthew.RecipeGenerator.Repo.UserSubscriptionRepo;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of every user's subscription status and expiry, kept current by {@link SubscriptionChangedEvent}s,
+ * so the paywall check is a map lookup. Expiry is evaluated against the clock on read, so an ACTIVE subscription
+ * whose expiration has passed is reported as EXPIRED without waiting for a sync or webhook. Changes made on other
+ * nodes arrive through the {@link InvalidationBus} and are re-read from the database.
+ */
+@Service
+@Slf4j
+public class EntitlementServiceImpl implements EntitlementService {
+
+    @Autowired
+    private UserSubscriptionRepo subscriptionRepository;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Value("${entitlements.load.page-size:1000}")
+    private int pageSize;
+
+    private final Map<Integer, Entitlement> entitlements = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationBus.subscribe(InvalidationBus.SUBSCRIPTIONS, key -> refresh(Integer.parseInt(key)), this::reloadAll);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadEntitlements() {
+        long start = System.currentTimeMillis();
+        long afterId = 0;
+        List<Object[]> page;
+        do {
+            page = subscriptionRepository.findEntitlementPage(afterId, PageRequest.of(0, pageSize));
+            for (Object[] row : page) {
+                afterId = (Long) row[0];
+                // putIfAbsent: an event that raced with the load is newer than this row.
+                entitlements.putIfAbsent((Integer) row[1], new Entitlement((String) row[2], (Instant) row[3]));
+            }
+        } while (page.size() == pageSize);
+        loaded = true;
+        log.info("Loaded {} subscription entitlements in {} ms", entitlements.size(), System.currentTimeMillis() - start);
+    }
+
+    @EventListener
+    public void onSubscriptionChanged(SubscriptionChangedEvent event) {
+        entitlements.put(event.userId(), new Entitlement(event.status(), event.expirationDate()));
+    }
+
+    @Override
+    public String getStatus(int userId) {
+        Entitlement entitlement = entitlements.get(userId);
+        if (entitlement == null && !loaded) {
+            entitlement = loadOne(userId);
+        }
+        if (entitlement == null || entitlement.status() == null) {
+            return NO_SUBSCRIPTION;
+        }
+        if ("ACTIVE".equals(entitlement.status()) && entitlement.expirationDate() != null
+                && Instant.now().isAfter(entitlement.expirationDate())) {
+            return "EXPIRED";
+        }
+        return entitlement.status();
+    }
+
+    private void refresh(int userId) {
+        Optional<UserSubscription> subscription = subscriptionRepository.findByUserUserId(userId);
+        if (subscription.isEmpty()) {
+            entitlements.remove(userId);
+        } else {
+            entitlements.put(userId, new Entitlement(subscription.get().getStatus(), subscription.get().getExpirationDate()));
+        }
+    }
+
+    private synchronized void reloadAll() {
+        // Lookups fall back to loadOne until the reload finishes.
+        loaded = false;
+        entitlements.clear();
+        loadEntitlements();
+    }
+
+    private Entitlement loadOne(int userId) {
+        Optional<UserSubscription> subscription = subscriptionRepository.findByUserUserId(userId);
+        if (subscription.isEmpty()) return null;
+        Entitlement entitlement = new Entitlement(subscription.get().getStatus(), subscription.get().getExpirationDate());
+        Entitlement existing = entitlements.putIfAbsent(userId, entitlement);
+        return existing != null ? existing : entitlement;
+    }
+
+    private record Entitlement(String status, Instant expirationDate) {
+    }
+}
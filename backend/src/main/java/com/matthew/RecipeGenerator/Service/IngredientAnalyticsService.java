@@ -0,0 +1,10 @@
+package com.matthew.RecipeGenerator.Service;
+
+import java.util.List;
+import java.util.Map;
+
+public interface IngredientAnalyticsService {
+    void recordRequest(List<String> ingredients);
+    List<Map.Entry<String, Long>> topIngredientSets(int k);
+    List<Map.Entry<String, Long>> topIngredients(int k);
+}
@@ -0,0 +1,93 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Util.IngredientKeys;
+import com.matthew.RecipeGenerator.Util.LossyRingBuffer;
+import com.matthew.RecipeGenerator.Util.SlidingWindowTopK;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The request path only drops the raw ingredient list into a lossy ring buffer; a background thread canonicalizes
+ * and counts it. Under bursts beyond the buffer's capacity some requests go uncounted, which the top-k tolerates.
+ */
+@Service
+public class IngredientAnalyticsServiceImpl implements IngredientAnalyticsService {
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 1 << 12;
+    private static final long DRAIN_INTERVAL_MILLIS = 100;
+
+    private final SlidingWindowTopK ingredientSets;
+    private final SlidingWindowTopK ingredients;
+    private final LossyRingBuffer<List<String>> pending;
+    private final ScheduledExecutorService drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ingredient-analytics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IngredientAnalyticsServiceImpl(@Value("${analytics.window.buckets:24}") int buckets,
+                                          @Value("${analytics.top.capacity:100}") int capacity,
+                                          @Value("${analytics.buffer.capacity:8192}") int bufferCapacity) {
+        this.ingredientSets = new SlidingWindowTopK(buckets, capacity, SKETCH_DEPTH, SKETCH_WIDTH);
+        this.ingredients = new SlidingWindowTopK(buckets, capacity, SKETCH_DEPTH, SKETCH_WIDTH);
+        this.pending = new LossyRingBuffer<>(bufferCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        drainer.scheduleWithFixedDelay(this::drain, DRAIN_INTERVAL_MILLIS, DRAIN_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        drainer.shutdownNow();
+    }
+
+    @Override
+    public void recordRequest(List<String> requested) {
+        pending.offer(requested);
+    }
+
+    @Override
+    public List<Map.Entry<String, Long>> topIngredientSets(int k) {
+        drain();
+        return ingredientSets.top(k);
+    }
+
+    @Override
+    public List<Map.Entry<String, Long>> topIngredients(int k) {
+        drain();
+        return ingredients.top(k);
+    }
+
+    @Scheduled(fixedRateString = "${analytics.window.bucket-duration-ms:3600000}",
+            initialDelayString = "${analytics.window.bucket-duration-ms:3600000}")
+    public void rotateWindow() {
+        ingredientSets.rotate();
+        ingredients.rotate();
+    }
+
+    // The buffer allows a single consumer at a time.
+    synchronized void drain() {
+        pending.drainTo(this::record);
+    }
+
+    void record(List<String> requested) {
+        String[] keys = IngredientKeys.canonicalIngredients(requested);
+        if (keys.length == 0) return;
+        ingredientSets.record(String.join(",", keys));
+        for (String ingredient : keys) {
+            ingredients.record(ingredient);
+        }
+    }
+}
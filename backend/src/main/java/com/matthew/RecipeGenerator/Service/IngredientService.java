@@ -1,13 +1,19 @@
 package com.matthew.RecipeGenerator.Service;
 
 import com.matthew.RecipeGenerator.Model.Ingredient;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
 
 public interface IngredientService {
 
     List<Ingredient> getAllIngredients();
+    Page<Ingredient> getIngredients(Pageable pageable);
+    void exportIngredients(OutputStream out) throws IOException;
     Ingredient getIngredientById(int id);
     Optional<Ingredient> getIngredientByName(String name);
     Ingredient addIngredient(Ingredient ingredient);
@@ -1,12 +1,25 @@
 package com.matthew.RecipeGenerator.Service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.matthew.RecipeGenerator.Model.Ingredient;
 import com.matthew.RecipeGenerator.Repo.IngredientRepo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class IngredientServiceImpl implements IngredientService {
@@ -14,11 +27,44 @@ public class IngredientServiceImpl implements IngredientService {
     @Autowired
     IngredientRepo ingredientRepo;
 
+    @Autowired
+    IngredientSuggestionService ingredientSuggestionService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
     @Override
     public List<Ingredient> getAllIngredients() {
         return ingredientRepo.findAll();
     }
 
+    @Override
+    public Page<Ingredient> getIngredients(Pageable pageable) {
+        return ingredientRepo.findAll(pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportIngredients(OutputStream out) throws IOException {
+        // Rows come from a server-side cursor and are detached once written, so memory stays flat.
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (Stream<Ingredient> ingredients = ingredientRepo.streamAllOrderById();
+             JsonGenerator generator = objectMapper.createGenerator(out)) {
+            // NDJSON: every record, the last one included, ends with a newline.
+            generator.setRootValueSeparator(null);
+            Iterator<Ingredient> iterator = ingredients.iterator();
+            while (iterator.hasNext()) {
+                Ingredient ingredient = iterator.next();
+                writer.writeValue(generator, ingredient);
+                generator.writeRaw('\n');
+                entityManager.detach(ingredient);
+            }
+        }
+    }
+
     @Override
     public Ingredient getIngredientById(int id) {
         return ingredientRepo.findById(id).orElse(null);
@@ -32,13 +78,18 @@ public class IngredientServiceImpl implements IngredientService {
     @Override
     public Ingredient addIngredient(Ingredient ingredient) {
         Optional<Ingredient> existingIngredient = ingredientRepo.findByName(ingredient.getName());
-        return existingIngredient.orElseGet(() -> ingredientRepo.save(ingredient));
+        return existingIngredient.orElseGet(() -> {
+            Ingredient saved = ingredientRepo.save(ingredient);
+            ingredientSuggestionService.onIngredientSaved(saved);
+            return saved;
+        });
     }
 
     @Override
     public boolean removeIngredient(int id) {
         if (ingredientRepo.existsById(id)) {
             ingredientRepo.deleteById(id);
+            ingredientSuggestionService.onIngredientRemoved(id);
             return true;
         }
         return false;
@@ -51,6 +102,8 @@ public class IngredientServiceImpl implements IngredientService {
 
         existingIngredient.setName(updatedIngredient.getName());
         existingIngredient.setCategory(updatedIngredient.getCategory());
-        return ingredientRepo.save(existingIngredient);
+        Ingredient saved = ingredientRepo.save(existingIngredient);
+        ingredientSuggestionService.onIngredientSaved(saved);
+        return saved;
     }
 }
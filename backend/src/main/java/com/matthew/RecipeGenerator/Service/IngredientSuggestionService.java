@@ -0,0 +1,19 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Dto.IngredientSuggestion;
+import com.matthew.RecipeGenerator.Model.Ingredient;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface IngredientSuggestionService {
+    List<IngredientSuggestion> suggest(String prefix, int limit);
+    void onIngredientSaved(Ingredient ingredient);
+    void onIngredientRemoved(int ingredientId);
+    void recordUsage(Ingredient ingredient);
+
+    /**
+     * Ids of the ingredients whose normalized name equals one of {@code names}, answered from the in-memory index.
+     */
+    List<Integer> findIdsByNames(Collection<String> names);
+}
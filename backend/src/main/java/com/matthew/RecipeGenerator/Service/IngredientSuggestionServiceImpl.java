@@ -0,0 +1,240 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Dto.IngredientSuggestion;
+import com.matthew.RecipeGenerator.Event.InvalidationBus;
+import com.matthew.RecipeGenerator.Model.Ingredient;
+import com.matthew.RecipeGenerator.Repo.IngredientRepo;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Autocomplete over ingredient names. Normalized names live in a concurrent sorted map, so a prefix lookup is a
+ * range scan of exactly the matching keys, ranked by how many recipes use each ingredient. Ingredient edits are
+ * broadcast on the {@link InvalidationBus} so other nodes re-read the ingredient.
+ */
+@Service
+@Slf4j
+public class IngredientSuggestionServiceImpl implements IngredientSuggestionService {
+
+    private static final Comparator<IngredientSuggestion> BY_POPULARITY = Comparator
+            .comparingLong(IngredientSuggestion::getPopularity)
+            .thenComparing(IngredientSuggestion::getName, Comparator.reverseOrder());
+
+    // One- and two-character prefixes match a large slice of the catalog, so their rankings are memoized.
+    private static final int SHORT_PREFIX_LENGTH = 2;
+    private static final int SHORT_PREFIX_RESULTS = 50;
+    private static final long SHORT_PREFIX_TTL_MILLIS = 5000;
+    private static final int MAX_SHORT_PREFIXES = 10_000;
+
+    @Autowired
+    private IngredientRepo ingredientRepo;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    // Keyed by normalized name + NUL + id: ingredients whose names only differ in case ("Salt", "salt") are separate
+    // rows and must not overwrite each other, yet still sort next to each other for prefix scans.
+    private final ConcurrentSkipListMap<String, Entry> entriesByKey = new ConcurrentSkipListMap<>();
+    private final Map<Integer, String> keysById = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+    // Bumped on every add, rename or removal; memoized rankings from an older version are discarded.
+    private final AtomicLong version = new AtomicLong();
+    private final Map<String, RankedPrefix> shortPrefixes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationBus.subscribe(InvalidationBus.INGREDIENTS, key -> refresh(Integer.parseInt(key)), this::reset);
+    }
+
+    @Override
+    public List<IngredientSuggestion> suggest(String prefix, int limit) {
+        ensureLoaded();
+        String key = normalize(prefix);
+        if (key.length() > SHORT_PREFIX_LENGTH || limit > SHORT_PREFIX_RESULTS) {
+            return rank(key, limit);
+        }
+
+        long now = System.currentTimeMillis();
+        long currentVersion = version.get();
+        RankedPrefix ranked = shortPrefixes.get(key);
+        if (ranked == null || ranked.version() != currentVersion || ranked.expiresAtMillis() <= now) {
+            if (shortPrefixes.size() >= MAX_SHORT_PREFIXES) shortPrefixes.clear();
+            ranked = new RankedPrefix(List.copyOf(rank(key, SHORT_PREFIX_RESULTS)), currentVersion, now + SHORT_PREFIX_TTL_MILLIS);
+            shortPrefixes.put(key, ranked);
+        }
+        List<IngredientSuggestion> suggestions = ranked.suggestions();
+        return suggestions.subList(0, Math.min(limit, suggestions.size()));
+    }
+
+    private List<IngredientSuggestion> rank(String key, int limit) {
+        ConcurrentNavigableMap<String, Entry> range = key.isEmpty()
+                ? entriesByKey
+                : entriesByKey.subMap(key, true, key + Character.MAX_VALUE, false);
+
+        // Rows with the same normalized name are adjacent; each group is offered once, as its most used row with
+        // the group's combined popularity.
+        PriorityQueue<IngredientSuggestion> top = new PriorityQueue<>(BY_POPULARITY);
+        String groupName = null;
+        Entry best = null;
+        long bestPopularity = -1;
+        long groupPopularity = 0;
+        for (Entry entry : range.values()) {
+            if (!entry.normalizedName.equals(groupName)) {
+                offer(top, best, groupPopularity, limit);
+                groupName = entry.normalizedName;
+                best = null;
+                bestPopularity = -1;
+                groupPopularity = 0;
+            }
+            long popularity = entry.popularity.sum();
+            groupPopularity += popularity;
+            if (popularity > bestPopularity) {
+                best = entry;
+                bestPopularity = popularity;
+            }
+        }
+        offer(top, best, groupPopularity, limit);
+
+        List<IngredientSuggestion> suggestions = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            suggestions.add(top.poll());
+        }
+        Collections.reverse(suggestions);
+        return suggestions;
+    }
+
+    @Override
+    public List<Integer> findIdsByNames(Collection<String> names) {
+        ensureLoaded();
+        List<Integer> ids = new ArrayList<>();
+        for (String name : names) {
+            String key = normalize(name);
+            if (key.isEmpty()) continue;
+            // Every row with exactly this normalized name; ids are digits, so they all sort below NUL + 1.
+            ids.addAll(entriesByKey.subMap(key + '\u0000', true, key + '\u0001', false).values().stream()
+                    .map(entry -> entry.id)
+                    .toList());
+        }
+        return ids;
+    }
+
+    @Override
+    public void onIngredientSaved(Ingredient ingredient) {
+        if (ingredient.getId() != null) {
+            invalidationBus.publish(InvalidationBus.INGREDIENTS, Integer.toString(ingredient.getId()));
+        }
+        apply(ingredient);
+    }
+
+    @Override
+    public void onIngredientRemoved(int ingredientId) {
+        invalidationBus.publish(InvalidationBus.INGREDIENTS, Integer.toString(ingredientId));
+        remove(ingredientId);
+    }
+
+    private static void offer(PriorityQueue<IngredientSuggestion> top, Entry best, long popularity, int limit) {
+        if (best == null) return;
+        top.offer(new IngredientSuggestion(best.id, best.name, popularity));
+        if (top.size() > limit) top.poll();
+    }
+
+    private void apply(Ingredient ingredient) {
+        if (!loaded || ingredient.getId() == null || ingredient.getName() == null) return;
+        Entry entry = new Entry(ingredient.getId(), ingredient.getName());
+        String previousKey = keysById.put(entry.id, entry.key);
+
+        Entry previous = previousKey != null ? entriesByKey.get(previousKey) : null;
+        if (previousKey != null && !previousKey.equals(entry.key)) {
+            entriesByKey.remove(previousKey);
+        }
+        if (previous != null) entry.popularity.add(previous.popularity.sum());
+        entriesByKey.put(entry.key, entry);
+        version.incrementAndGet();
+    }
+
+    private void remove(int ingredientId) {
+        String key = keysById.remove(ingredientId);
+        if (key != null) entriesByKey.remove(key);
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void recordUsage(Ingredient ingredient) {
+        if (!loaded || ingredient.getId() == null || ingredient.getName() == null) return;
+        Entry entry = entry(ingredient.getId());
+        if (entry == null) {
+            apply(ingredient);
+            entry = entry(ingredient.getId());
+        }
+        if (entry != null) entry.popularity.increment();
+    }
+
+    private Entry entry(int ingredientId) {
+        String key = keysById.get(ingredientId);
+        return key != null ? entriesByKey.get(key) : null;
+    }
+
+    private void refresh(int ingredientId) {
+        if (!loaded) return;
+        ingredientRepo.findById(ingredientId).ifPresentOrElse(this::apply, () -> remove(ingredientId));
+    }
+
+    private synchronized void reset() {
+        // Rebuilt from the database on the next lookup.
+        loaded = false;
+        entriesByKey.clear();
+        keysById.clear();
+        version.incrementAndGet();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+            long start = System.nanoTime();
+            for (Object[] row : ingredientRepo.findNamesWithUsageCount()) {
+                Entry entry = new Entry((Integer) row[0], (String) row[1]);
+                entry.popularity.add((Long) row[2]);
+                entriesByKey.put(entry.key, entry);
+                keysById.put(entry.id, entry.key);
+            }
+            loaded = true;
+            log.info("Built ingredient suggestion index with {} entries in {} ms",
+                    entriesByKey.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    static String normalize(String value) {
+        if (value == null) return "";
+        String stripped = Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return stripped.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    private record RankedPrefix(List<IngredientSuggestion> suggestions, long version, long expiresAtMillis) {
+    }
+
+    private static final class Entry {
+        private final Integer id;
+        private final String name;
+        private final String normalizedName;
+        private final String key;
+        private final LongAdder popularity = new LongAdder();
+
+        private Entry(Integer id, String name) {
+            this.id = id;
+            this.name = name;
+            this.normalizedName = normalize(name);
+            this.key = normalizedName + '\u0000' + id;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.matthew.RecipeGenerator.Service;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.matthew.RecipeGenerator.Dto.AiGeneration;
 import com.matthew.RecipeGenerator.Model.Ingredient;
 import com.matthew.RecipeGenerator.Model.Recipe;
 import com.matthew.RecipeGenerator.Model.User;
@@ -10,5 +11,10 @@ import java.util.Set;
 
 public interface OpenAIService {
     JsonNode generateRecipe(String ingredients);
+
+    /**
+     * Like {@link #generateRecipe(String)}, but also returns the token usage OpenAI reports for the call.
+     */
+    AiGeneration generate(String ingredients);
     List<Recipe> parseRecipes(JsonNode aiResponse);
 }
\ No newline at end of file
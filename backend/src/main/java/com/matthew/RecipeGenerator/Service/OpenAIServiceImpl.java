@@ -3,6 +3,7 @@ package com.matthew.RecipeGenerator.Service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matthew.RecipeGenerator.Dto.AiGeneration;
 import com.matthew.RecipeGenerator.Model.Ingredient;
 import com.matthew.RecipeGenerator.Model.Recipe;
 import com.matthew.RecipeGenerator.Model.RecipeIngredient;
@@ -35,6 +36,11 @@ public class OpenAIServiceImpl implements OpenAIService {
     }
 
     public JsonNode generateRecipe(String ingredients) {
+        return generate(ingredients).recipes();
+    }
+
+    @Override
+    public AiGeneration generate(String ingredients) {
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(apiKey);
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -61,8 +67,10 @@ public class OpenAIServiceImpl implements OpenAIService {
 
         String content = (String) ((Map)((Map)((List) response.getBody().get("choices")).get(0)).get("message")).get("content");
         System.out.println(content);
+        Map usage = (Map) response.getBody().get("usage");
+        long totalTokens = usage != null && usage.get("total_tokens") instanceof Number tokens ? tokens.longValue() : 0;
         try {
-            return new ObjectMapper().readTree(content);
+            return new AiGeneration(new ObjectMapper().readTree(content), totalTokens);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Invalid JSON from AI");
         }
@@ -0,0 +1,18 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Dto.RecipeMatch;
+import com.matthew.RecipeGenerator.Model.Recipe;
+import com.matthew.RecipeGenerator.Model.User;
+
+import java.util.List;
+
+public interface PantryMatchService {
+    List<RecipeMatch> matchRecipes(User user, List<String> have, int limit);
+    void onRecipeSaved(User user, Recipe recipe);
+    void onRecipeDeleted(User user, int recipeId);
+
+    /**
+     * Ingredients were added to or removed from one of the user's recipes outside a full recipe save.
+     */
+    void onRecipeIngredientsChanged(int userId);
+}
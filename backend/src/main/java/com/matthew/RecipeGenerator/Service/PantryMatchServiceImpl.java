@@ -0,0 +1,165 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Dto.RecipeMatch;
+import com.matthew.RecipeGenerator.Event.InvalidationBus;
+import com.matthew.RecipeGenerator.Model.Recipe;
+import com.matthew.RecipeGenerator.Model.RecipeIngredient;
+import com.matthew.RecipeGenerator.Model.User;
+import com.matthew.RecipeGenerator.Repo.RecipeIngredientRepo;
+import com.matthew.RecipeGenerator.Util.IngredientBitmapIndex;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Service
+public class PantryMatchServiceImpl implements PantryMatchService {
+
+    private static final Comparator<RecipeMatch> RANKING = Comparator
+            .comparingInt(RecipeMatch::getMissingCount).reversed()
+            .thenComparingDouble(RecipeMatch::getCoverage)
+            .thenComparingInt(RecipeMatch::getRecipeId);
+
+    @Autowired
+    private RecipeIngredientRepo recipeIngredientRepo;
+
+    @Autowired
+    private IngredientSuggestionService ingredientSuggestionService;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    private final Map<Integer, IngredientBitmapIndex> indexes;
+    // Bumped (per stripe of user ids) whenever a user's recipes change, so a build that raced a change isn't cached.
+    private final AtomicLongArray generations = new AtomicLongArray(1024);
+
+    public PantryMatchServiceImpl(@Value("${pantry.index.max-users:10000}") int maxIndexedUsers) {
+        this.indexes = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, IngredientBitmapIndex> eldest) {
+                return size() > maxIndexedUsers;
+            }
+        });
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        // Another node changed this user's recipes; rebuild their index on next use.
+        invalidationBus.subscribe(InvalidationBus.RECIPES, key -> invalidate(Integer.parseInt(key)), this::invalidateAll);
+    }
+
+    @Override
+    public List<RecipeMatch> matchRecipes(User user, List<String> have, int limit) {
+        IngredientBitmapIndex index = getOrBuildIndex(user.getUserId());
+
+        // Resolved against the suggestion index rather than the table, which has no index on lower(name).
+        List<Integer> haveIds = ingredientSuggestionService.findIdsByNames(new HashSet<>(have));
+        long[] haveBits = index.toBits(haveIds);
+
+        // Min-heap on ranking keeps only the best `limit` matches.
+        PriorityQueue<RecipeMatch> top = new PriorityQueue<>(RANKING);
+        index.score(haveBits, (recipeId, counts) -> {
+            int matched = counts[0];
+            int required = counts[1];
+            double coverage = required == 0 ? 0 : (double) matched / required;
+            top.offer(new RecipeMatch(recipeId, matched, required - matched, coverage));
+            if (top.size() > limit) top.poll();
+        });
+
+        List<RecipeMatch> result = new ArrayList<>(top);
+        result.sort(RANKING.reversed());
+        return result;
+    }
+
+    @Override
+    public void onRecipeSaved(User user, Recipe recipe) {
+        if (recipe.getId() == null) return;
+        int userId = user.getUserId();
+        int recipeId = recipe.getId();
+        List<Integer> ingredientIds = new ArrayList<>();
+        if (recipe.getRecipeIngredients() != null) {
+            for (RecipeIngredient recipeIngredient : recipe.getRecipeIngredients()) {
+                if (recipeIngredient.getIngredient() != null) ingredientIds.add(recipeIngredient.getIngredient().getId());
+            }
+        }
+        afterCommit(() -> {
+            bumpGeneration(userId);
+            IngredientBitmapIndex index = indexes.get(userId);
+            if (index != null) index.put(recipeId, ingredientIds);
+        });
+        invalidationBus.publish(InvalidationBus.RECIPES, Integer.toString(userId));
+    }
+
+    @Override
+    public void onRecipeDeleted(User user, int recipeId) {
+        int userId = user.getUserId();
+        afterCommit(() -> {
+            bumpGeneration(userId);
+            IngredientBitmapIndex index = indexes.get(userId);
+            if (index != null) index.remove(recipeId);
+        });
+        invalidationBus.publish(InvalidationBus.RECIPES, Integer.toString(userId));
+    }
+
+    @Override
+    public void onRecipeIngredientsChanged(int userId) {
+        afterCommit(() -> invalidate(userId));
+        invalidationBus.publish(InvalidationBus.RECIPES, Integer.toString(userId));
+    }
+
+    private void invalidate(int userId) {
+        bumpGeneration(userId);
+        indexes.remove(userId);
+    }
+
+    private void invalidateAll() {
+        for (int i = 0; i < generations.length(); i++) {
+            generations.incrementAndGet(i);
+        }
+        indexes.clear();
+    }
+
+    private IngredientBitmapIndex getOrBuildIndex(int userId) {
+        IngredientBitmapIndex index = indexes.get(userId);
+        if (index != null) return index;
+
+        // A change committed while the query runs bumps the generation; the index then serves this call but
+        // isn't cached, since it may predate the change.
+        long generation = generations.get(stripe(userId));
+        IngredientBitmapIndex built = new IngredientBitmapIndex();
+        for (Object[] row : recipeIngredientRepo.findRecipeIngredientIdsByUserId(userId)) {
+            built.add((Integer) row[0], (Integer) row[1]);
+        }
+        synchronized (indexes) {
+            if (generations.get(stripe(userId)) != generation) return built;
+            IngredientBitmapIndex existing = indexes.putIfAbsent(userId, built);
+            return existing != null ? existing : built;
+        }
+    }
+
+    private void bumpGeneration(int userId) {
+        generations.incrementAndGet(stripe(userId));
+    }
+
+    private int stripe(int userId) {
+        return Math.floorMod(userId, generations.length());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
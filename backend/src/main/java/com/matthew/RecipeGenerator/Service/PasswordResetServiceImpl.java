@@ -5,12 +5,12 @@ import com.matthew.RecipeGenerator.Model.PasswordResetToken;
 import com.matthew.RecipeGenerator.Model.User;
 import com.matthew.RecipeGenerator.Repo.PasswordResetTokenRepo;
 import com.matthew.RecipeGenerator.Repo.UserRepo;
+import com.matthew.RecipeGenerator.Security.PasswordHasher;
+import com.matthew.RecipeGenerator.Security.PrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -24,18 +24,22 @@ public class PasswordResetServiceImpl implements PasswordResetService {
     private UserRepo userRepo;
 
     @Autowired
-    private JavaMailSender mailSender;
+    private EmailOutboxService emailOutboxService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
 
     @Autowired
     private PasswordResetTokenRepo tokenRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     @Value("${backend.url}")
     private String backendUrl;
 
     @Override
+    @Transactional
     public void sendResetEmail(User user) {
         String token = generateRandom6CharToken();
         PasswordResetToken resetToken = new PasswordResetToken();
@@ -47,12 +51,8 @@ public class PasswordResetServiceImpl implements PasswordResetService {
 
         String resetUrl = "http://" + backendUrl + "/api/auth/reset-password?token=" + token;
 
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
-        mailMessage.setTo(user.getEmail());
-        mailMessage.setSubject("Password Reset Request");
-        mailMessage.setText("Your code is: " + token + "\n\n" + "Do not share this code with anyone.");
-
-        mailSender.send(mailMessage);
+        emailOutboxService.enqueue(user.getEmail(), "Password Reset Request",
+                "Your code is: " + token + "\n\n" + "Do not share this code with anyone.");
     }
 
     @Override
@@ -85,8 +85,9 @@ public class PasswordResetServiceImpl implements PasswordResetService {
         }
 
         User user = resetToken.getUser();
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHasher.encode(newPassword));
         userRepo.save(user);
         tokenRepository.delete(resetToken);
+        principalCache.bumpSecurityVersion(user.getUserId());
     }
 }
\ No newline at end of file
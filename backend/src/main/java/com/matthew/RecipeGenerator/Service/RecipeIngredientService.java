@@ -1,7 +1,9 @@
 package com.matthew.RecipeGenerator.Service;
 
+import com.matthew.RecipeGenerator.Dto.ShoppingListItem;
 import com.matthew.RecipeGenerator.Dto.UpdateRecipeIngredient;
 import com.matthew.RecipeGenerator.Model.RecipeIngredient;
+import com.matthew.RecipeGenerator.Model.User;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,4 +15,10 @@ public interface RecipeIngredientService {
     List<RecipeIngredient> getRecipeIngredientsByRecipeId(int recipeId);
     boolean removeRecipeIngredient(int id);
     void updateRecipeIngredient(int id, UpdateRecipeIngredient updatedRecipeIngredient);
+    List<ShoppingListItem> getShoppingList(User user, List<Integer> recipeIds);
+
+    /**
+     * Fills in the normalized quantity of rows saved before normalization existed. Returns the number updated.
+     */
+    int backfillNormalizedQuantities();
 }
\ No newline at end of file
@@ -1,20 +1,50 @@
 package com.matthew.RecipeGenerator.Service;
 
+import com.matthew.RecipeGenerator.Dto.ShoppingListItem;
 import com.matthew.RecipeGenerator.Dto.UpdateRecipeIngredient;
 import com.matthew.RecipeGenerator.Model.RecipeIngredient;
+import com.matthew.RecipeGenerator.Model.User;
 import com.matthew.RecipeGenerator.Repo.RecipeIngredientRepo;
+import com.matthew.RecipeGenerator.Util.QuantityNormalizer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 @Service
+@Slf4j
 public class RecipeIngredientServiceImpl implements RecipeIngredientService {
 
     @Autowired
     private RecipeIngredientRepo recipeIngredientRepo;
 
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private PantryMatchService pantryMatchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${recipe-ingredients.backfill.page-size:500}")
+    private int backfillPageSize;
+
     @Override
     public List<RecipeIngredient> getAllRecipeIngredients() {
         return recipeIngredientRepo.findAll();
@@ -32,13 +62,17 @@ public class RecipeIngredientServiceImpl implements RecipeIngredientService {
 
     @Override
     public RecipeIngredient addRecipeIngredient(RecipeIngredient recipeIngredient) {
-        return recipeIngredientRepo.save(recipeIngredient);
+        RecipeIngredient saved = recipeIngredientRepo.save(recipeIngredient);
+        recipeIngredientRepo.findOwnerUserId(saved.getId()).ifPresent(pantryMatchService::onRecipeIngredientsChanged);
+        return saved;
     }
 
     @Override
     public boolean removeRecipeIngredient(int id) {
+        Optional<Integer> ownerUserId = recipeIngredientRepo.findOwnerUserId(id);
         if (recipeIngredientRepo.existsById(id)) {
             recipeIngredientRepo.deleteById(id);
+            ownerUserId.ifPresent(pantryMatchService::onRecipeIngredientsChanged);
             return true;
         }
         return false;
@@ -52,6 +86,60 @@ public class RecipeIngredientServiceImpl implements RecipeIngredientService {
         recipeIngredient.setQuantity(updatedRecipeIngredient.getQuantity());
         recipeIngredient.setUnit(updatedRecipeIngredient.getUnit());
 
+        QuantityNormalizer.NormalizedQuantity normalized = QuantityNormalizer.normalize(
+                updatedRecipeIngredient.getQuantity(), updatedRecipeIngredient.getUnit());
+        recipeIngredient.setQuantityValue(normalized.amount());
+        recipeIngredient.setCanonicalUnit(normalized.unit());
+
         recipeIngredientRepo.save(recipeIngredient);
     }
+
+    @Override
+    public List<ShoppingListItem> getShoppingList(User user, List<Integer> recipeIds) {
+        if (recipeIds == null || recipeIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return recipeIngredientRepo.aggregateShoppingList(user, recipeIds);
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        schedulerLockService.runExclusively("recipe-ingredient-backfill", Duration.ofHours(1), Duration.ZERO,
+                this::backfillNormalizedQuantities);
+    }
+
+    @Override
+    public int backfillNormalizedQuantities() {
+        int updated = 0;
+        int afterId = 0;
+        List<Object[]> page;
+        do {
+            page = recipeIngredientRepo.findUnnormalizedPage(afterId, PageRequest.of(0, backfillPageSize));
+            List<Object[]> updates = new ArrayList<>(page.size());
+            for (Object[] row : page) {
+                afterId = (Integer) row[0];
+                QuantityNormalizer.NormalizedQuantity normalized = QuantityNormalizer.normalize((String) row[1], (String) row[2]);
+                updates.add(new Object[]{normalized.amount(), normalized.unit(), afterId});
+            }
+            updated += updatePage(updates);
+        } while (page.size() == backfillPageSize);
+        if (updated > 0) {
+            log.info("Backfilled normalized quantities for {} recipe ingredients", updated);
+        }
+        return updated;
+    }
+
+    // One JDBC batch and one transaction per page; rows a concurrent writer normalized meanwhile are left alone.
+    private int updatePage(List<Object[]> updates) {
+        if (updates.isEmpty()) return 0;
+        int[] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(
+                "UPDATE recipe_ingredient SET quantity_value = ?, canonical_unit = ? WHERE id = ? AND canonical_unit IS NULL",
+                updates));
+        int updated = 0;
+        for (int count : counts) {
+            if (count > 0) updated += count;
+        }
+        return updated;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface RecipePregenerationService {
+    Optional<JsonNode> takePregenerated(List<String> ingredients);
+    void pregenerate();
+}
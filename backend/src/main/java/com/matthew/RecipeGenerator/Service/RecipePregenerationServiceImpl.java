@@ -0,0 +1,136 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matthew.RecipeGenerator.Dto.AiGeneration;
+import com.matthew.RecipeGenerator.Model.PregeneratedRecipe;
+import com.matthew.RecipeGenerator.Repo.PregeneratedRecipeRepo;
+import com.matthew.RecipeGenerator.Util.IngredientKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Fills a pool of AI responses for the most requested ingredient sets during off-peak hours. Pool entries are
+ * single use, so repeat requests still see fresh recipes once the pool for their set is drained.
+ */
+@Service
+@Slf4j
+public class RecipePregenerationServiceImpl implements RecipePregenerationService {
+
+    @Autowired
+    private PregeneratedRecipeRepo pregeneratedRecipeRepo;
+
+    @Autowired
+    private IngredientAnalyticsService ingredientAnalyticsService;
+
+    @Autowired
+    private OpenAIService openAIService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Value("${pregeneration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${pregeneration.top-sets:50}")
+    private int topSets;
+
+    @Value("${pregeneration.min-requests:3}")
+    private long minRequests;
+
+    @Value("${pregeneration.copies-per-set:2}")
+    private int copiesPerSet;
+
+    @Value("${pregeneration.token-budget:50000}")
+    private long tokenBudget;
+
+    // Worst-case cost of one call (prompt plus the 400-token completion cap). A call only starts while this much
+    // budget is left, and the reported usage is what gets charged, so the budget is a hard cap.
+    @Value("${pregeneration.tokens-per-generation:600}")
+    private long tokensPerGeneration;
+
+    @Value("${pregeneration.ttl-hours:72}")
+    private long ttlHours;
+
+    @Override
+    public Optional<JsonNode> takePregenerated(List<String> ingredients) {
+        String key = IngredientKeys.canonicalSet(ingredients);
+        Optional<PregeneratedRecipe> pooled = pregeneratedRecipeRepo.takeOldest(key, freshnessCutoff());
+        if (pooled.isEmpty()) return Optional.empty();
+
+        try {
+            return Optional.of(objectMapper.readTree(pooled.get().getAiResponse()));
+        } catch (JsonProcessingException e) {
+            log.warn("Discarding unreadable pre-generated recipe {}", pooled.get().getId());
+            return Optional.empty();
+        }
+    }
+
+    @Scheduled(cron = "${pregeneration.cron:0 0 4 * * *}")
+    public void scheduledPregenerate() {
+        if (!enabled) return;
+        schedulerLockService.runExclusively("recipe-pregeneration", Duration.ofHours(2), Duration.ofMinutes(10), this::pregenerate);
+    }
+
+    @Override
+    public void pregenerate() {
+        if (!enabled) return;
+
+        int expired = pregeneratedRecipeRepo.deleteCreatedBefore(freshnessCutoff());
+        long remainingTokens = tokenBudget;
+        long worstCaseTokens = tokensPerGeneration;
+        int generated = 0;
+
+        // Known limitation: the analytics are in memory per node, so this ranks only the traffic the node holding
+        // the lock has seen. Behind a round-robin load balancer that is a fair 1/N sample, so the ranking holds, but
+        // counts (and min-requests, which compares against them) are per node rather than cluster-wide.
+        for (Map.Entry<String, Long> candidate : ingredientAnalyticsService.topIngredientSets(topSets)) {
+            if (candidate.getValue() < minRequests) break;
+            String key = candidate.getKey();
+            long missing = copiesPerSet - pregeneratedRecipeRepo.countByIngredientKeyAndCreatedAtAfter(key, freshnessCutoff());
+
+            for (long i = 0; i < missing; i++) {
+                if (remainingTokens < worstCaseTokens) {
+                    log.info("Pre-generation token budget exhausted after {} recipes", generated);
+                    return;
+                }
+                try {
+                    AiGeneration generation = openAIService.generate(key.replace(",", ", "));
+                    long used = generation.totalTokens() > 0 ? generation.totalTokens() : tokensPerGeneration;
+                    // A call costing more than the configured ceiling raises the reservation for the rest of the run.
+                    worstCaseTokens = Math.max(worstCaseTokens, used);
+                    remainingTokens -= used;
+                    PregeneratedRecipe recipe = new PregeneratedRecipe();
+                    recipe.setIngredientKey(key);
+                    recipe.setAiResponse(objectMapper.writeValueAsString(generation.recipes()));
+                    recipe.setCreatedAt(Instant.now());
+                    pregeneratedRecipeRepo.save(recipe);
+                    generated++;
+                } catch (Exception e) {
+                    // Usage is unknown for a failed call; charge the reservation.
+                    remainingTokens -= tokensPerGeneration;
+                    log.warn("Failed to pre-generate recipe for [{}]", key, e);
+                }
+            }
+        }
+        log.info("Pre-generated {} recipes using {} tokens, removed {} stale entries",
+                generated, tokenBudget - remainingTokens, expired);
+    }
+
+    private Instant freshnessCutoff() {
+        return Instant.now().minus(Duration.ofHours(ttlHours));
+    }
+}
@@ -7,6 +7,7 @@ import com.matthew.RecipeGenerator.Model.RecipeIngredient;
 import com.matthew.RecipeGenerator.Model.User;
 import com.matthew.RecipeGenerator.Repo.IngredientRepo;
 import com.matthew.RecipeGenerator.Repo.RecipeRepo;
+import com.matthew.RecipeGenerator.Util.QuantityNormalizer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,6 +25,12 @@ public class RecipeServiceImpl implements RecipeService {
     @Autowired
     IngredientRepo ingredientRepo;
 
+    @Autowired
+    PantryMatchService pantryMatchService;
+
+    @Autowired
+    IngredientSuggestionService ingredientSuggestionService;
+
     @Override
     public List<Recipe> getAllRecipes() {
         return recipeRepo.findAll();
@@ -66,6 +73,7 @@ public class RecipeServiceImpl implements RecipeService {
                                     newIngredient.setCategory("");
                                     return ingredientRepo.save(newIngredient);
                                 });
+                        ingredientSuggestionService.recordUsage(ingredient);
 
                         RecipeIngredient ri = new RecipeIngredient();
                         ri.setIngredient(ingredient);
@@ -73,6 +81,11 @@ public class RecipeServiceImpl implements RecipeService {
                         ri.setQuantity(ingredientNode.get("quantity").asText());
                         ri.setUnit(ingredientNode.get("unit").asText());
 
+                        QuantityNormalizer.NormalizedQuantity normalized =
+                                QuantityNormalizer.normalize(ri.getQuantity(), ri.getUnit());
+                        ri.setQuantityValue(normalized.amount());
+                        ri.setCanonicalUnit(normalized.unit());
+
                         recipeIngredients.add(ri);
                     }
                 }
@@ -80,6 +93,7 @@ public class RecipeServiceImpl implements RecipeService {
                 recipe.setUser(user);
                 recipes.add(recipe);
                 recipeRepo.save(recipe);
+                pantryMatchService.onRecipeSaved(user, recipe);
             }
         }
         return recipes;
@@ -99,7 +113,11 @@ public class RecipeServiceImpl implements RecipeService {
 
     @Override
     public Recipe addRecipe(Recipe recipe) {
-        return recipeRepo.save(recipe);
+        Recipe saved = recipeRepo.save(recipe);
+        if (saved.getUser() != null) {
+            pantryMatchService.onRecipeSaved(saved.getUser(), saved);
+        }
+        return saved;
     }
 
     @Override
@@ -107,6 +125,7 @@ public class RecipeServiceImpl implements RecipeService {
     public void deleteRecipe(User user, Integer id) {
         Recipe recipe = getRecipeById(user, id);
         recipeRepo.delete(recipe);
+        pantryMatchService.onRecipeDeleted(user, id);
     }
 
     @Override
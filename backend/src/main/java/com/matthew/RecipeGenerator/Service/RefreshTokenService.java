@@ -1,14 +1,26 @@
 package com.matthew.RecipeGenerator.Service;
 
-import com.matthew.RecipeGenerator.Model.RefreshToken;
+import com.matthew.RecipeGenerator.Dto.RotatedRefreshToken;
 import com.matthew.RecipeGenerator.Model.User;
 
 import java.util.Optional;
 
 public interface RefreshTokenService {
-    RefreshToken createRefreshToken(User user);
-    Optional<RefreshToken> findByToken(String token);
-    RefreshToken verifyExpiration(RefreshToken token);
+    /**
+     * Issues a new refresh token for the user, replacing any existing one. Returns the raw token; only its hash is stored.
+     */
+    String createRefreshToken(User user);
+
+    /**
+     * Atomically replaces a valid, unexpired token with a new one. Empty if the token is unknown, expired or was
+     * already rotated by a concurrent request.
+     */
+    Optional<RotatedRefreshToken> rotate(String token);
+
+    /**
+     * Deletes the token and returns the id of the user it belonged to.
+     */
+    Optional<Integer> revoke(String token);
+
     void deleteByUser(User user);
-    void deleteByToken(String token);
 }
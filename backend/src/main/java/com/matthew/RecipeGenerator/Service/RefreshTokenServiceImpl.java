@@ -1,53 +1,70 @@
 package com.matthew.RecipeGenerator.Service;
 
+import com.matthew.RecipeGenerator.Dto.RotatedRefreshToken;
 import com.matthew.RecipeGenerator.Model.RefreshToken;
 import com.matthew.RecipeGenerator.Model.User;
 import com.matthew.RecipeGenerator.Repo.RefreshTokenRepo;
-import com.matthew.RecipeGenerator.Repo.UserRepo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.HexFormat;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
 @Service
 public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    // Tokens issued before hashing were stored raw; they are UUIDs, which a 64-char hex hash can never be.
+    private static final Pattern LEGACY_TOKEN = Pattern.compile("[0-9a-fA-F]{8}(-[0-9a-fA-F]{4}){3}-[0-9a-fA-F]{12}");
+
     @Value("${jwt.refresh.expiration}")
     private Long refreshTokenExpiration;
 
     @Autowired
     private RefreshTokenRepo refreshTokenRepo;
 
-    @Autowired
-    private UserRepo userRepo;
-
     @Override
-    public RefreshToken createRefreshToken(User user) {
-        refreshTokenRepo.findByUser(user).ifPresent(refreshTokenRepo::delete);
+    @Transactional
+    public String createRefreshToken(User user) {
+        refreshTokenRepo.deleteByUser(user);
 
+        String token = UUID.randomUUID().toString();
         RefreshToken refreshToken = new RefreshToken();
         refreshToken.setUser(user);
-        refreshToken.setToken(UUID.randomUUID().toString());
+        refreshToken.setTokenHash(hash(token));
         refreshToken.setExpiryDate(Instant.now().plusMillis(refreshTokenExpiration));
+        refreshTokenRepo.save(refreshToken);
 
-        return refreshTokenRepo.save(refreshToken);
+        return token;
     }
 
     @Override
-    public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepo.findByToken(token);
+    @Transactional
+    public Optional<RotatedRefreshToken> rotate(String token) {
+        if (token == null) return Optional.empty();
+        String newToken = UUID.randomUUID().toString();
+        Instant expiryDate = Instant.now().plusMillis(refreshTokenExpiration);
+        Optional<Integer> userId = refreshTokenRepo.rotate(hash(token), hash(newToken), expiryDate);
+        if (userId.isEmpty() && isLegacy(token)) {
+            // A row still holding the raw token is matched once and rewritten with the new token's hash.
+            userId = refreshTokenRepo.rotate(token, hash(newToken), expiryDate);
+        }
+        return userId.map(id -> new RotatedRefreshToken(id, newToken));
     }
 
     @Override
-    public RefreshToken verifyExpiration(RefreshToken token) {
-        if (token.getExpiryDate().compareTo(Instant.now()) < 0) {
-            refreshTokenRepo.delete(token);
-            throw new RuntimeException("Refresh token was expired. Please make a new sign-in request");
-        }
-        return token;
+    @Transactional
+    public Optional<Integer> revoke(String token) {
+        if (token == null) return Optional.empty();
+        Optional<Integer> userId = refreshTokenRepo.deleteByTokenHash(hash(token));
+        return userId.isEmpty() && isLegacy(token) ? refreshTokenRepo.deleteByTokenHash(token) : userId;
     }
 
     @Override
@@ -56,9 +73,16 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
         refreshTokenRepo.deleteByUser(user);
     }
 
-    @Override
-    @Transactional
-    public void deleteByToken(String token) {
-        refreshTokenRepo.deleteByToken(token);
+    private static boolean isLegacy(String token) {
+        return LEGACY_TOKEN.matcher(token).matches();
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
-}
\ No newline at end of file
+}
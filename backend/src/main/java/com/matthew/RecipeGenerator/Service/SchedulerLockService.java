@@ -0,0 +1,13 @@
+package com.matthew.RecipeGenerator.Service;
+
+import java.time.Duration;
+
+public interface SchedulerLockService {
+    /**
+     * Runs the task only if this node wins the cluster-wide lease for {@code name}; other nodes skip it.
+     * {@code lease} bounds how long a crashed holder can block the job, and the lease is kept for at least
+     * {@code minHold} so nodes with slightly skewed clocks don't run the same interval again. Returns whether the
+     * task ran.
+     */
+    boolean runExclusively(String name, Duration lease, Duration minHold, Runnable task);
+}
@@ -0,0 +1,80 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Repo.SchedulerLockRepo;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Service
+public class SchedulerLockServiceImpl implements SchedulerLockService {
+
+    @Autowired
+    private SchedulerLockRepo schedulerLockRepo;
+
+    private final String nodeId = Optional.ofNullable(System.getenv("HOSTNAME")).orElse("node")
+            + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+    // Renews held leases while their task runs, so a job that outlives its lease isn't started again elsewhere.
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "scheduler-lock-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public boolean runExclusively(String name, Duration lease, Duration minHold, Runnable task) {
+        Instant start = Instant.now();
+        if (schedulerLockRepo.tryAcquire(name, nodeId, start, start.plus(lease)) == 0) {
+            log.debug("Skipping {}, another node holds the lock", name);
+            return false;
+        }
+        // Guarded so a renewal already in flight can't push the lease out again after it has been released.
+        AtomicBoolean running = new AtomicBoolean(true);
+        long renewEveryMillis = Math.max(1, lease.toMillis() / 3);
+        ScheduledFuture<?> renewal = heartbeat.scheduleAtFixedRate(() -> {
+            synchronized (running) {
+                if (running.get()) renew(name, lease);
+            }
+        }, renewEveryMillis, renewEveryMillis, TimeUnit.MILLISECONDS);
+        try {
+            task.run();
+        } finally {
+            synchronized (running) {
+                running.set(false);
+            }
+            renewal.cancel(false);
+            Instant holdUntil = start.plus(minHold);
+            Instant now = Instant.now();
+            schedulerLockRepo.release(name, nodeId, holdUntil.isAfter(now) ? holdUntil : now);
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+    }
+
+    private void renew(String name, Duration lease) {
+        try {
+            Instant now = Instant.now();
+            if (schedulerLockRepo.renew(name, nodeId, now, now.plus(lease)) == 0) {
+                log.warn("Lost the {} lease while its task is still running; another node may start it", name);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to renew the {} lease", name, e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.matthew.RecipeGenerator.Service;
+
+import java.time.Instant;
+
+public interface SubscriptionExpiryService {
+    /**
+     * Schedules the subscription to be marked EXPIRED at {@code expirationDate}, replacing any earlier schedule.
+     */
+    void schedule(long subscriptionId, int userId, Instant expirationDate);
+
+    void cancel(long subscriptionId);
+}
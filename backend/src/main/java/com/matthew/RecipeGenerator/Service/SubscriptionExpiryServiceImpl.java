@@ -0,0 +1,203 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Event.InvalidationBus;
+import com.matthew.RecipeGenerator.Event.SubscriptionChangedEvent;
+import com.matthew.RecipeGenerator.Model.UserSubscription;
+import com.matthew.RecipeGenerator.Repo.UserSubscriptionRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marks ACTIVE subscriptions EXPIRED when their expiration date passes, without polling the table. Upcoming
+ * expirations are loaded once at startup and then kept current from {@link SubscriptionChangedEvent}s (and, for
+ * changes made on other nodes, the {@link InvalidationBus}); a single
+ * thread sleeps until the next one is due and expires everything due at that moment in one UPDATE.
+ * <p>
+ * Rescheduling doesn't remove the old queue entry; entries whose deadline no longer matches
+ * {@code deadlines} are simply dropped when they come due.
+ */
+@Service
+@Slf4j
+public class SubscriptionExpiryServiceImpl implements SubscriptionExpiryService {
+
+    @Autowired
+    private UserSubscriptionRepo subscriptionRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Value("${subscriptions.expiry.page-size:1000}")
+    private int pageSize;
+
+    @Value("${subscriptions.expiry.batch-size:500}")
+    private int batchSize;
+
+    @Value("${subscriptions.expiry.grace-seconds:0}")
+    private long graceSeconds;
+
+    @Value("${subscriptions.expiry.retry-delay-ms:5000}")
+    private long retryDelayMillis;
+
+    private final DelayQueue<Expiry> queue = new DelayQueue<>();
+    // Subscription id -> the deadline currently in force; anything else in the queue is stale.
+    private final Map<Long, Long> deadlines = new ConcurrentHashMap<>();
+    private Thread worker;
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationBus.subscribe(InvalidationBus.SUBSCRIPTIONS, key -> refresh(Integer.parseInt(key)), () -> load(true));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        load(false);
+        worker = new Thread(this::run, "subscription-expiry");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void load(boolean overwrite) {
+        long start = System.currentTimeMillis();
+        long afterId = 0;
+        int loaded = 0;
+        List<Object[]> page;
+        do {
+            page = subscriptionRepository.findActiveExpiryPage(afterId, PageRequest.of(0, pageSize));
+            for (Object[] row : page) {
+                afterId = (Long) row[0];
+                // At startup, an event that raced with the load already scheduled a newer deadline.
+                if (overwrite || !deadlines.containsKey(afterId)) {
+                    schedule(afterId, (Integer) row[1], (Instant) row[2]);
+                    loaded++;
+                }
+            }
+        } while (page.size() == pageSize);
+        log.info("Scheduled {} subscription expirations in {} ms", loaded, System.currentTimeMillis() - start);
+    }
+
+    private void refresh(int userId) {
+        Optional<UserSubscription> subscription = subscriptionRepository.findByUserUserId(userId);
+        if (subscription.isEmpty()) return;
+        UserSubscription current = subscription.get();
+        if ("ACTIVE".equals(current.getStatus()) && current.getExpirationDate() != null) {
+            schedule(current.getId(), userId, current.getExpirationDate());
+        } else {
+            cancel(current.getId());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) worker.interrupt();
+    }
+
+    @EventListener
+    public void onSubscriptionChanged(SubscriptionChangedEvent event) {
+        if (event.subscriptionId() == null) return;
+        if ("ACTIVE".equals(event.status()) && event.expirationDate() != null) {
+            schedule(event.subscriptionId(), event.userId(), event.expirationDate());
+        } else {
+            cancel(event.subscriptionId());
+        }
+    }
+
+    @Override
+    public void schedule(long subscriptionId, int userId, Instant expirationDate) {
+        long deadline = expirationDate.toEpochMilli() + graceSeconds * 1000;
+        Long previous = deadlines.put(subscriptionId, deadline);
+        if (previous == null || previous != deadline) {
+            queue.add(new Expiry(subscriptionId, userId, deadline));
+        }
+    }
+
+    @Override
+    public void cancel(long subscriptionId) {
+        deadlines.remove(subscriptionId);
+    }
+
+    private void run() {
+        List<Expiry> due = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                due.add(queue.take());
+                queue.drainTo(due, batchSize - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            List<Expiry> claimed = new ArrayList<>(due.size());
+            for (Expiry expiry : due) {
+                // Drop superseded entries; claiming current ones means a reschedule during the UPDATE wins.
+                if (deadlines.remove(expiry.subscriptionId(), expiry.deadline())) {
+                    claimed.add(expiry);
+                }
+            }
+            due.clear();
+            if (claimed.isEmpty()) continue;
+
+            try {
+                expire(claimed);
+            } catch (Exception e) {
+                log.error("Failed to expire {} subscriptions, retrying", claimed.size(), e);
+                long retryAt = System.currentTimeMillis() + retryDelayMillis;
+                for (Expiry expiry : claimed) {
+                    if (deadlines.putIfAbsent(expiry.subscriptionId(), retryAt) == null) {
+                        queue.add(new Expiry(expiry.subscriptionId(), expiry.userId(), retryAt));
+                    }
+                }
+            }
+        }
+    }
+
+    private void expire(List<Expiry> claimed) {
+        List<Long> ids = claimed.stream().map(Expiry::subscriptionId).toList();
+        List<Object[]> expired = subscriptionRepository.expireDue(ids, Instant.now().minusSeconds(graceSeconds));
+        for (Object[] row : expired) {
+            eventPublisher.publishEvent(new SubscriptionChangedEvent(((Number) row[1]).intValue(),
+                    ((Number) row[0]).longValue(), "EXPIRED", toInstant(row[2])));
+        }
+        if (!expired.isEmpty()) {
+            log.info("Expired {} subscriptions", expired.size());
+        }
+    }
+
+    private static Instant toInstant(Object value) {
+        if (value instanceof Instant instant) return instant;
+        if (value instanceof Timestamp timestamp) return timestamp.toInstant();
+        if (value instanceof OffsetDateTime offsetDateTime) return offsetDateTime.toInstant();
+        return null;
+    }
+
+    private record Expiry(long subscriptionId, int userId, long deadline) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(deadline, ((Expiry) other).deadline);
+        }
+    }
+}
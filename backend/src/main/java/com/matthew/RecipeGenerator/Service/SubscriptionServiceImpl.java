@@ -3,9 +3,11 @@ package com.matthew.RecipeGenerator.Service;
 import com.matthew.RecipeGenerator.Dto.AppleLatestReceiptInfo;
 import com.matthew.RecipeGenerator.Dto.GoogleSubscription;
 import com.matthew.RecipeGenerator.Model.User;
+import com.matthew.RecipeGenerator.Event.SubscriptionChangedEvent;
 import com.matthew.RecipeGenerator.Model.UserSubscription;
 import com.matthew.RecipeGenerator.Repo.UserSubscriptionRepo;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
@@ -17,6 +19,9 @@ public class SubscriptionServiceImpl implements SubscriptionService {
     @Autowired
     private UserSubscriptionRepo subscriptionRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     public void syncAppleSubscription(User user, AppleLatestReceiptInfo receipt, String isInBillingRetryPeriod) {
         Instant purchaseDate = Instant.ofEpochMilli(Long.parseLong(receipt.getPurchaseDateMs()));
@@ -29,7 +34,8 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         Optional<UserSubscription> existing = subscriptionRepository.findByOriginalTransactionId(originalTransactionId);
         if (existing.isPresent()) {
             UserSubscription existingSubscription = existing.get();
-            if (existingSubscription.getUser() != null && !existingSubscription.getUser().equals(user)) {
+            // The principal is a detached snapshot (see PrincipalCache), so ownership is compared by id, not equals().
+            if (existingSubscription.getUser() != null && existingSubscription.getUser().getUserId() != user.getUserId()) {
                 throw new IllegalStateException("Original transaction ID already exists for another user");
             }
         }
@@ -53,6 +59,9 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         subscription.setLastVerifiedAt(Instant.now());
 
         subscriptionRepository.save(subscription);
+        if (subscription.getUser() != null) {
+            eventPublisher.publishEvent(SubscriptionChangedEvent.of(subscription));
+        }
     }
 
     @Override
@@ -77,5 +86,8 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         subscription.setLastVerifiedAt(Instant.now());
 
         subscriptionRepository.save(subscription);
+        if (subscription.getUser() != null) {
+            eventPublisher.publishEvent(SubscriptionChangedEvent.of(subscription));
+        }
     }
 }
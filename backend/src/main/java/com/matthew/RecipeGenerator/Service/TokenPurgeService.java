@@ -0,0 +1,9 @@
+package com.matthew.RecipeGenerator.Service;
+
+public interface TokenPurgeService {
+    /**
+     * Deletes expired refresh and password reset tokens and clears expired email verification tokens, in bounded
+     * batches. Returns the total number of rows purged.
+     */
+    int purgeExpiredTokens();
+}
@@ -0,0 +1,100 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Repo.PasswordResetTokenRepo;
+import com.matthew.RecipeGenerator.Repo.RefreshTokenRepo;
+import com.matthew.RecipeGenerator.Repo.UserRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.function.IntSupplier;
+
+/**
+ * The scheduled run takes a cluster-wide lock so only one node purges per interval. Each batch is also its own
+ * short transaction using {@code FOR UPDATE SKIP LOCKED}, so a manual run alongside it can't block on it.
+ */
+@Slf4j
+@Service
+public class TokenPurgeServiceImpl implements TokenPurgeService {
+
+    private final RefreshTokenRepo refreshTokenRepo;
+    private final PasswordResetTokenRepo passwordResetTokenRepo;
+    private final UserRepo userRepo;
+    private final SchedulerLockService schedulerLockService;
+
+    private final int batchSize;
+    private final int maxBatches;
+    private final long verificationTtlHours;
+
+    private final Counter refreshTokensPurged;
+    private final Counter passwordResetTokensPurged;
+    private final Counter verificationTokensPurged;
+
+    public TokenPurgeServiceImpl(RefreshTokenRepo refreshTokenRepo,
+                                 PasswordResetTokenRepo passwordResetTokenRepo,
+                                 UserRepo userRepo,
+                                 SchedulerLockService schedulerLockService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${token-purge.batch-size:1000}") int batchSize,
+                                 @Value("${token-purge.max-batches:100}") int maxBatches,
+                                 @Value("${auth.verification.ttl-hours:48}") long verificationTtlHours) {
+        this.refreshTokenRepo = refreshTokenRepo;
+        this.passwordResetTokenRepo = passwordResetTokenRepo;
+        this.userRepo = userRepo;
+        this.schedulerLockService = schedulerLockService;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.verificationTtlHours = verificationTtlHours;
+        this.refreshTokensPurged = purgeCounter(meterRegistry, "refresh");
+        this.passwordResetTokensPurged = purgeCounter(meterRegistry, "password_reset");
+        this.verificationTokensPurged = purgeCounter(meterRegistry, "email_verification");
+    }
+
+    @Scheduled(fixedDelayString = "${token-purge.interval-ms:3600000}", initialDelayString = "${token-purge.initial-delay-ms:300000}")
+    public void scheduledPurge() {
+        schedulerLockService.runExclusively("token-purge", Duration.ofMinutes(30), Duration.ofMinutes(1), this::purgeExpiredTokens);
+    }
+
+    @Override
+    public int purgeExpiredTokens() {
+        int refresh = purge(refreshTokensPurged,
+                () -> refreshTokenRepo.deleteExpiredBatch(Instant.now(), batchSize));
+        int passwordReset = purge(passwordResetTokensPurged,
+                () -> passwordResetTokenRepo.deleteExpiredBatch(LocalDateTime.now(), batchSize));
+        int verification = purge(verificationTokensPurged,
+                () -> {
+                    ZonedDateTime now = ZonedDateTime.now();
+                    return userRepo.clearExpiredVerificationTokens(now, now.minusHours(verificationTtlHours), batchSize);
+                });
+
+        int total = refresh + passwordReset + verification;
+        if (total > 0) {
+            log.info("Purged {} refresh, {} password reset and {} verification tokens", refresh, passwordReset, verification);
+        }
+        return total;
+    }
+
+    private int purge(Counter counter, IntSupplier batch) {
+        int total = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            int purged = batch.getAsInt();
+            counter.increment(purged);
+            total += purged;
+            if (purged < batchSize) break;
+        }
+        return total;
+    }
+
+    private static Counter purgeCounter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("auth.tokens.purged")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+}
@@ -1,4 +1,8 @@
 package com.matthew.RecipeGenerator.Service;
 
 public interface TransactionHistorySyncService {
+    /**
+     * Re-checks due iOS subscriptions against the App Store Server API. Returns the number of subscriptions updated.
+     */
+    int syncTransactionHistory();
 }
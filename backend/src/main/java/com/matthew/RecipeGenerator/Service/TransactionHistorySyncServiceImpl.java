@@ -1,30 +1,38 @@
 package com.matthew.RecipeGenerator.Service;
 
+import com.apple.itunes.storekit.client.APIException;
 import com.apple.itunes.storekit.client.AppStoreServerAPIClient;
 import com.apple.itunes.storekit.client.GetTransactionHistoryVersion;
 import com.apple.itunes.storekit.model.*;
-import com.apple.itunes.storekit.verification.SignedDataVerifier;
-import com.apple.itunes.storekit.verification.VerificationException;
+import com.matthew.RecipeGenerator.Event.SubscriptionChangedEvent;
 import com.matthew.RecipeGenerator.Model.UserSubscription;
 import com.matthew.RecipeGenerator.Repo.UserSubscriptionRepo;
-import jakarta.annotation.PostConstruct;
+import com.matthew.RecipeGenerator.Security.Apple.AppleSignedDataVerifier;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @Slf4j
 public class TransactionHistorySyncServiceImpl implements TransactionHistorySyncService {
 
+    private static final int RATE_LIMITED = 429;
+
     @Autowired
-    private SignedDataVerifier verifier;
+    private AppleSignedDataVerifier verifier;
 
     @Autowired
     private AppStoreServerAPIClient client;
@@ -32,58 +40,204 @@ public class TransactionHistorySyncServiceImpl implements TransactionHistorySync
     @Autowired
     private UserSubscriptionRepo subscriptionRepository;
 
-    @PostConstruct
-    public void startupSync() {
-        log.info("Performing startup sync with Apple Transaction History API...");
-        syncTransactionHistory();
-    }
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${apple.sync.page-size:500}")
+    private int pageSize;
+
+    @Value("${apple.sync.chunk-size:100}")
+    private int chunkSize;
+
+    @Value("${apple.sync.concurrency:4}")
+    private int concurrency;
+
+    @Value("${apple.sync.requests-per-second:10}")
+    private double requestsPerSecond;
+
+    @Value("${apple.sync.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${apple.sync.expiring-within-hours:48}")
+    private long expiringWithinHours;
+
+    @Value("${apple.sync.lapsed-within-days:7}")
+    private long lapsedWithinDays;
+
+    @Value("${apple.sync.stale-after-hours:24}")
+    private long staleAfterHours;
 
     @Scheduled(cron = "0 0 * * * *") // Runs every hour
     public void periodicSync() {
-        log.info("Performing periodic sync with Apple Transaction History API...");
-        syncTransactionHistory();
+        if (!verifier.isReady()) {
+            log.info("Skipping periodic sync, Apple warm-up has not finished");
+            return;
+        }
+        schedulerLockService.runExclusively("apple-transaction-sync", Duration.ofMinutes(50), Duration.ofMinutes(5), () -> {
+            log.info("Performing periodic sync with Apple Transaction History API...");
+            syncTransactionHistory();
+        });
     }
 
-    private void syncTransactionHistory() {
+    @Override
+    public int syncTransactionHistory() {
+        long start = System.currentTimeMillis();
+        List<Long> due;
         try {
-            List<UserSubscription> subscriptions = subscriptionRepository.findAll();
-
-            for (UserSubscription subscription : subscriptions) {
-                if (subscription.getPlatform() == null || !subscription.getPlatform().equals("ios")) {
-                    continue;
-                }
-                String originalTransactionId = subscription.getOriginalTransactionId();
-
-                TransactionHistoryRequest request = new TransactionHistoryRequest()
-                        .productTypes(List.of(TransactionHistoryRequest.ProductType.AUTO_RENEWABLE))
-                        .sort(TransactionHistoryRequest.Order.DESCENDING);
+            due = findDueSubscriptionIds();
+        } catch (Exception e) {
+            log.error("Error during transaction history sync", e);
+            return 0;
+        }
+        if (due.isEmpty()) {
+            log.info("No subscriptions due for transaction history sync");
+            return 0;
+        }
 
-                HistoryResponse response = client.getTransactionHistory(originalTransactionId, null, request, GetTransactionHistoryVersion.V2);
-                Optional.ofNullable(response.getSignedTransactions())
-                        .filter(signedResponses -> !signedResponses.isEmpty())
-                        .ifPresentOrElse(signedResponses -> {
-                            JWSTransactionDecodedPayload latestTransaction = null;
-                            try {
-                                latestTransaction = verifier.verifyAndDecodeTransaction(signedResponses.get(0));
-                            } catch (VerificationException e) {
-                                throw new RuntimeException(e);
-                            }
-                            processTransaction(latestTransaction);
-                            }, () -> log.warn("No signed transactions found for original transaction ID: {}", originalTransactionId));
+        RateGate rateGate = new RateGate(requestsPerSecond);
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "apple-sync-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        int updated = 0;
+        try {
+            for (int from = 0; from < due.size(); from += chunkSize) {
+                updated += syncChunk(due.subList(from, Math.min(from + chunkSize, due.size())), executor, rateGate);
             }
         } catch (Exception e) {
             log.error("Error during transaction history sync", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("Transaction history sync updated {} of {} due subscriptions in {} ms",
+                updated, due.size(), System.currentTimeMillis() - start);
+        return updated;
+    }
+
+    /**
+     * Collects ids of due subscriptions page by page, soonest expiration first so the subscriptions most likely
+     * to change are checked before any rate limiting kicks in.
+     */
+    private List<Long> findDueSubscriptionIds() {
+        Instant now = Instant.now();
+        Instant lapsedAfter = now.minus(Duration.ofDays(lapsedWithinDays));
+        Instant expiringBefore = now.plus(Duration.ofHours(expiringWithinHours));
+        Instant staleBefore = now.minus(Duration.ofHours(staleAfterHours));
+
+        List<Object[]> due = new ArrayList<>();
+        long afterId = 0;
+        List<Object[]> page;
+        do {
+            page = subscriptionRepository.findDueForSync(afterId, lapsedAfter, expiringBefore, staleBefore,
+                    PageRequest.of(0, pageSize));
+            due.addAll(page);
+            if (!page.isEmpty()) {
+                afterId = (Long) page.get(page.size() - 1)[0];
+            }
+        } while (page.size() == pageSize);
+
+        due.sort(Comparator.comparing(row -> (Instant) row[1], Comparator.nullsFirst(Comparator.naturalOrder())));
+        return due.stream().map(row -> (Long) row[0]).toList();
+    }
+
+    private int syncChunk(List<Long> ids, ExecutorService executor, RateGate rateGate) throws InterruptedException {
+        List<UserSubscription> subscriptions = subscriptionRepository.findByIdIn(ids);
+
+        List<Lookup> lookups = new ArrayList<>(subscriptions.size());
+        for (UserSubscription subscription : subscriptions) {
+            lookups.add(new Lookup(subscription,
+                    executor.submit(() -> fetchLatestTransaction(subscription.getOriginalTransactionId(), rateGate))));
+        }
+
+        List<UserSubscription> changed = new ArrayList<>();
+        for (Lookup lookup : lookups) {
+            try {
+                JWSTransactionDecodedPayload transaction = lookup.transaction().get();
+                if (transaction != null) {
+                    applyTransaction(lookup.subscription(), transaction);
+                    changed.add(lookup.subscription());
+                }
+            } catch (ExecutionException e) {
+                log.warn("Transaction history sync failed for original transaction ID {}",
+                        lookup.subscription().getOriginalTransactionId(), e.getCause());
+            }
         }
+
+        List<UserSubscription> applied = applySyncedTransactions(changed);
+        for (UserSubscription subscription : applied) {
+            if (subscription.getUser() != null) {
+                eventPublisher.publishEvent(SubscriptionChangedEvent.of(subscription));
+            }
+        }
+        return applied.size();
+    }
+
+    /**
+     * Writes the chunk in one JDBC batch and transaction. Only the columns the sync owns are written, because the
+     * entities were loaded before the lookups and saving them whole would revert anything the notification inbox
+     * stored meanwhile; rows already holding a later expiration are skipped. Returns the subscriptions written.
+     */
+    List<UserSubscription> applySyncedTransactions(List<UserSubscription> changed) {
+        if (changed.isEmpty()) return List.of();
+        List<Object[]> rows = new ArrayList<>(changed.size());
+        for (UserSubscription subscription : changed) {
+            Timestamp expirationDate = Timestamp.from(subscription.getExpirationDate());
+            rows.add(new Object[]{subscription.getProductId(), expirationDate,
+                    Timestamp.from(subscription.getPurchaseDate()), subscription.getLatestTransactionId(),
+                    subscription.getStatus(), Timestamp.from(subscription.getLastVerifiedAt()),
+                    subscription.getId(), expirationDate});
+        }
+        int[] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(
+                "UPDATE user_subscription SET product_id = ?, expiration_date = ?, purchase_date = ?, " +
+                        "latest_transaction_id = ?, status = ?, last_verified_at = ? " +
+                        "WHERE id = ? AND (expiration_date IS NULL OR expiration_date <= ?)", rows));
+        List<UserSubscription> applied = new ArrayList<>(changed.size());
+        for (int i = 0; i < changed.size(); i++) {
+            if (counts[i] > 0) applied.add(changed.get(i));
+        }
+        return applied;
     }
 
-    private void processTransaction(JWSTransactionDecodedPayload transaction) {
-        String originalTransactionId = transaction.getOriginalTransactionId();
+    private JWSTransactionDecodedPayload fetchLatestTransaction(String originalTransactionId, RateGate rateGate) throws Exception {
+        TransactionHistoryRequest request = new TransactionHistoryRequest()
+                .productTypes(List.of(TransactionHistoryRequest.ProductType.AUTO_RENEWABLE))
+                .sort(TransactionHistoryRequest.Order.DESCENDING);
 
-        UserSubscription subscription = subscriptionRepository
-                .findByOriginalTransactionId(originalTransactionId)
-                .orElse(new UserSubscription());
+        for (int attempt = 0; ; attempt++) {
+            rateGate.acquire();
+            try {
+                HistoryResponse response = client.getTransactionHistory(originalTransactionId, null, request, GetTransactionHistoryVersion.V2);
+                List<String> signedTransactions = response.getSignedTransactions();
+                if (signedTransactions == null || signedTransactions.isEmpty()) {
+                    log.warn("No signed transactions found for original transaction ID: {}", originalTransactionId);
+                    return null;
+                }
+                return verifier.verifyAndDecodeTransaction(signedTransactions.get(0));
+            } catch (APIException e) {
+                if (e.getHttpStatusCode() != RATE_LIMITED || attempt >= maxRetries) {
+                    throw e;
+                }
+                // The client does not expose Retry-After, so back off exponentially and hold every worker.
+                long backoffMillis = 1000L << attempt;
+                log.warn("Rate limited by the App Store Server API, backing off for {} ms", backoffMillis);
+                rateGate.pause(backoffMillis);
+            }
+        }
+    }
 
-        subscription.setOriginalTransactionId(originalTransactionId);
+    private void applyTransaction(UserSubscription subscription, JWSTransactionDecodedPayload transaction) {
+        subscription.setOriginalTransactionId(transaction.getOriginalTransactionId());
         subscription.setProductId(transaction.getProductId());
         subscription.setExpirationDate(Instant.ofEpochMilli(transaction.getExpiresDate()));
         subscription.setPurchaseDate(Instant.ofEpochMilli(transaction.getPurchaseDate()));
@@ -97,7 +251,37 @@ public class TransactionHistorySyncServiceImpl implements TransactionHistorySync
             subscription.setStatus("ACTIVE");
         }
         subscription.setLastVerifiedAt(Instant.now());
+    }
+
+    private record Lookup(UserSubscription subscription, Future<JWSTransactionDecodedPayload> transaction) {
+    }
 
-        subscriptionRepository.save(subscription);
+    /**
+     * Spaces calls evenly across all workers, and lets a rate-limited worker push every caller back.
+     */
+    private static final class RateGate {
+        private final long intervalNanos;
+        private long nextSlotNanos = System.nanoTime();
+
+        RateGate(double permitsPerSecond) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        }
+
+        void acquire() throws InterruptedException {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long slot = Math.max(nextSlotNanos, now);
+                nextSlotNanos = slot + intervalNanos;
+                waitNanos = slot - now;
+            }
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+
+        synchronized void pause(long millis) {
+            nextSlotNanos = Math.max(nextSlotNanos, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+        }
     }
-}
\ No newline at end of file
+}
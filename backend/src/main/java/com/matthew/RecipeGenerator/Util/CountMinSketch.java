@@ -0,0 +1,71 @@
+package com.matthew.RecipeGenerator.Util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free count-min sketch. Counters are plain atomic increments; estimates over-count by at most
+ * e/width * total with probability 1 - e^-depth.
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int mask;
+    private final AtomicLongArray counters;
+
+    public CountMinSketch(int depth, int width) {
+        if (Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("Width must be a power of two");
+        }
+        this.depth = depth;
+        this.mask = width - 1;
+        this.counters = new AtomicLongArray(depth * width);
+    }
+
+    /**
+     * Increments the key's counters and returns its new estimate.
+     */
+    public long add(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int column = (h1 + row * h2) & mask;
+            estimate = Math.min(estimate, counters.incrementAndGet(row * (mask + 1) + column));
+        }
+        return estimate;
+    }
+
+    public long estimate(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int column = (h1 + row * h2) & mask;
+            estimate = Math.min(estimate, counters.get(row * (mask + 1) + column));
+        }
+        return estimate;
+    }
+
+    public void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 chars, finished with a murmur3 mix so both halves are usable as hashes.
+     */
+    public static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash | 1L << 32; // keep the second hash odd so rows never collapse onto one column
+    }
+}
@@ -0,0 +1,73 @@
+package com.matthew.RecipeGenerator.Util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Bitmap index over one user's saved recipes: every ingredient the user has ever used is assigned a bit, and
+ * each recipe is stored as the bitset of its ingredients so pantry coverage can be scored with popcounts.
+ */
+public class IngredientBitmapIndex {
+
+    private final Map<Integer, Integer> bitByIngredientId = new HashMap<>();
+    private final Map<Integer, long[]> bitsByRecipeId = new HashMap<>();
+
+    public synchronized void put(int recipeId, Iterable<Integer> ingredientIds) {
+        long[] bits = new long[0];
+        for (Integer ingredientId : ingredientIds) {
+            if (ingredientId == null) continue;
+            int bit = bitByIngredientId.computeIfAbsent(ingredientId, id -> bitByIngredientId.size());
+            bits = set(bits, bit);
+        }
+        bitsByRecipeId.put(recipeId, bits);
+    }
+
+    public synchronized void add(int recipeId, int ingredientId) {
+        int bit = bitByIngredientId.computeIfAbsent(ingredientId, id -> bitByIngredientId.size());
+        bitsByRecipeId.put(recipeId, set(bitsByRecipeId.getOrDefault(recipeId, new long[0]), bit));
+    }
+
+    public synchronized void remove(int recipeId) {
+        bitsByRecipeId.remove(recipeId);
+    }
+
+    /**
+     * Builds the pantry bitset from catalog ingredient ids; ids the user never cooked with are simply ignored.
+     */
+    public synchronized long[] toBits(Iterable<Integer> ingredientIds) {
+        long[] bits = new long[0];
+        for (Integer ingredientId : ingredientIds) {
+            Integer bit = bitByIngredientId.get(ingredientId);
+            if (bit != null) bits = set(bits, bit);
+        }
+        return bits;
+    }
+
+    /**
+     * Calls the visitor with (recipeId, [matched, required]) for every indexed recipe.
+     */
+    public synchronized void score(long[] have, BiConsumer<Integer, int[]> visitor) {
+        for (Map.Entry<Integer, long[]> entry : bitsByRecipeId.entrySet()) {
+            long[] recipe = entry.getValue();
+            int required = 0;
+            int matched = 0;
+            for (int i = 0; i < recipe.length; i++) {
+                required += Long.bitCount(recipe[i]);
+                if (i < have.length) matched += Long.bitCount(recipe[i] & have[i]);
+            }
+            visitor.accept(entry.getKey(), new int[]{matched, required});
+        }
+    }
+
+    private static long[] set(long[] bits, int bit) {
+        int word = bit >>> 6;
+        if (word >= bits.length) {
+            long[] grown = new long[word + 1];
+            System.arraycopy(bits, 0, grown, 0, bits.length);
+            bits = grown;
+        }
+        bits[word] |= 1L << (bit & 63);
+        return bits;
+    }
+}
@@ -0,0 +1,64 @@
+package com.matthew.RecipeGenerator.Util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Canonical forms for requested ingredients, so "Rice, chicken" and "chicken,rice " count as the same request.
+ * ASCII input, the common case, is canonicalized in a single pass without regex or intermediate strings.
+ */
+public final class IngredientKeys {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private IngredientKeys() {
+    }
+
+    public static String canonicalIngredient(String ingredient) {
+        if (ingredient == null) return "";
+        int length = ingredient.length();
+        char[] out = new char[length];
+        int size = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < length; i++) {
+            char c = ingredient.charAt(i);
+            if (c >= 0x80) {
+                return WHITESPACE.matcher(ingredient.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+            }
+            if (c <= ' ') {
+                pendingSpace = size > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                out[size++] = ' ';
+                pendingSpace = false;
+            }
+            out[size++] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return new String(out, 0, size);
+    }
+
+    /**
+     * The distinct, non-empty canonical ingredients in sorted order.
+     */
+    public static String[] canonicalIngredients(Collection<String> ingredients) {
+        String[] keys = new String[ingredients.size()];
+        int size = 0;
+        for (String ingredient : ingredients) {
+            String canonical = canonicalIngredient(ingredient);
+            if (!canonical.isEmpty()) keys[size++] = canonical;
+        }
+        Arrays.sort(keys, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || !keys[i].equals(keys[distinct - 1])) keys[distinct++] = keys[i];
+        }
+        return distinct == keys.length ? keys : Arrays.copyOf(keys, distinct);
+    }
+
+    public static String canonicalSet(Collection<String> ingredients) {
+        return String.join(",", canonicalIngredients(ingredients));
+    }
+}
@@ -0,0 +1,64 @@
+package com.matthew.RecipeGenerator.Util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded multi-producer, single-consumer ring buffer that never blocks a producer: when the buffer is full, or
+ * another producer wins the slot, the element is dropped. Suited to sampling statistics off a request path, where
+ * losing some elements under load is fine but waiting is not.
+ */
+public class LossyRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long head;
+
+    public LossyRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Returns false if the element was dropped.
+     */
+    public boolean offer(E element) {
+        long currentTail = tail.get();
+        if (currentTail - head >= slots.length() || !tail.compareAndSet(currentTail, currentTail + 1)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        slots.lazySet((int) (currentTail & mask), element);
+        return true;
+    }
+
+    /**
+     * Hands every published element to {@code consumer}. Must only be called by one thread at a time.
+     */
+    public int drainTo(Consumer<E> consumer) {
+        long currentHead = head;
+        long currentTail = tail.get();
+        int drained = 0;
+        while (currentHead < currentTail) {
+            int index = (int) (currentHead & mask);
+            E element = slots.get(index);
+            if (element == null) break; // claimed but not yet published; picked up next time
+            slots.lazySet(index, null);
+            currentHead++;
+            head = currentHead;
+            consumer.accept(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+}
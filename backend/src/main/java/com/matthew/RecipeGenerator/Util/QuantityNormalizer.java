@@ -0,0 +1,134 @@
+package com.matthew.RecipeGenerator.Util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Turns the free-form quantity/unit strings produced by the AI into a fixed-point amount expressed in a
+ * canonical unit (ml for volume, g for mass), so ingredients can be summed directly in SQL.
+ */
+public final class QuantityNormalizer {
+
+    public static final int SCALE = 4;
+
+    private static final String MILLILITERS = "ml";
+    private static final String GRAMS = "g";
+
+    private static final Map<String, Conversion> CONVERSIONS = new HashMap<>();
+    // Recipe shorthand where case matters: "T" is a tablespoon, "t" a teaspoon. Checked before lowercasing.
+    private static final Map<String, String> CASE_SENSITIVE_ALIASES = Map.of("T", "tbsp", "t", "tsp");
+
+    static {
+        volume("1", "ml", "milliliter", "milliliters", "millilitre", "millilitres");
+        volume("1000", "l", "liter", "liters", "litre", "litres");
+        volume("4.92892", "tsp", "teaspoon", "teaspoons");
+        volume("14.7868", "tbsp", "tablespoon", "tablespoons", "tbs", "tbl");
+        volume("236.588", "cup", "cups", "c");
+        volume("29.5735", "fl oz", "fluid ounce", "fluid ounces", "floz");
+        volume("473.176", "pint", "pints", "pt");
+        volume("946.353", "quart", "quarts", "qt");
+        volume("3785.41", "gallon", "gallons", "gal");
+        mass("1", "g", "gram", "grams", "gr");
+        mass("1000", "kg", "kilogram", "kilograms");
+        mass("0.001", "mg", "milligram", "milligrams");
+        mass("28.3495", "oz", "ounce", "ounces");
+        mass("453.592", "lb", "lbs", "pound", "pounds");
+    }
+
+    private QuantityNormalizer() {
+    }
+
+    public record NormalizedQuantity(BigDecimal amount, String unit) {
+    }
+
+    public static NormalizedQuantity normalize(String quantity, String unit) {
+        String normalizedUnit = normalizeUnit(unit);
+        BigDecimal amount = parseAmount(quantity);
+
+        Conversion conversion = CONVERSIONS.get(normalizedUnit);
+        if (conversion == null) {
+            return new NormalizedQuantity(amount, normalizedUnit);
+        }
+        BigDecimal converted = amount == null ? null
+                : amount.multiply(conversion.factor()).setScale(SCALE, RoundingMode.HALF_UP);
+        return new NormalizedQuantity(converted, conversion.canonicalUnit());
+    }
+
+    /**
+     * Parses "2", "1.5", "1/2", "1 1/2", "½" and ranges such as "2-3" (upper bound). Returns null when the
+     * quantity is not numeric, e.g. "to taste".
+     */
+    public static BigDecimal parseAmount(String quantity) {
+        if (quantity == null) return null;
+        String value = replaceUnicodeFractions(quantity.trim().toLowerCase(Locale.ROOT));
+        if (value.isEmpty()) return null;
+
+        int rangeSeparator = value.indexOf('-', 1);
+        if (rangeSeparator > 0) {
+            value = value.substring(rangeSeparator + 1).trim();
+        } else if (value.contains(" to ")) {
+            value = value.substring(value.indexOf(" to ") + 4).trim();
+        }
+
+        try {
+            BigDecimal total = BigDecimal.ZERO;
+            for (String part : value.split("\\s+")) {
+                int slash = part.indexOf('/');
+                if (slash > 0) {
+                    BigDecimal numerator = new BigDecimal(part.substring(0, slash));
+                    BigDecimal denominator = new BigDecimal(part.substring(slash + 1));
+                    if (denominator.signum() == 0) return null;
+                    total = total.add(numerator.divide(denominator, SCALE, RoundingMode.HALF_UP));
+                } else {
+                    total = total.add(new BigDecimal(part));
+                }
+            }
+            return total.setScale(SCALE, RoundingMode.HALF_UP);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static String normalizeUnit(String unit) {
+        if (unit == null) return "";
+        String value = unit.trim();
+        if (value.endsWith(".")) value = value.substring(0, value.length() - 1);
+        String caseSensitive = CASE_SENSITIVE_ALIASES.get(value);
+        if (caseSensitive != null) return caseSensitive;
+        value = value.toLowerCase(Locale.ROOT);
+        Conversion conversion = CONVERSIONS.get(value);
+        if (conversion != null) return value;
+        // Collapse simple plurals ("cloves" -> "clove") so count-based units group together.
+        if (value.length() > 3 && value.endsWith("s") && !value.endsWith("ss")) {
+            return value.substring(0, value.length() - 1);
+        }
+        return value;
+    }
+
+    private static String replaceUnicodeFractions(String value) {
+        return value.replace("½", " 1/2").replace("⅓", " 1/3").replace("⅔", " 2/3")
+                .replace("¼", " 1/4").replace("¾", " 3/4").replace("⅛", " 1/8")
+                .trim();
+    }
+
+    private static void volume(String factor, String... aliases) {
+        register(MILLILITERS, factor, aliases);
+    }
+
+    private static void mass(String factor, String... aliases) {
+        register(GRAMS, factor, aliases);
+    }
+
+    private static void register(String canonicalUnit, String factor, String... aliases) {
+        Conversion conversion = new Conversion(canonicalUnit, new BigDecimal(factor));
+        for (String alias : aliases) {
+            CONVERSIONS.put(alias, conversion);
+        }
+    }
+
+    private record Conversion(String canonicalUnit, BigDecimal factor) {
+    }
+}
@@ -0,0 +1,97 @@
+package com.matthew.RecipeGenerator.Util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free approximate sliding-window limiter keyed by client (IP, email or user id), so every key has a budget
+ * of its own. Each key's state packs the window number, the previous window's count and the current count into
+ * one long updated by CAS; the sliding estimate weights the previous count by how much of it still overlaps.
+ * At most {@code maxKeys} keys are tracked: keys idle for a full window are swept out when the table fills, and
+ * while it is still full, requests from keys that aren't tracked yet are refused until the window rolls over, or,
+ * for a limiter built with {@code failOpenWhenFull}, let through uncounted. Fail open where callers choose the key
+ * (an email) and another limit keyed by client still applies, so junk keys can't lock out real ones.
+ */
+public class SlidingWindowRateLimiter {
+
+    private static final long COUNT_MASK = 0xFFFFL;
+    private static final long SWEEP_INTERVAL_MILLIS = 1_000L;
+
+    private final int limit;
+    private final long windowMillis;
+    private final int maxKeys;
+    private final boolean failOpenWhenFull;
+    private final Map<String, AtomicLong> windows = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepMillis = new AtomicLong();
+
+    public SlidingWindowRateLimiter(int limit, long windowMillis, int maxKeys) {
+        this(limit, windowMillis, maxKeys, false);
+    }
+
+    public SlidingWindowRateLimiter(int limit, long windowMillis, int maxKeys, boolean failOpenWhenFull) {
+        if (limit <= 0 || limit >= COUNT_MASK) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + (COUNT_MASK - 1));
+        }
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("Max keys must be positive");
+        }
+        this.limit = limit;
+        this.windowMillis = windowMillis;
+        this.maxKeys = maxKeys;
+        this.failOpenWhenFull = failOpenWhenFull;
+    }
+
+    /**
+     * Counts one request for the key. Returns 0 when it is allowed, otherwise the number of milliseconds after
+     * which the client should retry.
+     */
+    public long tryAcquire(String key, long nowMillis) {
+        long window = nowMillis / windowMillis;
+        long elapsedInWindow = nowMillis % windowMillis;
+
+        AtomicLong state = windows.get(key);
+        if (state == null) {
+            if (windows.size() >= maxKeys) {
+                sweep(window, nowMillis);
+                if (windows.size() >= maxKeys) return failOpenWhenFull ? 0 : windowMillis - elapsedInWindow;
+            }
+            state = windows.computeIfAbsent(key, k -> new AtomicLong());
+        }
+
+        while (true) {
+            long packed = state.get();
+            long stateWindow = packed >>> 32;
+            long previous = (packed >>> 16) & COUNT_MASK;
+            long current = packed & COUNT_MASK;
+
+            long currentWindow = window & 0xFFFFFFFFL;
+            if (stateWindow != currentWindow) {
+                previous = stateWindow == ((window - 1) & 0xFFFFFFFFL) ? current : 0;
+                current = 0;
+            }
+
+            double overlap = (double) (windowMillis - elapsedInWindow) / windowMillis;
+            if (previous * overlap + current >= limit) {
+                return windowMillis - elapsedInWindow;
+            }
+
+            long next = currentWindow << 32 | previous << 16 | (current + 1);
+            if (state.compareAndSet(packed, next)) {
+                return 0;
+            }
+        }
+    }
+
+    int trackedKeys() {
+        return windows.size();
+    }
+
+    // Drops keys with nothing left in the sliding estimate; at most once a second, however hard the table is hit.
+    private void sweep(long window, long nowMillis) {
+        long next = nextSweepMillis.get();
+        if (nowMillis < next || !nextSweepMillis.compareAndSet(next, nowMillis + SWEEP_INTERVAL_MILLIS)) return;
+        long stale = window - 1;
+        windows.values().removeIf(state -> (state.get() >>> 32) < stale);
+    }
+}
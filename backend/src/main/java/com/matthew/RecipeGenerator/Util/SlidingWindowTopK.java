@@ -0,0 +1,99 @@
+package com.matthew.RecipeGenerator.Util;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Approximate heavy hitters over a sliding window made of a ring of buckets. Each bucket owns a count-min
+ * sketch and a bounded candidate set; the window is advanced with {@link #rotate()}, which clears the oldest
+ * bucket. Recording never blocks: candidate trimming is done by whichever thread wins a CAS.
+ */
+public class SlidingWindowTopK {
+
+    private final Bucket[] buckets;
+    private final int capacity;
+    private final AtomicInteger current = new AtomicInteger();
+
+    public SlidingWindowTopK(int bucketCount, int capacity, int sketchDepth, int sketchWidth) {
+        this.capacity = capacity;
+        this.buckets = new Bucket[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Bucket(new CountMinSketch(sketchDepth, sketchWidth));
+        }
+    }
+
+    public void record(String key) {
+        buckets[current.get()].record(key, capacity);
+    }
+
+    public void rotate() {
+        int next = (current.get() + 1) % buckets.length;
+        buckets[next].clear();
+        current.set(next);
+    }
+
+    public List<Map.Entry<String, Long>> top(int k) {
+        Set<String> candidates = new HashSet<>();
+        for (Bucket bucket : buckets) {
+            candidates.addAll(bucket.candidates);
+        }
+        List<Map.Entry<String, Long>> estimates = new ArrayList<>(candidates.size());
+        for (String candidate : candidates) {
+            long hash = CountMinSketch.hash(candidate);
+            long total = 0;
+            for (Bucket bucket : buckets) {
+                total += bucket.sketch.estimate(hash);
+            }
+            estimates.add(Map.entry(candidate, total));
+        }
+        estimates.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        return estimates.subList(0, Math.min(k, estimates.size()));
+    }
+
+    private static final class Bucket {
+        private final CountMinSketch sketch;
+        // Only membership is stored; estimates are read back from the sketch when trimming, so recording a key
+        // that is already a candidate is a read, not a map write.
+        private final Set<String> candidates = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean trimming = new AtomicBoolean();
+        private volatile long admissionThreshold = 0;
+
+        private Bucket(CountMinSketch sketch) {
+            this.sketch = sketch;
+        }
+
+        private void record(String key, int capacity) {
+            long estimate = sketch.add(CountMinSketch.hash(key));
+            if (estimate > admissionThreshold && !candidates.contains(key) && candidates.add(key)) {
+                if (candidates.size() > 2 * capacity && trimming.compareAndSet(false, true)) {
+                    try {
+                        trim(capacity);
+                    } finally {
+                        trimming.set(false);
+                    }
+                }
+            }
+        }
+
+        private void trim(int capacity) {
+            List<Map.Entry<String, Long>> entries = new ArrayList<>(candidates.size());
+            for (String candidate : candidates) {
+                entries.add(Map.entry(candidate, sketch.estimate(CountMinSketch.hash(candidate))));
+            }
+            if (entries.size() <= capacity) return;
+            entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+            for (int i = capacity; i < entries.size(); i++) {
+                candidates.remove(entries.get(i).getKey());
+            }
+            admissionThreshold = entries.get(capacity - 1).getValue();
+        }
+
+        private void clear() {
+            sketch.clear();
+            candidates.clear();
+            admissionThreshold = 0;
+        }
+    }
+}
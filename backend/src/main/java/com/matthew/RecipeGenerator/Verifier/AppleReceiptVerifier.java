@@ -1,52 +1,157 @@
 package com.matthew.RecipeGenerator.Verifier;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matthew.RecipeGenerator.Dto.AppleLatestReceiptInfo;
 import com.matthew.RecipeGenerator.Dto.AppleReceiptResponse;
-import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 @Slf4j
 public class AppleReceiptVerifier {
 
-    private static final String PROD_URL = "https://buy.itunes.apple.com/verifyReceipt";
+    // Apple's "receipt server temporarily unavailable"; also reported when the call itself fails.
+    public static final int RECEIPT_SERVER_UNAVAILABLE = 21005;
 
-    private static final String SANDBOX_URL = "https://sandbox.itunes.apple.com/verifyReceipt";
+    private static final int SANDBOX_RECEIPT_SENT_TO_PRODUCTION = 21007;
+    private static final int PRODUCTION_RECEIPT_SENT_TO_SANDBOX = 21008;
 
     @Value("${apple.shared.secret}")
     private String appleSharedSecret;
 
+    @Value("${apple.receipt.cache.max-ttl-minutes:60}")
+    private long maxCacheTtlMinutes;
+
+    @Value("${apple.receipt.cache.max-entries:10000}")
+    private int maxCacheEntries;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
+    private final String productionUrl;
+    private final String sandboxUrl;
+
+    // SHA-256 of the receipt -> last successful verification, until the latest subscription period ends.
+    private final Map<String, CachedReceipt> verifiedReceipts = new ConcurrentHashMap<>();
+    // Receipt origin (the user) -> whether their receipts come from the sandbox (TestFlight/dev builds).
+    private final Map<String, Boolean> sandboxOrigins = new ConcurrentHashMap<>();
+
+    public AppleReceiptVerifier(@Value("${apple.receipt.connect-timeout-ms:3000}") long connectTimeoutMillis,
+                                @Value("${apple.receipt.read-timeout-ms:10000}") long readTimeoutMillis,
+                                @Value("${apple.receipt.production-url:https://buy.itunes.apple.com/verifyReceipt}") String productionUrl,
+                                @Value("${apple.receipt.sandbox-url:https://sandbox.itunes.apple.com/verifyReceipt}") String sandboxUrl) {
+        this.productionUrl = productionUrl;
+        this.sandboxUrl = sandboxUrl;
+        // The JDK client keeps connections to Apple alive and reuses them across requests.
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
 
     public AppleReceiptResponse verifyReceipt(String base64Receipt) {
+        return verifyReceipt(base64Receipt, null);
+    }
+
+    /**
+     * Verifies the receipt, trying the environment previously seen for {@code origin} first. Successful results
+     * are reused until the latest subscription period in them ends (capped at the configured TTL).
+     */
+    public AppleReceiptResponse verifyReceipt(String base64Receipt, String origin) {
+        String receiptHash = hash(base64Receipt);
+        CachedReceipt cached = verifiedReceipts.get(receiptHash);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > System.currentTimeMillis()) {
+                return cached.response();
+            }
+            verifiedReceipts.remove(receiptHash);
+        }
+
         Map<String, Object> requestBody = Map.of(
                 "receipt-data", base64Receipt,
                 "password", appleSharedSecret
         );
 
-        AppleReceiptResponse response = postReceipt(PROD_URL, requestBody);
+        boolean sandbox = origin != null && sandboxOrigins.getOrDefault(origin, false);
+        AppleReceiptResponse response = postReceipt(sandbox ? sandboxUrl : productionUrl, requestBody);
 
-        if (response.getStatus() == 21007) {
+        if (!sandbox && response.getStatus() == SANDBOX_RECEIPT_SENT_TO_PRODUCTION) {
             log.info("Switching to sandbox environment for Apple receipt");
-            response = postReceipt(SANDBOX_URL, requestBody);
+            response = postReceipt(sandboxUrl, requestBody);
+            sandbox = true;
+        } else if (sandbox && response.getStatus() == PRODUCTION_RECEIPT_SENT_TO_SANDBOX) {
+            log.info("Switching to production environment for Apple receipt");
+            response = postReceipt(productionUrl, requestBody);
+            sandbox = false;
         }
 
+        if (origin != null && response.getStatus() == 0) {
+            remember(sandboxOrigins, origin, sandbox);
+        }
+        cache(receiptHash, response);
         return response;
     }
 
+    private void cache(String receiptHash, AppleReceiptResponse response) {
+        if (response.getStatus() != 0 || response.getLatestReceiptInfo().isEmpty()) return;
+
+        long latestExpiry = response.getLatestReceiptInfo().stream()
+                .map(AppleLatestReceiptInfo::getExpiresDateMs)
+                .filter(Objects::nonNull)
+                .mapToLong(Long::parseLong)
+                .max()
+                .orElse(0);
+        long expiresAt = Math.min(latestExpiry, System.currentTimeMillis() + Duration.ofMinutes(maxCacheTtlMinutes).toMillis());
+        if (expiresAt > System.currentTimeMillis()) {
+            if (verifiedReceipts.size() >= maxCacheEntries) {
+                long now = System.currentTimeMillis();
+                verifiedReceipts.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+            }
+            remember(verifiedReceipts, receiptHash, new CachedReceipt(response, expiresAt));
+        }
+    }
+
+    private <V> void remember(Map<String, V> map, String key, V value) {
+        if (map.size() >= maxCacheEntries && !map.containsKey(key)) {
+            map.clear();
+        }
+        map.put(key, value);
+    }
+
     private AppleReceiptResponse postReceipt(String url, Map<String, Object> requestBody) {
         try {
             String responseJson = restTemplate.postForObject(url, requestBody, String.class);
             return objectMapper.readValue(responseJson, AppleReceiptResponse.class);
         } catch (Exception e) {
             log.error("Apple receipt verification failed", e);
-            return new AppleReceiptResponse();
+            // Never status 0: a failed call must not pass as a valid receipt, be cached or pin the environment.
+            AppleReceiptResponse failed = new AppleReceiptResponse();
+            failed.setStatus(RECEIPT_SERVER_UNAVAILABLE);
+            return failed;
         }
     }
+
+    private static String hash(String receipt) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(receipt.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record CachedReceipt(AppleReceiptResponse response, long expiresAtMillis) {
+    }
 }
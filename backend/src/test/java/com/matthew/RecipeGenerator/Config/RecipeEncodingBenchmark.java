@@ -0,0 +1,90 @@
+package com.matthew.RecipeGenerator.Config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.matthew.RecipeGenerator.Model.Ingredient;
+import com.matthew.RecipeGenerator.Model.Recipe;
+import com.matthew.RecipeGenerator.Model.RecipeIngredient;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing a 500-recipe library (the GET /recipes response shape) as JSON, Smile and CBOR. Throughput is the
+ * JMH score; the payload size of each encoding is printed once per fork during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecipeEncodingBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    private ObjectWriter writer;
+    private List<Recipe> library;
+
+    @Setup
+    public void setUp() throws Exception {
+        JsonFactory factory = switch (format) {
+            case "smile" -> new SmileFactory();
+            case "cbor" -> new CBORFactory();
+            default -> new JsonFactory();
+        };
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().factory(factory).build();
+        writer = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, Recipe.class));
+        library = library(500);
+        System.out.printf("%n%s payload for %d recipes: %d bytes%n", format, library.size(), writer.writeValueAsBytes(library).length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return writer.writeValueAsBytes(library);
+    }
+
+    static List<Recipe> library(int size) {
+        Random random = new Random(7);
+        List<Recipe> recipes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Recipe recipe = new Recipe();
+            recipe.setId(i + 1);
+            recipe.setName("Recipe " + i);
+            recipe.setDescription("A weeknight dish with " + (3 + random.nextInt(6)) + " main ingredients.");
+            StringBuilder instructions = new StringBuilder();
+            for (int step = 1; step <= 8; step++) {
+                instructions.append(step).append(". Stir the mixture over medium heat for ")
+                        .append(2 + random.nextInt(10)).append(" minutes until fragrant and lightly golden.\n");
+            }
+            recipe.setInstructions(instructions.toString());
+            List<RecipeIngredient> ingredients = new ArrayList<>();
+            for (int j = 0; j < 8; j++) {
+                Ingredient ingredient = new Ingredient();
+                ingredient.setId(random.nextInt(2000));
+                ingredient.setName("ingredient-" + ingredient.getId());
+                RecipeIngredient recipeIngredient = new RecipeIngredient();
+                recipeIngredient.setId(i * 8 + j);
+                recipeIngredient.setIngredient(ingredient);
+                recipeIngredient.setQuantity(Integer.toString(1 + random.nextInt(4)));
+                recipeIngredient.setUnit("cups");
+                recipeIngredient.setQuantityValue(new BigDecimal("236.5880"));
+                recipeIngredient.setCanonicalUnit("ml");
+                recipeIngredient.setRecipe(recipe);
+                ingredients.add(recipeIngredient);
+            }
+            recipe.setRecipeIngredients(ingredients);
+            recipes.add(recipe);
+        }
+        return recipes;
+    }
+}
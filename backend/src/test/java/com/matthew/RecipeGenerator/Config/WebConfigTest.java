@@ -0,0 +1,38 @@
+package com.matthew.RecipeGenerator.Config;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebConfigTest {
+
+    @Test
+    void replacesDefaultBinaryConvertersInPlaceWithBuilderConfiguredOnes() {
+        WebConfig webConfig = new WebConfig();
+        ReflectionTestUtils.setField(webConfig, "objectMapperBuilder",
+                Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+
+        MappingJackson2HttpMessageConverter json = new MappingJackson2HttpMessageConverter();
+        List<HttpMessageConverter<?>> converters = new ArrayList<>(List.of(
+                json, new MappingJackson2SmileHttpMessageConverter(), new MappingJackson2CborHttpMessageConverter()));
+
+        webConfig.extendMessageConverters(converters);
+
+        assertThat(converters).hasSize(3);
+        assertThat(converters.get(0)).isSameAs(json);
+        assertThat(converters.get(1)).isInstanceOfSatisfying(MappingJackson2SmileHttpMessageConverter.class, smile ->
+                assertThat(smile.getObjectMapper().isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)).isFalse());
+        assertThat(converters.get(2)).isInstanceOfSatisfying(MappingJackson2CborHttpMessageConverter.class, cbor ->
+                assertThat(cbor.getObjectMapper().isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)).isFalse());
+    }
+}
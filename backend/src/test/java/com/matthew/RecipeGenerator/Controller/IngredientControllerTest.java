@@ -0,0 +1,145 @@
+package com.matthew.RecipeGenerator.Controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matthew.RecipeGenerator.Model.Ingredient;
+import com.matthew.RecipeGenerator.Repo.IngredientRepo;
+import com.matthew.RecipeGenerator.Security.Jwt.JwtAuthenticationFilter;
+import com.matthew.RecipeGenerator.Security.RateLimitFilter;
+import com.matthew.RecipeGenerator.Service.IngredientService;
+import com.matthew.RecipeGenerator.Service.IngredientServiceImpl;
+import com.matthew.RecipeGenerator.Service.IngredientSuggestionService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(IngredientController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class IngredientControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private IngredientService ingredientService;
+
+    @MockBean
+    private IngredientSuggestionService ingredientSuggestionService;
+
+    @MockBean
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @MockBean
+    private RateLimitFilter rateLimitFilter;
+
+    private final IngredientRepo ingredientRepo = mock(IngredientRepo.class);
+
+    // The real service writes the export; only the repository underneath it is stubbed.
+    @BeforeEach
+    void setUp() throws Exception {
+        IngredientServiceImpl service = new IngredientServiceImpl();
+        ReflectionTestUtils.setField(service, "ingredientRepo", ingredientRepo);
+        ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(service, "entityManager", mock(EntityManager.class));
+        when(ingredientService.getIngredients(any())).thenAnswer(invocation -> service.getIngredients(invocation.getArgument(0)));
+        doAnswer(invocation -> {
+            service.exportIngredients(invocation.getArgument(0));
+            return null;
+        }).when(ingredientService).exportIngredients(any());
+    }
+
+    @Test
+    void returnsRequestedPageSortedById() throws Exception {
+        PageRequest request = PageRequest.of(1, 2, Sort.by("id"));
+        when(ingredientRepo.findAll(request)).thenReturn(
+                new PageImpl<>(List.of(ingredient(3, "Butter"), ingredient(4, "Salt")), request, 5));
+
+        mockMvc.perform(get("/ingredients").param("page", "1").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Butter"))
+                .andExpect(jsonPath("$.content[1].id").value(4))
+                .andExpect(jsonPath("$.page.number").value(1))
+                .andExpect(jsonPath("$.page.totalElements").value(5))
+                .andExpect(jsonPath("$.page.totalPages").value(3));
+    }
+
+    @Test
+    void rejectsOutOfRangePages() throws Exception {
+        mockMvc.perform(get("/ingredients").param("page", "-1")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/ingredients").param("page", "0").param("size", "501")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/ingredients").param("page", "0").param("size", "0")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportsGzippedNdjsonWithOneRecordPerLine() throws Exception {
+        when(ingredientRepo.streamAllOrderById()).thenReturn(Stream.of(
+                ingredient(1, "Salt"), ingredient(2, "Pepper"), ingredient(3, "Olive Oil")));
+
+        String body = export();
+
+        assertThat(body).endsWith("\n");
+        List<String> names = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            JsonNode record = objectMapper.readTree(line);
+            names.add(record.get("name").asText());
+        }
+        assertThat(names).containsExactly("Salt", "Pepper", "Olive Oil");
+    }
+
+    @Test
+    void exportsNothingForAnEmptyCatalog() throws Exception {
+        when(ingredientRepo.streamAllOrderById()).thenReturn(Stream.empty());
+
+        assertThat(export()).isEmpty();
+    }
+
+    private String export() throws Exception {
+        MvcResult started = mockMvc.perform(get("/ingredients/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn();
+        try (GZIPInputStream gzip = new GZIPInputStream(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Ingredient ingredient(int id, String name) {
+        Ingredient ingredient = new Ingredient();
+        ingredient.setId(id);
+        ingredient.setName(name);
+        ingredient.setCategory("Pantry");
+        return ingredient;
+    }
+}
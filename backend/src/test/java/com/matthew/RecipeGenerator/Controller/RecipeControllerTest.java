@@ -0,0 +1,96 @@
+package com.matthew.RecipeGenerator.Controller;
+
+import com.matthew.RecipeGenerator.Model.User;
+import com.matthew.RecipeGenerator.Security.Jwt.JwtAuthenticationFilter;
+import com.matthew.RecipeGenerator.Security.RateLimitFilter;
+import com.matthew.RecipeGenerator.Service.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(RecipeController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class RecipeControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private OpenAIService openAIService;
+
+    @MockBean
+    private RecipeService recipeService;
+
+    @MockBean
+    private IngredientService ingredientService;
+
+    @MockBean
+    private RecipeIngredientService recipeIngredientService;
+
+    @MockBean
+    private PantryMatchService pantryMatchService;
+
+    @MockBean
+    private IngredientAnalyticsService ingredientAnalyticsService;
+
+    @MockBean
+    private RecipePregenerationService recipePregenerationService;
+
+    @MockBean
+    private EntitlementService entitlementService;
+
+    @MockBean
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @MockBean
+    private RateLimitFilter rateLimitFilter;
+
+    @BeforeEach
+    void setUp() {
+        User user = User.builder().userId(7).username("alice").email("alice@example.com")
+                .firstName("Alice").lastName("Doe").role("USER").enabled(true).build();
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void generationWithoutSubscriptionIsPaymentRequired() throws Exception {
+        when(entitlementService.getStatus(7)).thenReturn(EntitlementService.NO_SUBSCRIPTION);
+
+        mockMvc.perform(get("/recipes").queryParam("ingredients", "egg,rice"))
+                .andExpect(status().isPaymentRequired())
+                .andExpect(content().string("No subscription found. Please subscribe to generate recipes."));
+
+        verifyNoInteractions(openAIService, recipePregenerationService, ingredientAnalyticsService);
+        verify(recipeService, never()).createRecipesFromAIResponse(any(), any());
+    }
+
+    @Test
+    void generationWithExpiredSubscriptionIsPaymentRequired() throws Exception {
+        when(entitlementService.getStatus(7)).thenReturn("EXPIRED");
+
+        mockMvc.perform(get("/recipes").queryParam("ingredients", "egg,rice"))
+                .andExpect(status().isPaymentRequired());
+
+        verify(openAIService, never()).generateRecipe(anyString());
+    }
+}
@@ -0,0 +1,132 @@
+package com.matthew.RecipeGenerator.Event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two buses on one Postgres, standing in for two application instances.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class InvalidationBusPostgresTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private InvalidationBus first;
+    private InvalidationBus second;
+    private final BlockingQueue<String> receivedByFirst = new LinkedBlockingQueue<>();
+    private final BlockingQueue<String> receivedBySecond = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setUp() {
+        first = newBus(receivedByFirst);
+        second = newBus(receivedBySecond);
+    }
+
+    @AfterEach
+    void tearDown() {
+        first.stop();
+        second.stop();
+    }
+
+    @Test
+    void deliversInvalidationsToTheOtherInstanceOnly() throws Exception {
+        // The listeners connect in the background; publish until each side hears the other.
+        awaitListening(first, receivedBySecond);
+        awaitListening(second, receivedByFirst);
+        Thread.sleep(1000);
+        receivedByFirst.clear();
+        receivedBySecond.clear();
+
+        first.publish(InvalidationBus.RECIPES, "43");
+        second.publish(InvalidationBus.RECIPES, "44");
+
+        assertThat(receivedBySecond.poll(10, TimeUnit.SECONDS)).isEqualTo("43");
+        assertThat(waitFor(receivedByFirst, "44", 10_000)).isTrue();
+        assertThat(receivedBySecond.poll(1, TimeUnit.SECONDS)).isNull();
+    }
+
+    @Test
+    void lateJoinerAdoptsRunningPeersWithoutFlushing() throws Exception {
+        awaitListening(first, receivedBySecond);
+        first.publish(InvalidationBus.RECIPES, "45");
+        assertThat(waitFor(receivedBySecond, "45", 10_000)).isTrue();
+
+        // The first connection is made in start(), so the newcomer hears everything sent after it returns.
+        BlockingQueue<String> receivedByThird = new LinkedBlockingQueue<>();
+        InvalidationBus third = newBus(receivedByThird);
+        try {
+            first.heartbeat();
+            first.publish(InvalidationBus.RECIPES, "46");
+            second.publish(InvalidationBus.RECIPES, "47");
+
+            assertThat(receiveUntil(receivedByThird, "47")).contains("46").doesNotContain("flush");
+            assertThat(receiveUntil(receivedBySecond, "46")).doesNotContain("flush");
+        } finally {
+            third.stop();
+        }
+    }
+
+    private static void awaitListening(InvalidationBus publisher, BlockingQueue<String> received) throws InterruptedException {
+        for (int attempt = 0; attempt < 40; attempt++) {
+            publisher.publish(InvalidationBus.RECIPES, "ping");
+            if (waitFor(received, "ping", 250)) return;
+        }
+        throw new AssertionError("Listener never connected");
+    }
+
+    private static List<String> receiveUntil(BlockingQueue<String> queue, String last) throws InterruptedException {
+        List<String> received = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!received.contains(last) && System.currentTimeMillis() < deadline) {
+            String key = queue.poll(50, TimeUnit.MILLISECONDS);
+            if (key != null) received.add(key);
+        }
+        assertThat(received).contains(last);
+        return received;
+    }
+
+    private static boolean waitFor(BlockingQueue<String> queue, String expected, long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (System.currentTimeMillis() < deadline) {
+            if (expected.equals(queue.poll(50, TimeUnit.MILLISECONDS))) return true;
+        }
+        return false;
+    }
+
+    private static InvalidationBus newBus(BlockingQueue<String> received) {
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl(postgres.getJdbcUrl());
+        properties.setUsername(postgres.getUsername());
+        properties.setPassword(postgres.getPassword());
+
+        InvalidationBus bus = new InvalidationBus();
+        ReflectionTestUtils.setField(bus, "jdbcTemplate", new JdbcTemplate(new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())));
+        ReflectionTestUtils.setField(bus, "dataSourceProperties", properties);
+        ReflectionTestUtils.setField(bus, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(bus, "enabled", true);
+        ReflectionTestUtils.setField(bus, "nodeSilenceTimeoutMinutes", 60L);
+        bus.subscribe(InvalidationBus.RECIPES, received::add, () -> received.add("flush"));
+        bus.start();
+        return bus;
+    }
+}
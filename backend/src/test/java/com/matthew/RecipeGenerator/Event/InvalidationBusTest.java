@@ -0,0 +1,115 @@
+package com.matthew.RecipeGenerator.Event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class InvalidationBusTest {
+
+    private static final long SILENCE = TimeUnit.MINUTES.toMillis(61);
+
+    private final InvalidationBus bus = new InvalidationBus();
+    private final List<String> invalidated = new ArrayList<>();
+    private int flushes;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bus, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(bus, "nodeSilenceTimeoutMinutes", 60L);
+        bus.subscribe(InvalidationBus.RECIPES, invalidated::add, () -> flushes++);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bus.stop();
+    }
+
+    @Test
+    void invalidatesKeysInSequenceAndFlushesOnGap() {
+        bus.handle(message("a", 1, "7"), 0);
+        bus.handle(message("a", 2, "8"), 0);
+        bus.handle(message("a", 4, "9"), 0);
+
+        assertThat(invalidated).containsExactly("7", "8");
+        assertThat(flushes).isEqualTo(1);
+    }
+
+    @Test
+    void adoptsNodesSeenForTheFirstTimeWithoutFlushing() {
+        bus.handle(message("a", 5, "7"), 0);
+        bus.handle(heartbeat("b", 12), 0);
+        bus.handle(message("b", 13, "8"), 0);
+
+        assertThat(invalidated).containsExactly("7", "8");
+        assertThat(flushes).isZero();
+        assertThat(bus.trackedNodes()).isEqualTo(2);
+    }
+
+    @Test
+    void heartbeatsKeepQuietNodesTrackedAndRevealLostMessages() {
+        bus.handle(message("quiet", 1, "1"), 0);
+        bus.handle(heartbeat("quiet", 1), SILENCE - 60_000);
+        bus.handle(message("gone", 1, "2"), 0);
+
+        bus.evictSilentNodes(SILENCE);
+
+        assertThat(bus.trackedNodes()).isEqualTo(1);
+        assertThat(flushes).isZero();
+        // Message 2 never arrived; the next heartbeat gives it away.
+        bus.handle(heartbeat("quiet", 2), SILENCE);
+        assertThat(flushes).isEqualTo(1);
+    }
+
+    @Test
+    void flushesWhenAForgottenNodeResumes() {
+        bus.handle(message("old", 1, "1"), 0);
+        bus.evictSilentNodes(SILENCE);
+
+        bus.handle(resumed("old", 3, "3"), SILENCE);
+
+        assertThat(invalidated).containsExactly("1");
+        assertThat(flushes).isEqualTo(1);
+    }
+
+    @Test
+    void marksTheFirstMessageAfterALongSilenceAsResumed() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ReflectionTestUtils.setField(bus, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(bus, "enabled", true);
+        ReflectionTestUtils.setField(bus, "lastSentMillis", System.currentTimeMillis() - SILENCE);
+
+        bus.publish(InvalidationBus.RECIPES, "1");
+        bus.publish(InvalidationBus.RECIPES, "2");
+
+        verify(jdbcTemplate, timeout(5000)).queryForList(any(), eq("cache_invalidation"),
+                contains("\"key\":\"1\",\"resumed\":true"));
+        verify(jdbcTemplate, timeout(5000)).queryForList(any(), eq("cache_invalidation"),
+                contains("\"key\":\"2\",\"resumed\":false"));
+    }
+
+    private static String message(String node, long sequence, String key) {
+        return "{\"node\":\"" + node + "\",\"sequence\":" + sequence + ",\"topic\":\"recipes\",\"key\":\"" + key + "\"}";
+    }
+
+    private static String resumed(String node, long sequence, String key) {
+        return "{\"node\":\"" + node + "\",\"sequence\":" + sequence + ",\"topic\":\"recipes\",\"key\":\"" + key
+                + "\",\"resumed\":true}";
+    }
+
+    private static String heartbeat(String node, long sequence) {
+        return "{\"node\":\"" + node + "\",\"sequence\":" + sequence + "}";
+    }
+}
@@ -0,0 +1,103 @@
+package com.matthew.RecipeGenerator.Repo;
+
+import com.matthew.RecipeGenerator.Model.PregeneratedRecipe;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class PregeneratedRecipeRepoTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private PregeneratedRecipeRepo repo;
+
+    private final Instant now = Instant.now();
+
+    @BeforeEach
+    void setUp() {
+        repo.deleteAll();
+    }
+
+    @Test
+    void takesOldestFreshRecipeAndDeletesIt() {
+        save("egg,rice", "stale", now.minus(Duration.ofDays(5)));
+        save("egg,rice", "older", now.minus(Duration.ofHours(2)));
+        save("egg,rice", "newer", now.minus(Duration.ofHours(1)));
+        save("bean,egg", "other", now.minus(Duration.ofHours(3)));
+        Instant cutoff = now.minus(Duration.ofDays(3));
+
+        Optional<PregeneratedRecipe> taken = repo.takeOldest("egg,rice", cutoff);
+
+        assertThat(taken).map(PregeneratedRecipe::getAiResponse).contains("older");
+        assertThat(repo.countByIngredientKeyAndCreatedAtAfter("egg,rice", cutoff)).isEqualTo(1);
+        assertThat(repo.takeOldest("egg,rice", cutoff)).map(PregeneratedRecipe::getAiResponse).contains("newer");
+        assertThat(repo.takeOldest("egg,rice", cutoff)).isEmpty();
+        assertThat(repo.count()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentTakersGetDistinctRecipes() throws Exception {
+        int copies = 8;
+        for (int i = 0; i < copies; i++) {
+            save("egg,rice", "copy-" + i, now.minusSeconds(copies - i));
+        }
+        Instant cutoff = now.minus(Duration.ofDays(3));
+        int callers = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Optional<PregeneratedRecipe>>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return repo.takeOldest("egg,rice", cutoff);
+                }));
+            }
+            start.countDown();
+
+            List<String> taken = new ArrayList<>();
+            for (Future<Optional<PregeneratedRecipe>> result : results) {
+                result.get(30, TimeUnit.SECONDS).ifPresent(recipe -> taken.add(recipe.getAiResponse()));
+            }
+            // SKIP LOCKED can make a caller miss a row another caller is deleting, never hand out the same row twice
+            assertThat(taken).doesNotHaveDuplicates();
+            assertThat(repo.count()).isEqualTo(copies - taken.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void save(String key, String response, Instant createdAt) {
+        PregeneratedRecipe recipe = new PregeneratedRecipe();
+        recipe.setIngredientKey(key);
+        recipe.setAiResponse(response);
+        recipe.setCreatedAt(createdAt);
+        repo.save(recipe);
+    }
+}
@@ -0,0 +1,95 @@
+package com.matthew.RecipeGenerator.Repo;
+
+import com.matthew.RecipeGenerator.Model.User;
+import com.matthew.RecipeGenerator.Model.UserSubscription;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class UserSubscriptionRepoTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private UserSubscriptionRepo subscriptionRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @BeforeEach
+    void setUp() {
+        subscriptionRepo.deleteAll();
+        userRepo.deleteAll();
+    }
+
+    @Test
+    void expireDueOnlyExpiresActiveRowsPastTheirDeadline() {
+        UserSubscription due = save("alice", "ACTIVE", now.minus(1, ChronoUnit.HOURS));
+        UserSubscription renewed = save("bob", "ACTIVE", now.plus(30, ChronoUnit.DAYS));
+        UserSubscription revoked = save("carol", "REVOKED", now.minus(1, ChronoUnit.HOURS));
+        UserSubscription notAsked = save("dave", "ACTIVE", now.minus(1, ChronoUnit.HOURS));
+
+        List<Object[]> expired = subscriptionRepo.expireDue(
+                List.of(due.getId(), renewed.getId(), revoked.getId()), now);
+
+        assertThat(expired).hasSize(1);
+        Object[] row = expired.get(0);
+        assertThat(((Number) row[0]).longValue()).isEqualTo(due.getId());
+        assertThat(((Number) row[1]).intValue()).isEqualTo(due.getUser().getUserId());
+        assertThat(row[2]).isNotNull();
+        assertThat(load(due).getStatus()).isEqualTo("EXPIRED");
+        assertThat(load(renewed).getStatus()).isEqualTo("ACTIVE");
+        assertThat(load(revoked).getStatus()).isEqualTo("REVOKED");
+        assertThat(load(notAsked).getStatus()).isEqualTo("ACTIVE");
+    }
+
+    @Test
+    void expireDueIsIdempotent() {
+        UserSubscription due = save("alice", "ACTIVE", now.minus(1, ChronoUnit.HOURS));
+
+        assertThat(subscriptionRepo.expireDue(List.of(due.getId()), now)).hasSize(1);
+        assertThat(subscriptionRepo.expireDue(List.of(due.getId()), now)).isEmpty();
+    }
+
+    // The repository is declared with an Integer id while the entity's is a Long, so load through findByIdIn.
+    private UserSubscription load(UserSubscription subscription) {
+        return subscriptionRepo.findByIdIn(List.of(subscription.getId())).get(0);
+    }
+
+    private UserSubscription save(String name, String status, Instant expirationDate) {
+        User user = userRepo.save(User.builder().username(name).email(name + "@example.com").password("x")
+                .firstName(name).lastName("Doe").role("USER").enabled(true).build());
+        UserSubscription subscription = new UserSubscription();
+        subscription.setUser(user);
+        subscription.setPlatform("ios");
+        subscription.setProductId("premium_monthly");
+        subscription.setOriginalTransactionId(name + "-1000");
+        subscription.setExpirationDate(expirationDate);
+        subscription.setStatus(status);
+        return subscriptionRepo.save(subscription);
+    }
+}
@@ -0,0 +1,37 @@
+package com.matthew.RecipeGenerator.Security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveBCryptPasswordEncoderTest {
+
+    @Test
+    void staysWithinConfiguredBounds() {
+        AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(4, 5, 60_000);
+
+        assertThat(encoder.getStrength()).isEqualTo(5);
+        assertThat(encoder.encode("pw")).startsWith("$2a$05$");
+    }
+
+    @Test
+    void upgradesOnlyWeakerHashes() {
+        AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(5, 5, 0);
+
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("pw"))).isTrue();
+        assertThat(encoder.upgradeEncoding(encoder.encode("pw"))).isFalse();
+        // Written by a node that calibrated higher; rewriting it would weaken it.
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("pw"))).isFalse();
+        assertThat(encoder.upgradeEncoding("plaintext")).isTrue();
+        assertThat(encoder.upgradeEncoding(null)).isFalse();
+    }
+
+    @Test
+    void verifiesHashesOfAnyStrength() {
+        AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(5, 5, 0);
+
+        assertThat(encoder.matches("pw", new BCryptPasswordEncoder(4).encode("pw"))).isTrue();
+        assertThat(encoder.matches("pw", new BCryptPasswordEncoder(6).encode("pw"))).isTrue();
+    }
+}
@@ -0,0 +1,200 @@
+package com.matthew.RecipeGenerator.Security.Apple;
+
+import com.apple.itunes.storekit.model.Environment;
+import com.apple.itunes.storekit.model.JWSTransactionDecodedPayload;
+import com.apple.itunes.storekit.verification.SignedDataVerifier;
+import com.apple.itunes.storekit.verification.VerificationException;
+import com.apple.itunes.storekit.verification.VerificationStatus;
+import com.matthew.RecipeGenerator.Service.AppleCertificateCacheService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Drives the chain cache with stub verifiers standing in for the library's online and offline ones, and with
+ * payloads whose headers carry real certificates, so routing, expiry and eviction can be observed.
+ */
+class AppleSignedDataVerifierTest {
+
+    private static String validChain;
+    private static String otherChain;
+    private static String expiredChain;
+
+    private final AppleCertificateCacheService certificateCacheService = mock(AppleCertificateCacheService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SignedDataVerifier online;
+    private SignedDataVerifier offline;
+
+    @BeforeAll
+    static void generateCertificates(@TempDir Path keys) throws Exception {
+        validChain = jws(certificate(keys, "Valid Leaf", "+0d", 365));
+        otherChain = jws(certificate(keys, "Other Leaf", "+0d", 365));
+        // Issued three days ago for one day, so it has already expired.
+        expiredChain = jws(certificate(keys, "Expired Leaf", "-3d", 1));
+    }
+
+    @Test
+    void verifiesRememberedChainsOffline() throws Exception {
+        AppleSignedDataVerifier verifier = verifier(Duration.ofHours(1), 10);
+
+        verifier.verifyAndDecodeTransaction(validChain);
+        verifier.verifyAndDecodeTransaction(validChain);
+        verifier.verifyAndDecodeTransaction(otherChain);
+
+        verify(online).verifyAndDecodeTransaction(validChain);
+        verify(offline).verifyAndDecodeTransaction(validChain);
+        verify(online).verifyAndDecodeTransaction(otherChain);
+        assertThat(meterRegistry.get("apple.verification.chain.cache").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("apple.verification.chain.cache").tag("result", "miss").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("apple.verification.chain.cache.size").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void doesNotRememberChainsThatFailVerification() throws Exception {
+        AppleSignedDataVerifier verifier = verifier(Duration.ofHours(1), 10);
+        when(online.verifyAndDecodeTransaction(validChain))
+                .thenThrow(new VerificationException(VerificationStatus.VERIFICATION_FAILURE))
+                .thenReturn(new JWSTransactionDecodedPayload());
+
+        assertThatThrownBy(() -> verifier.verifyAndDecodeTransaction(validChain)).isInstanceOf(VerificationException.class);
+        verifier.verifyAndDecodeTransaction(validChain);
+
+        verify(online, times(2)).verifyAndDecodeTransaction(validChain);
+        verifyNoInteractions(offline);
+    }
+
+    @Test
+    void neverTrustsAChainPastItsCertificatesExpiry() throws Exception {
+        // The TTL alone would keep it for a month, but the certificate has already expired.
+        AppleSignedDataVerifier verifier = verifier(Duration.ofDays(30), 10);
+
+        verifier.verifyAndDecodeTransaction(expiredChain);
+        verifier.verifyAndDecodeTransaction(expiredChain);
+
+        verify(online, times(2)).verifyAndDecodeTransaction(expiredChain);
+        verifyNoInteractions(offline);
+    }
+
+    @Test
+    void rememberedChainsExpireAfterTheTtl() throws Exception {
+        AppleSignedDataVerifier verifier = verifier(Duration.ZERO, 10);
+
+        verifier.verifyAndDecodeTransaction(validChain);
+        verifier.verifyAndDecodeTransaction(validChain);
+
+        verify(online, times(2)).verifyAndDecodeTransaction(validChain);
+        verifyNoInteractions(offline);
+    }
+
+    @Test
+    void rebuildForgetsRememberedChains() throws Exception {
+        AppleSignedDataVerifier verifier = verifier(Duration.ofHours(1), 10);
+        verifier.verifyAndDecodeTransaction(validChain);
+
+        SignedDataVerifier previousOnline = online;
+
+        verifier.rebuild();
+        verifier.verifyAndDecodeTransaction(validChain);
+
+        verify(previousOnline).verifyAndDecodeTransaction(validChain);
+        verify(online).verifyAndDecodeTransaction(validChain);
+        verifyNoInteractions(offline);
+    }
+
+    @Test
+    void clearsTheCacheWhenFull() throws Exception {
+        AppleSignedDataVerifier verifier = verifier(Duration.ofHours(1), 1);
+
+        verifier.verifyAndDecodeTransaction(validChain);
+        verifier.verifyAndDecodeTransaction(otherChain);
+        verifier.verifyAndDecodeTransaction(validChain);
+
+        verify(online, times(2)).verifyAndDecodeTransaction(validChain);
+        assertThat(meterRegistry.get("apple.verification.chain.cache.size").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void withoutOnlineChecksEveryPayloadGoesToTheSameVerifier() throws Exception {
+        when(certificateCacheService.isLoaded()).thenReturn(true);
+        AppleSignedDataVerifier verifier = new AppleSignedDataVerifier(certificateCacheService, "bundle", null,
+                Environment.SANDBOX, false, Duration.ofHours(1), 10, meterRegistry) {
+            @Override
+            SignedDataVerifier newVerifier(boolean onlineChecks) {
+                online = stub();
+                return online;
+            }
+        };
+        verifier.rebuild();
+
+        verifier.verifyAndDecodeTransaction(validChain);
+        verifier.verifyAndDecodeTransaction(validChain);
+
+        verify(online, times(2)).verifyAndDecodeTransaction(validChain);
+        assertThat(meterRegistry.get("apple.verification.chain.cache").counters())
+                .allSatisfy(counter -> assertThat(counter.count()).isZero());
+    }
+
+    private AppleSignedDataVerifier verifier(Duration chainTtl, int maxCachedChains) {
+        when(certificateCacheService.isLoaded()).thenReturn(true);
+        AppleSignedDataVerifier verifier = new AppleSignedDataVerifier(certificateCacheService, "bundle", null,
+                Environment.SANDBOX, true, chainTtl, maxCachedChains, meterRegistry) {
+            @Override
+            SignedDataVerifier newVerifier(boolean onlineChecks) {
+                SignedDataVerifier stub = stub();
+                if (onlineChecks) online = stub;
+                else offline = stub;
+                return stub;
+            }
+        };
+        verifier.rebuild();
+        return verifier;
+    }
+
+    private static SignedDataVerifier stub() {
+        SignedDataVerifier stub = mock(SignedDataVerifier.class);
+        try {
+            when(stub.verifyAndDecodeTransaction(anyString())).thenReturn(new JWSTransactionDecodedPayload());
+        } catch (VerificationException e) {
+            throw new IllegalStateException(e);
+        }
+        return stub;
+    }
+
+    private static String jws(byte[] certificate) {
+        String header = "{\"alg\":\"ES256\",\"x5c\":[\"" + Base64.getEncoder().encodeToString(certificate) + "\"]}";
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(header.getBytes(StandardCharsets.UTF_8))
+                + ".e30.signature";
+    }
+
+    private static byte[] certificate(Path dir, String commonName, String startDate, int validityDays) throws Exception {
+        Path keystore = dir.resolve(commonName.replace(' ', '-') + ".p12");
+        Process keytool = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+                "-genkeypair", "-alias", "leaf", "-keyalg", "EC", "-groupname", "secp256r1",
+                "-startdate", startDate, "-validity", Integer.toString(validityDays),
+                "-dname", "CN=" + commonName, "-storetype", "PKCS12", "-keystore", keystore.toString(),
+                "-storepass", "changeit")
+                .redirectErrorStream(true)
+                .start();
+        keytool.getInputStream().readAllBytes();
+        assertThat(keytool.waitFor()).isZero();
+
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        try (FileInputStream in = new FileInputStream(keystore.toFile())) {
+            store.load(in, "changeit".toCharArray());
+        }
+        return store.getCertificate("leaf").getEncoded();
+    }
+}
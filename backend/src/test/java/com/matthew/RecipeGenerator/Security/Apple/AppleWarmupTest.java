@@ -0,0 +1,119 @@
+package com.matthew.RecipeGenerator.Security.Apple;
+
+import com.matthew.RecipeGenerator.Service.AppleCertificateCacheService;
+import com.matthew.RecipeGenerator.Service.SchedulerLockService;
+import com.matthew.RecipeGenerator.Service.TransactionHistorySyncService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Starts a context with just the warm-up and stubbed collaborators (no database, no network) and checks that
+ * startup isn't held up by the certificate download, that failures show on the health contributor and are
+ * retried, and that the startup sync runs once certificates are in.
+ */
+@SpringBootTest(classes = {AppleWarmup.class, AppleWarmupTest.Stubs.class},
+        properties = "apple.certificates.refresh-initial-delay-ms=3600000")
+class AppleWarmupTest {
+
+    static final CountDownLatch firstFetchStarted = new CountDownLatch(1);
+    static final CountDownLatch releaseFirstFetch = new CountDownLatch(1);
+    static final AtomicInteger fetches = new AtomicInteger();
+    static final AtomicBoolean verifierReady = new AtomicBoolean();
+
+    @Autowired
+    private AppleWarmup appleWarmup;
+
+    @Autowired
+    private TransactionHistorySyncService transactionHistorySyncService;
+
+    @Test
+    void warmsUpAfterStartupAndRetriesFailedDownloads() throws Exception {
+        // The context is already up while the first download is still blocked.
+        assertThat(firstFetchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(appleWarmup.health().getDetails()).containsEntry("state", "PENDING");
+        verify(transactionHistorySyncService, never()).syncTransactionHistory();
+
+        releaseFirstFetch.countDown();
+        awaitState("PENDING", 5);
+        assertThat(appleWarmup.health().getStatus()).isEqualTo(Status.DOWN);
+        assertThat(appleWarmup.health().getDetails()).containsEntry("lastError", "apple.com unreachable");
+
+        // Retried after the one second backoff.
+        awaitState("COMPLETE", 10);
+        assertThat(appleWarmup.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(fetches).hasValue(2);
+        verify(transactionHistorySyncService, timeout(5000)).syncTransactionHistory();
+    }
+
+    private void awaitState(String state, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        while (System.nanoTime() < deadline) {
+            if (state.equals(appleWarmup.health().getDetails().get("state"))
+                    && (!"PENDING".equals(state) || appleWarmup.health().getDetails().containsKey("lastError"))) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Warm-up did not reach " + state + ": " + appleWarmup.health());
+    }
+
+    // Boot's AOP auto-configuration proxies classes by default; this context has no auto-configuration.
+    @TestConfiguration
+    @EnableAsync(proxyTargetClass = true)
+    static class Stubs {
+
+        @Bean
+        AppleCertificateCacheService certificateCacheService() {
+            AppleCertificateCacheService service = mock(AppleCertificateCacheService.class);
+            when(service.fetchAndCacheCertificates()).thenAnswer(invocation -> {
+                if (fetches.incrementAndGet() == 1) {
+                    firstFetchStarted.countDown();
+                    releaseFirstFetch.await(10, TimeUnit.SECONDS);
+                    throw new IllegalStateException("apple.com unreachable");
+                }
+                return true;
+            });
+            return service;
+        }
+
+        @Bean
+        AppleSignedDataVerifier verifier() {
+            AppleSignedDataVerifier verifier = mock(AppleSignedDataVerifier.class);
+            when(verifier.isReady()).thenAnswer(invocation -> verifierReady.get());
+            doAnswer(invocation -> {
+                verifierReady.set(true);
+                return null;
+            }).when(verifier).rebuild();
+            return verifier;
+        }
+
+        @Bean
+        TransactionHistorySyncService transactionHistorySyncService() {
+            return mock(TransactionHistorySyncService.class);
+        }
+
+        @Bean
+        SchedulerLockService schedulerLockService() {
+            SchedulerLockService lockService = mock(SchedulerLockService.class);
+            when(lockService.runExclusively(anyString(), any(), any(), any())).thenAnswer(invocation -> {
+                invocation.getArgument(3, Runnable.class).run();
+                return true;
+            });
+            return lockService;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.matthew.RecipeGenerator.Security;
+
+import com.matthew.RecipeGenerator.Model.User;
+import com.matthew.RecipeGenerator.Repo.UserRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CustomUserDetailsServiceTest {
+
+    @Test
+    void grantsTheSameRoleAuthorityAsTheUserEntity() {
+        User user = User.builder().username("alice").email("alice@example.com").password("hash").role("ADMIN").build();
+        UserRepo userRepo = mock(UserRepo.class);
+        when(userRepo.findByEmail("alice@example.com")).thenReturn(Optional.of(user));
+        CustomUserDetailsService service = new CustomUserDetailsService();
+        ReflectionTestUtils.setField(service, "userRepository", userRepo);
+
+        UserDetails details = service.loadUserByUsername("alice@example.com");
+
+        assertThat(details.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_ADMIN");
+        assertThat(user.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_ADMIN");
+        assertThat(User.builder().build().getAuthorities()).isEmpty();
+    }
+}
@@ -0,0 +1,71 @@
+package com.matthew.RecipeGenerator.Security.Jwt;
+
+import com.matthew.RecipeGenerator.Event.InvalidationBus;
+import com.matthew.RecipeGenerator.Model.User;
+import com.matthew.RecipeGenerator.Repo.UserRepo;
+import com.matthew.RecipeGenerator.Security.PrincipalCache;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.FilterChain;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the JWT filter with the verified-token cache off ({@code cacheEntries = 0}, i.e. an HMAC
+ * check on every request) and on. The principal cache is warm in both cases, so the difference is the token check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    @Param({"0", "10000"})
+    public int cacheEntries;
+
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filter;
+    private String token;
+    private final FilterChain chain = (request, response) -> {
+    };
+
+    @Setup
+    public void setUp() {
+        jwtUtil = JwtUtilTest.newJwtUtil(cacheEntries);
+        User user = JwtUtilTest.user(7, "alice");
+        token = jwtUtil.generateToken(user);
+
+        UserRepo userRepo = Mockito.mock(UserRepo.class);
+        Mockito.when(userRepo.findWithSubscriptionByUserId(7)).thenReturn(Optional.of(user));
+        PrincipalCache principalCache = new PrincipalCache();
+        ReflectionTestUtils.setField(principalCache, "userRepo", userRepo);
+        ReflectionTestUtils.setField(principalCache, "invalidationBus", Mockito.mock(InvalidationBus.class));
+        ReflectionTestUtils.setField(principalCache, "ttlSeconds", 3600L);
+        ReflectionTestUtils.setField(principalCache, "maxEntries", 100);
+        filter = new JwtAuthenticationFilter(jwtUtil, null, principalCache);
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return jwtUtil.verifyAndGetClaims(token);
+    }
+
+    @Benchmark
+    public int filter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/recipes");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        SecurityContextHolder.clearContext();
+        return response.getStatus();
+    }
+}
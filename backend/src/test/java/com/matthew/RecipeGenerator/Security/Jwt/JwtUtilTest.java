@@ -0,0 +1,71 @@
+package com.matthew.RecipeGenerator.Security.Jwt;
+
+import com.matthew.RecipeGenerator.Model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    static final String SECRET = Base64.getEncoder().encodeToString(
+            "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = newJwtUtil(10_000);
+    }
+
+    static JwtUtil newJwtUtil(int maxCachedTokens) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "maxCachedTokens", maxCachedTokens);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    static User user(int userId, String username) {
+        return User.builder().userId(userId).username(username).role("USER").securityVersion(2).build();
+    }
+
+    @Test
+    void returnsClaimsFromCacheOnRepeat() {
+        String token = jwtUtil.generateToken(user(7, "alice"));
+
+        Claims first = jwtUtil.verifyAndGetClaims(token);
+        Claims second = jwtUtil.verifyAndGetClaims(token);
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.get(JwtUtil.USER_ID_CLAIM, Integer.class)).isEqualTo(7);
+    }
+
+    @Test
+    void cachedSignatureDoesNotVouchForAnotherPayload() {
+        String token = jwtUtil.generateToken(user(7, "alice"));
+        jwtUtil.verifyAndGetClaims(token);
+
+        // Same signature segment, different payload: must be re-verified, not served from the cache.
+        String other = jwtUtil.generateToken(user(8, "bob"));
+        String forged = other.substring(0, other.lastIndexOf('.')) + token.substring(token.lastIndexOf('.'));
+
+        assertThatThrownBy(() -> jwtUtil.verifyAndGetClaims(forged)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void verifiesEveryTimeWhenCacheDisabled() {
+        JwtUtil uncached = newJwtUtil(0);
+        String token = uncached.generateToken(user(7, "alice"));
+
+        assertThat(uncached.verifyAndGetClaims(token)).isNotSameAs(uncached.verifyAndGetClaims(token));
+    }
+}
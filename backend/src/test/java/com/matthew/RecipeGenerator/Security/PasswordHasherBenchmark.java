@@ -0,0 +1,62 @@
+package com.matthew.RecipeGenerator.Security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login load test: many request threads verifying passwords at once through the bounded BCrypt pool. Latency
+ * percentiles show what an accepted login waits for under contention; the {@code rejected} counter shows how
+ * much is shed as 503s instead of queueing. Run with the production strength, e.g. {@code -p strength=10}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(32)
+@Fork(1)
+public class PasswordHasherBenchmark {
+
+    @Param({"10"})
+    public int strength;
+
+    @Param({"64"})
+    public int queueCapacity;
+
+    private PasswordHasher hasher;
+    private String hash;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        public long accepted;
+        public long rejected;
+    }
+
+    @Setup
+    public void setUp() {
+        AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(strength, strength, 0);
+        hasher = new PasswordHasher(encoder, new SimpleMeterRegistry(), queueCapacity);
+        hash = hasher.encode("correct horse battery staple");
+    }
+
+    @TearDown
+    public void tearDown() {
+        hasher.shutdown();
+    }
+
+    @Benchmark
+    public boolean login(Outcomes outcomes) {
+        try {
+            boolean matches = hasher.matches("correct horse battery staple", hash);
+            outcomes.accepted++;
+            return matches;
+        } catch (RejectedExecutionException e) {
+            outcomes.rejected++;
+            return false;
+        }
+    }
+}
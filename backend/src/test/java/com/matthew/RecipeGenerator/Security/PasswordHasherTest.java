@@ -0,0 +1,126 @@
+package com.matthew.RecipeGenerator.Security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHasherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void tearDown() {
+        if (hasher != null) hasher.shutdown();
+    }
+
+    @Test
+    void encodesAndVerifiesOnPoolThreads() {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+        hasher = new PasswordHasher(new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                threads.add(Thread.currentThread().getName());
+                return bcrypt.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                threads.add(Thread.currentThread().getName());
+                return bcrypt.matches(rawPassword, encodedPassword);
+            }
+        }, meterRegistry, 8);
+
+        String hash = hasher.encode("s3cret");
+
+        assertThat(hasher.matches("s3cret", hash)).isTrue();
+        assertThat(hasher.matches("wrong", hash)).isFalse();
+        assertThat(threads).allMatch(name -> name.startsWith("bcrypt-"));
+        assertThat(meterRegistry.get("auth.password.hash").tag("operation", "verify").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("auth.password.hash").tag("operation", "encode").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Semaphore running = new Semaphore(0);
+        hasher = new PasswordHasher(new BlockingEncoder(running, release), meterRegistry, 1);
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(hasher, "executor");
+        int poolSize = executor.getMaximumPoolSize();
+
+        ExecutorService callers = Executors.newCachedThreadPool();
+        try {
+            List<Future<Boolean>> pending = new ArrayList<>();
+            for (int i = 0; i < poolSize; i++) {
+                pending.add(callers.submit(() -> hasher.matches("pw", "hash")));
+            }
+            assertThat(running.tryAcquire(poolSize, 5, TimeUnit.SECONDS)).isTrue();
+            pending.add(callers.submit(() -> hasher.matches("pw", "hash")));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (executor.getQueue().isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+
+            assertThatThrownBy(() -> hasher.matches("pw", "hash")).isInstanceOf(RejectedExecutionException.class);
+
+            release.countDown();
+            for (Future<Boolean> future : pending) {
+                assertThat(future.get(5, TimeUnit.SECONDS)).isTrue();
+            }
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void wrapsEncoderFailures() {
+        hasher = new PasswordHasher(new BlockingEncoder(new Semaphore(0), new CountDownLatch(0)) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                throw new IllegalArgumentException("boom");
+            }
+        }, meterRegistry, 8);
+
+        assertThatThrownBy(() -> hasher.encode("pw"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static class BlockingEncoder implements PasswordEncoder {
+        private final Semaphore running;
+        private final CountDownLatch release;
+
+        BlockingEncoder(Semaphore running, CountDownLatch release) {
+            this.running = running;
+            this.release = release;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            running.release();
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
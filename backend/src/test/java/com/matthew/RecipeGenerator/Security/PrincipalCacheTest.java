@@ -0,0 +1,63 @@
+package com.matthew.RecipeGenerator.Security;
+
+import com.matthew.RecipeGenerator.Event.InvalidationBus;
+import com.matthew.RecipeGenerator.Model.User;
+import com.matthew.RecipeGenerator.Model.UserSubscription;
+import com.matthew.RecipeGenerator.Repo.UserRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class PrincipalCacheTest {
+
+    private final UserRepo userRepo = mock(UserRepo.class);
+    private final PrincipalCache principalCache = new PrincipalCache();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(principalCache, "userRepo", userRepo);
+        ReflectionTestUtils.setField(principalCache, "invalidationBus", mock(InvalidationBus.class));
+        ReflectionTestUtils.setField(principalCache, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(principalCache, "maxEntries", 100);
+
+        UserSubscription subscription = new UserSubscription();
+        subscription.setStatus("active");
+        User user = User.builder().userId(7).username("alice").password("$2a$10$hash").role("USER")
+                .securityVersion(3).subscription(subscription).build();
+        when(userRepo.findWithSubscriptionByUserId(7)).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void handsOutIndependentCopies() {
+        User first = principalCache.get(7);
+        first.setRole("ADMIN");
+        first.getSubscription().setStatus("expired");
+
+        User second = principalCache.get(7);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getRole()).isEqualTo("USER");
+        assertThat(second.getSubscription().getStatus()).isEqualTo("active");
+        assertThat(second.getSecurityVersion()).isEqualTo(3);
+        verify(userRepo, times(1)).findWithSubscriptionByUserId(7);
+    }
+
+    @Test
+    void doesNotCarryPasswordHash() {
+        assertThat(principalCache.get(7).getPassword()).isNull();
+    }
+
+    @Test
+    void reloadsAfterInvalidate() {
+        principalCache.get(7);
+        principalCache.invalidate(7);
+        principalCache.get(7);
+
+        verify(userRepo, times(2)).findWithSubscriptionByUserId(7);
+    }
+}
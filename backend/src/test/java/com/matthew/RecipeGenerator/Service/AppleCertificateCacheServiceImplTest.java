@@ -0,0 +1,170 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class AppleCertificateCacheServiceImplTest {
+
+    private static byte[] pinnedRoot;
+    private static byte[] otherRoot;
+
+    @TempDir
+    Path tempDir;
+
+    private AppleCertificateCacheServiceImpl service;
+    private final AtomicReference<byte[]> served = new AtomicReference<>();
+    private HttpServer server;
+    private Path bundledDir;
+    private Path storeDir;
+
+    @BeforeAll
+    static void generateCertificates(@TempDir Path keys) throws Exception {
+        pinnedRoot = selfSigned(keys, "Pinned Test Root");
+        otherRoot = selfSigned(keys, "Other Test Root");
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/root.cer", exchange -> {
+            byte[] body = served.get();
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        bundledDir = Files.createDirectories(tempDir.resolve("bundled"));
+        storeDir = tempDir.resolve("store");
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/root.cer";
+        service = new AppleCertificateCacheServiceImpl(Map.of("test-root",
+                new AppleCertificateCacheServiceImpl.RootCertificate("TestRoot.cer", url, sha256(pinnedRoot))));
+        ReflectionTestUtils.setField(service, "bundledLocation", bundledDir.toUri().toString());
+        ReflectionTestUtils.setField(service, "storeDir", storeDir);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void loadsBundledCertificateMatchingPin() throws Exception {
+        Files.write(bundledDir.resolve("TestRoot.cer"), pinnedRoot);
+
+        service.loadLocalCertificates();
+
+        assertThat(service.isLoaded()).isTrue();
+        try (InputStream certificate = service.getCachedCertificates().iterator().next()) {
+            assertThat(certificate.readAllBytes()).isEqualTo(pinnedRoot);
+        }
+    }
+
+    @Test
+    void ignoresLocalCertificateNotMatchingPin() throws Exception {
+        Files.write(bundledDir.resolve("TestRoot.cer"), otherRoot);
+        Files.createDirectories(storeDir);
+        Files.write(storeDir.resolve("TestRoot.cer"), otherRoot);
+
+        service.loadLocalCertificates();
+
+        assertThat(service.isLoaded()).isFalse();
+    }
+
+    @Test
+    void fallsBackToStoredCopyWhenNothingIsBundled() throws Exception {
+        Files.createDirectories(storeDir);
+        Files.write(storeDir.resolve("TestRoot.cer"), pinnedRoot);
+
+        service.loadLocalCertificates();
+
+        assertThat(service.isLoaded()).isTrue();
+    }
+
+    @Test
+    void storesDownloadedCertificateMatchingPin() throws Exception {
+        served.set(pinnedRoot);
+
+        assertThat(service.fetchAndCacheCertificates()).isTrue();
+        assertThat(service.fetchAndCacheCertificates()).isFalse();
+
+        assertThat(service.isLoaded()).isTrue();
+        assertThat(Files.readAllBytes(storeDir.resolve("TestRoot.cer"))).isEqualTo(pinnedRoot);
+        if (Files.getFileAttributeView(storeDir, PosixFileAttributeView.class) != null) {
+            assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(storeDir)))
+                    .isEqualTo("rwx------");
+        }
+    }
+
+    @Test
+    void rejectsDownloadedCertificateNotMatchingPin() {
+        served.set(otherRoot);
+
+        assertThatThrownBy(service::fetchAndCacheCertificates).isInstanceOf(RuntimeException.class);
+
+        assertThat(service.isLoaded()).isFalse();
+        assertThat(storeDir).doesNotExist();
+    }
+
+    @Test
+    void shippedRootsMatchThePins() throws Exception {
+        for (AppleCertificateCacheServiceImpl.RootCertificate root : AppleCertificateCacheServiceImpl.APPLE_ROOTS.values()) {
+            assumeTrue(getClass().getResource("/apple/" + root.fileName()) != null,
+                    "Apple root " + root.fileName() + " is not bundled under src/main/resources/apple");
+        }
+        AppleCertificateCacheServiceImpl shipped = new AppleCertificateCacheServiceImpl();
+        ReflectionTestUtils.setField(shipped, "bundledLocation", "classpath:apple/");
+        ReflectionTestUtils.setField(shipped, "storeDir", storeDir);
+
+        shipped.loadLocalCertificates();
+
+        // Loaded from the classpath alone: nothing was stored or downloaded.
+        assertThat(shipped.isLoaded()).isTrue();
+        assertThat(shipped.getCachedCertificates()).hasSize(AppleCertificateCacheServiceImpl.APPLE_ROOTS.size());
+        assertThat(storeDir).doesNotExist();
+    }
+
+    private static byte[] selfSigned(Path dir, String commonName) throws Exception {
+        Path keystore = dir.resolve(commonName.replace(' ', '-') + ".p12");
+        Process keytool = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+                "-genkeypair", "-alias", "root", "-keyalg", "EC", "-groupname", "secp256r1", "-validity", "365",
+                "-dname", "CN=" + commonName, "-storetype", "PKCS12", "-keystore", keystore.toString(),
+                "-storepass", "changeit")
+                .redirectErrorStream(true)
+                .start();
+        keytool.getInputStream().readAllBytes();
+        assertThat(keytool.waitFor()).isZero();
+
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        try (FileInputStream in = new FileInputStream(keystore.toFile())) {
+            store.load(in, "changeit".toCharArray());
+        }
+        return store.getCertificate("root").getEncoded();
+    }
+
+    private static String sha256(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+}
@@ -0,0 +1,148 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.apple.itunes.storekit.model.Data;
+import com.apple.itunes.storekit.model.JWSTransactionDecodedPayload;
+import com.apple.itunes.storekit.model.ResponseBodyV2DecodedPayload;
+import com.apple.itunes.storekit.verification.VerificationException;
+import com.apple.itunes.storekit.verification.VerificationStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matthew.RecipeGenerator.Model.AppleNotificationInbox;
+import com.matthew.RecipeGenerator.Repo.AppleNotificationInboxRepo;
+import com.matthew.RecipeGenerator.Security.Apple.AppleSignedDataVerifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AppleNotificationInboxServiceImplTest {
+
+    private static final String BODY = "{\"signedPayload\":\"header.payload.signature\"}";
+
+    private final AppleNotificationInboxRepo inboxRepo = mock(AppleNotificationInboxRepo.class);
+    private final AppleNotificationService appleNotificationService = mock(AppleNotificationService.class);
+    private final AppleSignedDataVerifier verifier = mock(AppleSignedDataVerifier.class);
+    private final AppleNotificationInboxServiceImpl service = new AppleNotificationInboxServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "inboxRepo", inboxRepo);
+        ReflectionTestUtils.setField(service, "appleNotificationService", appleNotificationService);
+        ReflectionTestUtils.setField(service, "verifier", verifier);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "workers", 1);
+        ReflectionTestUtils.setField(service, "batchSize", 10);
+        ReflectionTestUtils.setField(service, "maxAttempts", 10);
+        ReflectionTestUtils.setField(service, "leaseSeconds", 120L);
+        ReflectionTestUtils.setField(service, "retryBaseSeconds", 10L);
+        ReflectionTestUtils.setField(service, "retentionDays", 30L);
+        ReflectionTestUtils.setField(service, "deadRetentionDays", 90L);
+        service.init();
+        when(verifier.isReady()).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void storesFieldsFromTheVerifiedPayload() throws Exception {
+        ResponseBodyV2DecodedPayload notification = new ResponseBodyV2DecodedPayload();
+        notification.setNotificationUUID("uuid-1");
+        notification.setSignedDate(1_700_000_000_000L);
+        Data data = new Data();
+        data.setSignedTransactionInfo("signed-transaction");
+        notification.setData(data);
+        JWSTransactionDecodedPayload transaction = new JWSTransactionDecodedPayload();
+        transaction.setOriginalTransactionId("1000");
+        when(verifier.verifyAndDecodeNotification("header.payload.signature")).thenReturn(notification);
+        when(verifier.verifyAndDecodeTransaction("signed-transaction")).thenReturn(transaction);
+        when(inboxRepo.insertIfAbsent(any(), any(), anyLong(), any(), any())).thenReturn(1);
+
+        assertThat(service.enqueue(BODY)).isTrue();
+
+        verify(inboxRepo).insertIfAbsent(eq("uuid-1"), eq("1000"), eq(1_700_000_000_000L), eq(BODY), any());
+    }
+
+    @Test
+    void rejectsForgedPayloadWithoutStoringIt() throws Exception {
+        when(verifier.verifyAndDecodeNotification(any()))
+                .thenThrow(new VerificationException(VerificationStatus.VERIFICATION_FAILURE));
+
+        assertThatThrownBy(() -> service.enqueue(BODY)).isInstanceOf(IllegalArgumentException.class);
+
+        verifyNoInteractions(inboxRepo);
+    }
+
+    @Test
+    void defersWhileVerifierIsWarmingUp() {
+        when(verifier.isReady()).thenReturn(false);
+
+        assertThatThrownBy(() -> service.enqueue(BODY)).isInstanceOf(IllegalStateException.class);
+
+        verifyNoInteractions(inboxRepo);
+    }
+
+    @Test
+    void verificationFailureInWorkerIsRetried() {
+        AppleNotificationInbox row = new AppleNotificationInbox();
+        row.setId(7L);
+        row.setNotificationUuid("uuid-7");
+        row.setPayload(BODY);
+        when(inboxRepo.claimDue(any(), any(), anyInt())).thenReturn(List.of(row));
+        doThrow(new RuntimeException("Failed to process notification",
+                new VerificationException(VerificationStatus.INVALID_CHAIN)))
+                .when(appleNotificationService).processNotification(BODY);
+
+        service.processPending();
+
+        verify(inboxRepo).markAttemptFailed(eq(7L), eq(AppleNotificationInbox.PENDING), eq(1), any(), any());
+    }
+
+    @Test
+    void otherFailuresAreRetried() {
+        AppleNotificationInbox row = new AppleNotificationInbox();
+        row.setId(8L);
+        row.setPayload(BODY);
+        when(inboxRepo.claimDue(any(), any(), anyInt())).thenReturn(List.of(row));
+        doThrow(new RuntimeException("database unavailable")).when(appleNotificationService).processNotification(BODY);
+
+        service.processPending();
+
+        verify(inboxRepo).markAttemptFailed(eq(8L), eq(AppleNotificationInbox.PENDING), eq(1), any(), any());
+    }
+
+    @Test
+    void deadLettersAfterMaxAttempts() {
+        AppleNotificationInbox row = new AppleNotificationInbox();
+        row.setId(9L);
+        row.setAttempts(9);
+        row.setPayload(BODY);
+        when(inboxRepo.claimDue(any(), any(), anyInt())).thenReturn(List.of(row));
+        doThrow(new RuntimeException("Failed to process notification",
+                new VerificationException(VerificationStatus.INVALID_CHAIN)))
+                .when(appleNotificationService).processNotification(BODY);
+
+        service.processPending();
+
+        verify(inboxRepo).markAttemptFailed(eq(9L), eq(AppleNotificationInbox.DEAD), eq(10), any(), any());
+    }
+
+    @Test
+    void cleanupDeletesDeadLettersInBatches() {
+        when(inboxRepo.deleteDeadBefore(any(), eq(1000))).thenReturn(1000, 3);
+
+        service.deleteProcessedNotifications();
+
+        verify(inboxRepo, times(1)).deleteProcessedBefore(any(), eq(1000));
+        verify(inboxRepo, times(2)).deleteDeadBefore(argThat(cutoff -> cutoff.isBefore(Instant.now().minusSeconds(89L * 86400))), eq(1000));
+    }
+}
@@ -0,0 +1,90 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.matthew.RecipeGenerator.Model.EmailOutbox;
+import com.matthew.RecipeGenerator.Repo.EmailOutboxRepo;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Drives the outbox worker against a real SMTP server (GreenMail) with the repository mocked out.
+ */
+class EmailOutboxServiceImplTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withDisabledAuthentication());
+
+    private final EmailOutboxRepo emailOutboxRepo = mock(EmailOutboxRepo.class);
+    private final EmailOutboxServiceImpl service = new EmailOutboxServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(greenMail.getSmtp().getPort());
+
+        ReflectionTestUtils.setField(service, "emailOutboxRepo", emailOutboxRepo);
+        ReflectionTestUtils.setField(service, "mailSender", mailSender);
+        ReflectionTestUtils.setField(service, "batchSize", 50);
+        ReflectionTestUtils.setField(service, "maxAttempts", 3);
+        ReflectionTestUtils.setField(service, "leaseSeconds", 120L);
+        ReflectionTestUtils.setField(service, "retryBaseSeconds", 30L);
+    }
+
+    @Test
+    void deliversClaimedBatchOverSmtpAndMarksItSent() throws Exception {
+        when(emailOutboxRepo.claimDue(any(), any(), eq(50)))
+                .thenReturn(List.of(email(1L, "alice@example.com", 0), email(2L, "bob@example.com", 0)));
+
+        int sent = service.dispatchPending();
+
+        assertThat(sent).isEqualTo(2);
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(2);
+        assertThat(received).extracting(MimeMessage::getSubject).containsOnly("Email Verification");
+        assertThat(received[0].getAllRecipients()[0].toString()).isIn("alice@example.com", "bob@example.com");
+        verify(emailOutboxRepo).markSent(argThat(ids -> ids.containsAll(List.of(1L, 2L))), any());
+        verify(emailOutboxRepo, never()).markAttemptFailed(anyLong(), any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void backsOffWhenSmtpIsDownAndGivesUpAfterMaxAttempts() {
+        greenMail.stop();
+        when(emailOutboxRepo.claimDue(any(), any(), eq(50)))
+                .thenReturn(List.of(email(1L, "alice@example.com", 0), email(2L, "bob@example.com", 2)));
+
+        Instant before = Instant.now();
+        int sent = service.dispatchPending();
+
+        assertThat(sent).isZero();
+        verify(emailOutboxRepo).markAttemptFailed(eq(1L), eq(EmailOutbox.PENDING), eq(1),
+                argThat(next -> !next.isBefore(before.plusSeconds(30))), any());
+        verify(emailOutboxRepo).markAttemptFailed(eq(2L), eq(EmailOutbox.FAILED), eq(3), any(), any());
+        verify(emailOutboxRepo, never()).markSent(any(), any());
+    }
+
+    private static EmailOutbox email(long id, String recipient, int attempts) {
+        EmailOutbox email = new EmailOutbox();
+        email.setId(id);
+        email.setRecipient(recipient);
+        email.setSubject("Email Verification");
+        email.setBody("Your code is 123456");
+        email.setStatus(EmailOutbox.PENDING);
+        email.setAttempts(attempts);
+        return email;
+    }
+}
@@ -0,0 +1,82 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Model.User;
+import com.matthew.RecipeGenerator.Repo.UserRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class EmailVerificationServiceImplTest {
+
+    private final UserRepo userRepo = mock(UserRepo.class);
+    private final EmailOutboxService emailOutboxService = mock(EmailOutboxService.class);
+    private final EmailVerificationServiceImpl service = new EmailVerificationServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "userRepo", userRepo);
+        ReflectionTestUtils.setField(service, "emailOutboxService", emailOutboxService);
+        ReflectionTestUtils.setField(service, "verificationTtlHours", 48L);
+        ReflectionTestUtils.setField(service, "resendAfterMinutes", 10L);
+    }
+
+    @Test
+    void legacyTokenExpiresTtlAfterAccountCreation() {
+        User stale = unverified("stale", null, ZonedDateTime.now().minusHours(49));
+        User recent = unverified("recent", null, ZonedDateTime.now().minusHours(47));
+        when(userRepo.findByVerificationToken("stale")).thenReturn(Optional.of(stale));
+        when(userRepo.findByVerificationToken("recent")).thenReturn(Optional.of(recent));
+
+        assertThat(service.verifyEmailAndGetUser("stale")).isNull();
+        assertThat(stale.isEnabled()).isFalse();
+        assertThat(service.verifyEmailAndGetUser("recent")).isSameAs(recent);
+        assertThat(recent.isEnabled()).isTrue();
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        User user = unverified("token", ZonedDateTime.now().minusMinutes(1), ZonedDateTime.now().minusDays(3));
+        when(userRepo.findByVerificationToken("token")).thenReturn(Optional.of(user));
+
+        assertThat(service.verifyEmailAndGetUser("token")).isNull();
+        verify(userRepo, never()).save(user);
+    }
+
+    @Test
+    void resendsWhenTokenWasPurgedOrExpired() {
+        User purged = unverified(null, null, ZonedDateTime.now().minusDays(5));
+        User expired = unverified("old", ZonedDateTime.now().minusHours(1), ZonedDateTime.now().minusDays(3));
+
+        assertThat(service.resendVerificationEmail(purged)).isTrue();
+        assertThat(service.resendVerificationEmail(expired)).isTrue();
+
+        assertThat(purged.getVerificationToken()).isNotNull();
+        assertThat(expired.getVerificationToken()).isNotEqualTo("old");
+        assertThat(expired.getVerificationTokenExpiresAt()).isAfter(ZonedDateTime.now().plusHours(47));
+        verify(emailOutboxService, times(2)).enqueue(anyString(), eq("Email Verification"), anyString());
+    }
+
+    @Test
+    void doesNotResendALinkSentMomentsAgo() {
+        User user = unverified("fresh", ZonedDateTime.now().plusHours(48).minusMinutes(1), ZonedDateTime.now());
+
+        assertThat(service.resendVerificationEmail(user)).isFalse();
+
+        assertThat(user.getVerificationToken()).isEqualTo("fresh");
+        verifyNoInteractions(emailOutboxService);
+    }
+
+    private static User unverified(String token, ZonedDateTime expiresAt, ZonedDateTime createdAt) {
+        return User.builder().userId(1).username("alice").email("alice@example.com").password("x")
+                .firstName("Alice").lastName("Doe").role("USER").enabled(false).verificationToken(token)
+                .verificationTokenExpiresAt(expiresAt).userCreatedAt(createdAt).build();
+    }
+}
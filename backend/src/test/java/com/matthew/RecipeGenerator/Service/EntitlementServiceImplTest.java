@@ -0,0 +1,98 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Event.InvalidationBus;
+import com.matthew.RecipeGenerator.Event.SubscriptionChangedEvent;
+import com.matthew.RecipeGenerator.Model.UserSubscription;
+import com.matthew.RecipeGenerator.Repo.UserSubscriptionRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class EntitlementServiceImplTest {
+
+    private final UserSubscriptionRepo subscriptionRepo = mock(UserSubscriptionRepo.class);
+    private final EntitlementServiceImpl service = new EntitlementServiceImpl();
+    private final Instant now = Instant.now();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "subscriptionRepository", subscriptionRepo);
+        ReflectionTestUtils.setField(service, "invalidationBus", mock(InvalidationBus.class));
+        ReflectionTestUtils.setField(service, "pageSize", 2);
+        when(subscriptionRepo.findEntitlementPage(anyLong(), any())).thenReturn(List.of());
+    }
+
+    @Test
+    void loadsEveryPageByKeyset() {
+        when(subscriptionRepo.findEntitlementPage(eq(0L), eq(PageRequest.of(0, 2)))).thenReturn(List.<Object[]>of(
+                row(1L, 10, "ACTIVE", now.plus(Duration.ofDays(1))),
+                row(4L, 11, "REVOKED", null)));
+        when(subscriptionRepo.findEntitlementPage(eq(4L), eq(PageRequest.of(0, 2)))).thenReturn(List.<Object[]>of(
+                row(9L, 12, "ACTIVE", now.plus(Duration.ofDays(2)))));
+
+        service.loadEntitlements();
+
+        assertThat(service.getStatus(10)).isEqualTo("ACTIVE");
+        assertThat(service.getStatus(11)).isEqualTo("REVOKED");
+        assertThat(service.getStatus(12)).isEqualTo("ACTIVE");
+        // The short second page ends the load, and once loaded an unknown user is not looked up one by one.
+        verify(subscriptionRepo, never()).findEntitlementPage(eq(9L), any());
+        assertThat(service.getStatus(13)).isEqualTo(EntitlementService.NO_SUBSCRIPTION);
+        verify(subscriptionRepo, never()).findByUserUserId(anyInt());
+    }
+
+    @Test
+    void activeSubscriptionPastItsExpiryReadsAsExpired() {
+        service.loadEntitlements();
+        service.onSubscriptionChanged(new SubscriptionChangedEvent(10, 1L, "ACTIVE", now.minusSeconds(1)));
+        service.onSubscriptionChanged(new SubscriptionChangedEvent(11, 2L, "ACTIVE", now.plus(Duration.ofHours(1))));
+
+        assertThat(service.getStatus(10)).isEqualTo("EXPIRED");
+        assertThat(service.getStatus(11)).isEqualTo("ACTIVE");
+    }
+
+    @Test
+    void eventRacingTheStartupLoadIsNotOverwritten() {
+        when(subscriptionRepo.findEntitlementPage(eq(0L), any())).thenAnswer(invocation -> {
+            // The subscription is revoked while its stale row is in flight.
+            service.onSubscriptionChanged(new SubscriptionChangedEvent(10, 1L, "REVOKED", null));
+            return List.<Object[]>of(row(1L, 10, "ACTIVE", now.plus(Duration.ofDays(1))));
+        });
+
+        service.loadEntitlements();
+
+        assertThat(service.getStatus(10)).isEqualTo("REVOKED");
+    }
+
+    @Test
+    void looksUpSingleUsersUntilLoaded() {
+        UserSubscription subscription = new UserSubscription();
+        subscription.setStatus("ACTIVE");
+        subscription.setExpirationDate(now.plus(Duration.ofDays(1)));
+        when(subscriptionRepo.findByUserUserId(10)).thenReturn(Optional.of(subscription));
+        when(subscriptionRepo.findByUserUserId(11)).thenReturn(Optional.empty());
+
+        assertThat(service.getStatus(10)).isEqualTo("ACTIVE");
+        assertThat(service.getStatus(10)).isEqualTo("ACTIVE");
+        assertThat(service.getStatus(11)).isEqualTo(EntitlementService.NO_SUBSCRIPTION);
+
+        verify(subscriptionRepo, times(1)).findByUserUserId(10);
+    }
+
+    private static Object[] row(long id, int userId, String status, Instant expirationDate) {
+        return new Object[]{id, userId, status, expirationDate};
+    }
+}
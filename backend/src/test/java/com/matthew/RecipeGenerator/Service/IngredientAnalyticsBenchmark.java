@@ -0,0 +1,78 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Util.IngredientKeys;
+import com.matthew.RecipeGenerator.Util.LossyRingBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code recordRequest} is what the generation endpoint pays per request. At benchmark rates the buffer is
+ * mostly full, so it largely measures the drop path; {@code offerAndDrain} bounds the publish path from above.
+ * {@code recordInBackground} and {@code canonicalSet} are the work moved onto the analytics thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngredientAnalyticsBenchmark {
+
+    private static final String[] PANTRY = {"Chicken", "rice", " Garlic", "onion ", "Bell Pepper", "soy sauce",
+            "Ginger", "tofu", "Broccoli", "eggs", "Olive  Oil", "tomato", "basil", "Pasta", "parmesan", "spinach"};
+
+    private IngredientAnalyticsServiceImpl service;
+    private List<List<String>> requests;
+    private final LossyRingBuffer<List<String>> buffer = new LossyRingBuffer<>(1024);
+
+    @Setup
+    public void setUp() {
+        service = new IngredientAnalyticsServiceImpl(24, 100, 8192);
+        service.start();
+        requests = new ArrayList<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 1024; i++) {
+            List<String> request = new ArrayList<>();
+            int size = 2 + random.nextInt(5);
+            for (int j = 0; j < size; j++) {
+                request.add(PANTRY[random.nextInt(PANTRY.length)]);
+            }
+            requests.add(request);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.stop();
+    }
+
+    @Benchmark
+    public void recordRequest() {
+        service.recordRequest(request());
+    }
+
+    @Benchmark
+    public int offerAndDrain() {
+        buffer.offer(request());
+        return buffer.drainTo(request -> {
+        });
+    }
+
+    @Benchmark
+    public void recordInBackground() {
+        service.record(request());
+    }
+
+    @Benchmark
+    public String canonicalSet() {
+        return IngredientKeys.canonicalSet(request());
+    }
+
+    private List<String> request() {
+        return requests.get(ThreadLocalRandom.current().nextInt(requests.size()));
+    }
+}
@@ -0,0 +1,37 @@
+package com.matthew.RecipeGenerator.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IngredientAnalyticsServiceImplTest {
+
+    @Test
+    void countsCanonicalSetsAndIngredients() {
+        IngredientAnalyticsServiceImpl service = new IngredientAnalyticsServiceImpl(4, 10, 1024);
+        for (int i = 0; i < 5; i++) {
+            service.recordRequest(List.of("Rice", "chicken "));
+        }
+        service.recordRequest(List.of("chicken", "rice"));
+        service.recordRequest(List.of("Tofu"));
+
+        List<Map.Entry<String, Long>> sets = service.topIngredientSets(2);
+        assertThat(sets.get(0)).isEqualTo(Map.entry("chicken,rice", 6L));
+        assertThat(sets.get(1)).isEqualTo(Map.entry("tofu", 1L));
+        assertThat(service.topIngredients(1)).containsExactly(Map.entry("chicken", 6L));
+    }
+
+    @Test
+    void rotatingPastTheWindowForgetsOldRequests() {
+        IngredientAnalyticsServiceImpl service = new IngredientAnalyticsServiceImpl(2, 10, 1024);
+        service.recordRequest(List.of("rice"));
+        service.topIngredients(1);
+        service.rotateWindow();
+        service.rotateWindow();
+
+        assertThat(service.topIngredients(1)).isEmpty();
+    }
+}
@@ -0,0 +1,68 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Dto.IngredientSuggestion;
+import com.matthew.RecipeGenerator.Event.InvalidationBus;
+import com.matthew.RecipeGenerator.Repo.IngredientRepo;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@code suggest} over a catalog of 20k ingredients with 1-3 character prefixes, the shape of
+ * search-box traffic. Sample mode reports percentiles; run with several threads to see it under load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class IngredientSuggestionBenchmark {
+
+    private static final int INGREDIENTS = 20_000;
+
+    private IngredientSuggestionServiceImpl service;
+    private String[] prefixes;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>(INGREDIENTS);
+        for (int id = 1; id <= INGREDIENTS; id++) {
+            rows.add(new Object[]{id, randomName(random), (long) random.nextInt(10_000)});
+        }
+        IngredientRepo ingredientRepo = Mockito.mock(IngredientRepo.class);
+        Mockito.when(ingredientRepo.findNamesWithUsageCount()).thenReturn(rows);
+
+        service = new IngredientSuggestionServiceImpl();
+        ReflectionTestUtils.setField(service, "ingredientRepo", ingredientRepo);
+        ReflectionTestUtils.setField(service, "invalidationBus", Mockito.mock(InvalidationBus.class));
+        service.suggest("", 1);
+
+        prefixes = new String[1024];
+        for (int i = 0; i < prefixes.length; i++) {
+            prefixes[i] = randomName(random).substring(0, 1 + random.nextInt(3));
+        }
+    }
+
+    @Benchmark
+    public List<IngredientSuggestion> suggest() {
+        return service.suggest(prefixes[ThreadLocalRandom.current().nextInt(prefixes.length)], 10);
+    }
+
+    private static String randomName(Random random) {
+        StringBuilder name = new StringBuilder();
+        int length = 4 + random.nextInt(10);
+        for (int i = 0; i < length; i++) {
+            name.append((char) ('a' + random.nextInt(26)));
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,95 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Dto.IngredientSuggestion;
+import com.matthew.RecipeGenerator.Event.InvalidationBus;
+import com.matthew.RecipeGenerator.Model.Ingredient;
+import com.matthew.RecipeGenerator.Repo.IngredientRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IngredientSuggestionServiceImplTest {
+
+    private final IngredientRepo ingredientRepo = mock(IngredientRepo.class);
+    private final IngredientSuggestionServiceImpl service = new IngredientSuggestionServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "ingredientRepo", ingredientRepo);
+        ReflectionTestUtils.setField(service, "invalidationBus", mock(InvalidationBus.class));
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1, "Salt", 10L});
+        rows.add(new Object[]{2, "salt", 4L});
+        rows.add(new Object[]{3, "Salted Butter", 7L});
+        rows.add(new Object[]{4, "Sugar", 20L});
+        rows.add(new Object[]{5, "Jalapeño", 2L});
+        when(ingredientRepo.findNamesWithUsageCount()).thenReturn(rows);
+    }
+
+    @Test
+    void ranksPrefixMatchesByPopularity() {
+        assertThat(service.suggest("s", 10)).extracting(IngredientSuggestion::getName)
+                .containsExactly("Sugar", "Salt", "Salted Butter");
+        assertThat(service.suggest("s", 1)).extracting(IngredientSuggestion::getName).containsExactly("Sugar");
+        assertThat(service.suggest("jalap", 10)).extracting(IngredientSuggestion::getId).containsExactly(5);
+    }
+
+    @Test
+    void namesDifferingOnlyInCaseAreMergedNotOverwritten() {
+        List<IngredientSuggestion> suggestions = service.suggest("salt", 10);
+
+        assertThat(suggestions).hasSize(2);
+        assertThat(suggestions.get(0).getId()).isEqualTo(1);
+        assertThat(suggestions.get(0).getPopularity()).isEqualTo(14);
+    }
+
+    @Test
+    void removingOneCaseVariantKeepsTheOther() {
+        service.suggest("", 10);
+        service.onIngredientRemoved(1);
+
+        List<IngredientSuggestion> suggestions = service.suggest("salt", 10);
+        assertThat(suggestions).extracting(IngredientSuggestion::getId).containsExactly(3, 2);
+    }
+
+    @Test
+    void renameMovesTheEntryAndKeepsItsPopularity() {
+        service.suggest("", 10);
+        Ingredient renamed = new Ingredient();
+        renamed.setId(4);
+        renamed.setName("Brown Sugar");
+        service.onIngredientSaved(renamed);
+
+        assertThat(service.suggest("sug", 10)).isEmpty();
+        assertThat(service.suggest("brown", 10)).singleElement()
+                .satisfies(suggestion -> assertThat(suggestion.getPopularity()).isEqualTo(20));
+    }
+
+    @Test
+    void recordUsageCountsTowardsTheUsedRow() {
+        service.suggest("", 10);
+        Ingredient salt = new Ingredient();
+        salt.setId(2);
+        salt.setName("salt");
+        for (int i = 0; i < 10; i++) {
+            service.recordUsage(salt);
+        }
+
+        List<IngredientSuggestion> suggestions = service.suggest("salt", 10);
+        assertThat(suggestions.get(0).getId()).isEqualTo(2);
+        assertThat(suggestions.get(0).getPopularity()).isEqualTo(24);
+    }
+
+    @Test
+    void findsIdsByExactNormalizedName() {
+        assertThat(service.findIdsByNames(List.of(" SALT ", "jalapeno", "salted", "")))
+                .containsExactlyInAnyOrder(1, 2, 5);
+    }
+}
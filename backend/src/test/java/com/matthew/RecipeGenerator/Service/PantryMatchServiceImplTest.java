@@ -0,0 +1,136 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Dto.RecipeMatch;
+import com.matthew.RecipeGenerator.Event.InvalidationBus;
+import com.matthew.RecipeGenerator.Model.Ingredient;
+import com.matthew.RecipeGenerator.Model.Recipe;
+import com.matthew.RecipeGenerator.Model.RecipeIngredient;
+import com.matthew.RecipeGenerator.Model.User;
+import com.matthew.RecipeGenerator.Repo.RecipeIngredientRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PantryMatchServiceImplTest {
+
+    private static final int USER_ID = 7;
+
+    private final RecipeIngredientRepo recipeIngredientRepo = mock(RecipeIngredientRepo.class);
+    private final IngredientSuggestionService ingredientSuggestionService = mock(IngredientSuggestionService.class);
+    private final InvalidationBus invalidationBus = mock(InvalidationBus.class);
+    private final PantryMatchServiceImpl service = new PantryMatchServiceImpl(100);
+    private final User user = User.builder().userId(USER_ID).build();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "recipeIngredientRepo", recipeIngredientRepo);
+        ReflectionTestUtils.setField(service, "ingredientSuggestionService", ingredientSuggestionService);
+        ReflectionTestUtils.setField(service, "invalidationBus", invalidationBus);
+        service.subscribe();
+
+        // Recipe 1 needs {1, 2}, recipe 2 needs {1, 2, 3}, recipe 3 needs {4}, recipe 4 needs {1, 4}.
+        when(recipeIngredientRepo.findRecipeIngredientIdsByUserId(USER_ID)).thenReturn(rows(
+                1, 1, 1, 2, 2, 1, 2, 2, 2, 3, 3, 4, 4, 1, 4, 4));
+        when(ingredientSuggestionService.findIdsByNames(any())).thenReturn(List.of(1, 2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void ranksByFewestMissingThenCoverageAndKeepsTopK() {
+        List<RecipeMatch> matches = service.matchRecipes(user, List.of("chicken", "rice"), 3);
+
+        assertThat(matches).extracting(RecipeMatch::getRecipeId).containsExactly(1, 2, 4);
+        assertThat(matches.get(0).getMissingCount()).isZero();
+        assertThat(matches.get(0).getCoverage()).isEqualTo(1.0);
+        assertThat(matches.get(1).getMissingCount()).isEqualTo(1);
+        assertThat(matches.get(1).getCoverage()).isGreaterThan(matches.get(2).getCoverage());
+
+        assertThat(service.matchRecipes(user, List.of("chicken"), 1)).extracting(RecipeMatch::getRecipeId)
+                .containsExactly(1);
+    }
+
+    @Test
+    void reusesTheIndexUntilAnotherNodeInvalidatesIt() {
+        service.matchRecipes(user, List.of("chicken"), 10);
+        service.matchRecipes(user, List.of("chicken"), 10);
+        verify(recipeIngredientRepo, times(1)).findRecipeIngredientIdsByUserId(USER_ID);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<String>> onInvalidate = ArgumentCaptor.forClass(Consumer.class);
+        verify(invalidationBus).subscribe(eq(InvalidationBus.RECIPES), onInvalidate.capture(), any());
+        onInvalidate.getValue().accept(Integer.toString(USER_ID));
+
+        service.matchRecipes(user, List.of("chicken"), 10);
+        verify(recipeIngredientRepo, times(2)).findRecipeIngredientIdsByUserId(USER_ID);
+    }
+
+    @Test
+    void appliesSavedAndDeletedRecipesOnlyAfterCommit() {
+        service.matchRecipes(user, List.of("chicken"), 10);
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.onRecipeSaved(user, recipe(5, 1, 2));
+        service.onRecipeDeleted(user, 2);
+        assertThat(service.matchRecipes(user, List.of("chicken"), 10)).extracting(RecipeMatch::getRecipeId)
+                .doesNotContain(5).contains(2);
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(service.matchRecipes(user, List.of("chicken"), 10)).extracting(RecipeMatch::getRecipeId)
+                .contains(5).doesNotContain(2);
+        verify(invalidationBus, times(2)).publish(InvalidationBus.RECIPES, Integer.toString(USER_ID));
+    }
+
+    @Test
+    void ingredientChangesRebuildTheIndexAfterCommit() {
+        service.matchRecipes(user, List.of("chicken"), 10);
+
+        service.onRecipeIngredientsChanged(USER_ID);
+        service.matchRecipes(user, List.of("chicken"), 10);
+
+        verify(recipeIngredientRepo, times(2)).findRecipeIngredientIdsByUserId(USER_ID);
+    }
+
+    private static List<Object[]> rows(int... recipeAndIngredientIds) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < recipeAndIngredientIds.length; i += 2) {
+            rows.add(new Object[]{recipeAndIngredientIds[i], recipeAndIngredientIds[i + 1]});
+        }
+        return rows;
+    }
+
+    private static Recipe recipe(int id, int... ingredientIds) {
+        Recipe recipe = new Recipe();
+        ReflectionTestUtils.setField(recipe, "id", id);
+        List<RecipeIngredient> recipeIngredients = new ArrayList<>();
+        for (int ingredientId : ingredientIds) {
+            Ingredient ingredient = new Ingredient();
+            ingredient.setId(ingredientId);
+            RecipeIngredient recipeIngredient = new RecipeIngredient();
+            recipeIngredient.setIngredient(ingredient);
+            recipeIngredients.add(recipeIngredient);
+        }
+        recipe.setRecipeIngredients(recipeIngredients);
+        return recipe;
+    }
+}
@@ -0,0 +1,99 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Model.Recipe;
+import com.matthew.RecipeGenerator.Model.RecipeIngredient;
+import com.matthew.RecipeGenerator.Model.User;
+import com.matthew.RecipeGenerator.Repo.RecipeIngredientRepo;
+import com.matthew.RecipeGenerator.Repo.RecipeRepo;
+import com.matthew.RecipeGenerator.Repo.UserRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(RecipeIngredientServiceImpl.class)
+@TestPropertySource(properties = {"recipe-ingredients.backfill.page-size=2", "spring.jpa.hibernate.ddl-auto=create-drop"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class RecipeIngredientServiceImplTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @MockBean
+    private SchedulerLockService schedulerLockService;
+
+    @MockBean
+    private PantryMatchService pantryMatchService;
+
+    @Autowired
+    private RecipeIngredientService recipeIngredientService;
+
+    @Autowired
+    private RecipeIngredientRepo recipeIngredientRepo;
+
+    @Autowired
+    private RecipeRepo recipeRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    private Recipe recipe;
+
+    @BeforeEach
+    void setUp() {
+        recipeIngredientRepo.deleteAll();
+        recipeRepo.deleteAll();
+        userRepo.deleteAll();
+        User user = userRepo.save(User.builder().username("alice").email("alice@example.com").password("x")
+                .firstName("Alice").lastName("Doe").role("USER").enabled(true).build());
+        recipe = new Recipe();
+        recipe.setName("Soup");
+        recipe.setDescription("Soup");
+        recipe.setInstructions("Boil");
+        recipe.setUser(user);
+        recipe = recipeRepo.save(recipe);
+    }
+
+    @Test
+    void backfillsEveryPageInBatches() {
+        save("200", "grams");
+        save("1", "kg");
+        save("2", "cloves");
+        save("1", "T");
+        save("3", "t");
+
+        assertThat(recipeIngredientService.backfillNormalizedQuantities()).isEqualTo(5);
+
+        List<RecipeIngredient> rows = recipeIngredientRepo.findAll();
+        assertThat(rows).allSatisfy(row -> assertThat(row.getCanonicalUnit()).isNotNull());
+        assertThat(rows).filteredOn(row -> "kg".equals(row.getUnit()))
+                .singleElement().satisfies(row -> assertThat(row.getQuantityValue()).isEqualByComparingTo("1000"));
+        assertThat(recipeIngredientService.backfillNormalizedQuantities()).isZero();
+    }
+
+    private void save(String quantity, String unit) {
+        RecipeIngredient row = new RecipeIngredient();
+        row.setRecipe(recipe);
+        row.setQuantity(quantity);
+        row.setUnit(unit);
+        recipeIngredientRepo.save(row);
+    }
+}
@@ -0,0 +1,73 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matthew.RecipeGenerator.Dto.AiGeneration;
+import com.matthew.RecipeGenerator.Repo.PregeneratedRecipeRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class RecipePregenerationServiceImplTest {
+
+    private final PregeneratedRecipeRepo repo = mock(PregeneratedRecipeRepo.class);
+    private final IngredientAnalyticsService analytics = mock(IngredientAnalyticsService.class);
+    private final OpenAIService openAIService = mock(OpenAIService.class);
+    private final RecipePregenerationServiceImpl service = new RecipePregenerationServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "pregeneratedRecipeRepo", repo);
+        ReflectionTestUtils.setField(service, "ingredientAnalyticsService", analytics);
+        ReflectionTestUtils.setField(service, "openAIService", openAIService);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "topSets", 10);
+        ReflectionTestUtils.setField(service, "minRequests", 1L);
+        ReflectionTestUtils.setField(service, "copiesPerSet", 10);
+        ReflectionTestUtils.setField(service, "tokenBudget", 1000L);
+        ReflectionTestUtils.setField(service, "tokensPerGeneration", 100L);
+        ReflectionTestUtils.setField(service, "ttlHours", 72L);
+        when(analytics.topIngredientSets(anyInt())).thenReturn(List.of(Map.entry("egg,rice", 5L)));
+    }
+
+    @Test
+    void chargesReportedUsageAgainstBudget() {
+        ReflectionTestUtils.setField(service, "copiesPerSet", 20);
+        when(openAIService.generate(anyString()))
+                .thenReturn(new AiGeneration(new ObjectMapper().createArrayNode(), 80));
+
+        service.pregenerate();
+
+        // twelve 80-token calls leave 40, which no longer covers the 100-token worst case
+        verify(openAIService, times(12)).generate(anyString());
+    }
+
+    @Test
+    void neverSpendsMoreThanBudgetWhenUsageExceedsEstimate() {
+        when(openAIService.generate(anyString()))
+                .thenReturn(new AiGeneration(new ObjectMapper().createArrayNode(), 400));
+
+        service.pregenerate();
+
+        // 1000 -> 600 -> 200; the 400-token call raised the reservation, so a third call would overdraw
+        verify(openAIService, times(2)).generate(anyString());
+        verify(repo, times(2)).save(any());
+    }
+
+    @Test
+    void fallsBackToEstimateWhenUsageMissing() {
+        when(openAIService.generate(anyString()))
+                .thenReturn(new AiGeneration(new ObjectMapper().createArrayNode(), 0));
+
+        service.pregenerate();
+
+        verify(openAIService, times(10)).generate(anyString());
+    }
+}
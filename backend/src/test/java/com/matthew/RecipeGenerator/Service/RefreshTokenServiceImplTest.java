@@ -0,0 +1,115 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Dto.RotatedRefreshToken;
+import com.matthew.RecipeGenerator.Model.RefreshToken;
+import com.matthew.RecipeGenerator.Model.User;
+import com.matthew.RecipeGenerator.Repo.RefreshTokenRepo;
+import com.matthew.RecipeGenerator.Repo.UserRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(RefreshTokenServiceImpl.class)
+@TestPropertySource(properties = {"jwt.refresh.expiration=3600000", "spring.jpa.hibernate.ddl-auto=create-drop"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class RefreshTokenServiceImplTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepo refreshTokenRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepo.deleteAll();
+        userRepo.deleteAll();
+        user = userRepo.save(User.builder().username("alice").email("alice@example.com").password("x")
+                .firstName("Alice").lastName("Doe").role("USER").enabled(true).build());
+    }
+
+    @Test
+    void onlyOneConcurrentRotationWins() throws Exception {
+        String token = refreshTokenService.createRefreshToken(user);
+        int callers = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Optional<RotatedRefreshToken>>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return refreshTokenService.rotate(token);
+                }));
+            }
+            start.countDown();
+
+            List<RotatedRefreshToken> rotated = new ArrayList<>();
+            for (Future<Optional<RotatedRefreshToken>> result : results) {
+                result.get(30, TimeUnit.SECONDS).ifPresent(rotated::add);
+            }
+
+            assertThat(rotated).hasSize(1);
+            assertThat(rotated.get(0).userId()).isEqualTo(user.getUserId());
+            assertThat(refreshTokenService.rotate(rotated.get(0).refreshToken())).isPresent();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void legacyPlaintextTokenRotatesOnceAndIsStoredHashed() {
+        String legacy = UUID.randomUUID().toString();
+        RefreshToken row = new RefreshToken();
+        row.setUser(user);
+        row.setTokenHash(legacy);
+        row.setExpiryDate(Instant.now().plusSeconds(3600));
+        refreshTokenRepo.save(row);
+
+        Optional<RotatedRefreshToken> rotated = refreshTokenService.rotate(legacy);
+
+        assertThat(rotated).map(RotatedRefreshToken::userId).contains(user.getUserId());
+        assertThat(refreshTokenRepo.findAll()).singleElement()
+                .satisfies(stored -> assertThat(stored.getTokenHash()).hasSize(64).isNotEqualTo(legacy));
+        assertThat(refreshTokenService.rotate(legacy)).isEmpty();
+    }
+
+    @Test
+    void storedHashIsNotAcceptedAsToken() {
+        refreshTokenService.createRefreshToken(user);
+        String storedHash = refreshTokenRepo.findAll().get(0).getTokenHash();
+
+        assertThat(refreshTokenService.rotate(storedHash)).isEmpty();
+    }
+}
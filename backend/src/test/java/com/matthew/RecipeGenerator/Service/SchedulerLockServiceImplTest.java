@@ -0,0 +1,64 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Repo.SchedulerLockRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SchedulerLockServiceImplTest {
+
+    private final SchedulerLockRepo schedulerLockRepo = mock(SchedulerLockRepo.class);
+    private final SchedulerLockServiceImpl service = new SchedulerLockServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "schedulerLockRepo", schedulerLockRepo);
+        when(schedulerLockRepo.renew(anyString(), anyString(), any(), any())).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void renewsLeaseWhileTaskRunsAndStopsAfterRelease() throws Exception {
+        when(schedulerLockRepo.tryAcquire(eq("job"), anyString(), any(), any())).thenReturn(1);
+
+        boolean ran = service.runExclusively("job", Duration.ofMillis(150), Duration.ZERO, () -> sleep(600));
+
+        assertThat(ran).isTrue();
+        verify(schedulerLockRepo, atLeast(3)).renew(eq("job"), anyString(), any(), any());
+        verify(schedulerLockRepo).release(eq("job"), anyString(), any());
+
+        clearInvocations(schedulerLockRepo);
+        Thread.sleep(300);
+        verify(schedulerLockRepo, never()).renew(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void skipsTaskWhenAnotherNodeHoldsTheLease() {
+        when(schedulerLockRepo.tryAcquire(eq("job"), anyString(), any(), any())).thenReturn(0);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertThat(service.runExclusively("job", Duration.ofMinutes(1), Duration.ZERO, () -> ran.set(true))).isFalse();
+        assertThat(ran).isFalse();
+        verify(schedulerLockRepo, never()).release(anyString(), anyString(), any());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Event.InvalidationBus;
+import com.matthew.RecipeGenerator.Event.SubscriptionChangedEvent;
+import com.matthew.RecipeGenerator.Repo.UserSubscriptionRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SubscriptionExpiryServiceImplTest {
+
+    private final UserSubscriptionRepo subscriptionRepo = mock(UserSubscriptionRepo.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final SubscriptionExpiryServiceImpl service = new SubscriptionExpiryServiceImpl();
+    private final Instant past = Instant.now().minusSeconds(60);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "subscriptionRepository", subscriptionRepo);
+        ReflectionTestUtils.setField(service, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(service, "invalidationBus", mock(InvalidationBus.class));
+        ReflectionTestUtils.setField(service, "pageSize", 100);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.setField(service, "graceSeconds", 0L);
+        ReflectionTestUtils.setField(service, "retryDelayMillis", 50L);
+        when(subscriptionRepo.findActiveExpiryPage(anyLong(), any())).thenReturn(List.of());
+        // Every id handed over is reported as expired, with its owner as id + 100.
+        when(subscriptionRepo.expireDue(anyCollection(), any())).thenAnswer(invocation ->
+                invocation.<Collection<Long>>getArgument(0).stream()
+                        .map(id -> new Object[]{id, (int) (id + 100), past})
+                        .toList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void supersededAndCancelledEntriesAreDropped() {
+        service.schedule(1L, 101, past);
+        service.schedule(1L, 101, Instant.now().plus(Duration.ofHours(1)));
+        service.schedule(2L, 102, past);
+        service.cancel(2L);
+        service.schedule(3L, 103, past);
+
+        service.start();
+
+        verify(subscriptionRepo, timeout(5000)).expireDue(eq(List.of(3L)), any());
+        verify(subscriptionRepo, after(200).times(1)).expireDue(anyCollection(), any());
+        verify(eventPublisher).publishEvent(new SubscriptionChangedEvent(103, 3L, "EXPIRED", past));
+    }
+
+    @Test
+    void drainsDueExpirationsInBatches() {
+        for (long id = 1; id <= 5; id++) {
+            service.schedule(id, (int) id + 100, past.plusMillis(id));
+        }
+
+        service.start();
+
+        ArgumentCaptor<Collection<Long>> batches = ArgumentCaptor.forClass(Collection.class);
+        verify(subscriptionRepo, timeout(5000).times(3)).expireDue(batches.capture(), any());
+        assertThat(batches.getAllValues()).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(2));
+        assertThat(batches.getAllValues().stream().flatMap(Collection::stream))
+                .containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L);
+        verify(eventPublisher, times(5)).publishEvent(any(SubscriptionChangedEvent.class));
+    }
+
+    @Test
+    void failedUpdateIsRetried() {
+        when(subscriptionRepo.expireDue(anyCollection(), any()))
+                .thenThrow(new RuntimeException("database unavailable"))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 101, past}));
+        service.schedule(1L, 101, past);
+
+        service.start();
+
+        verify(subscriptionRepo, timeout(5000).times(2)).expireDue(eq(List.of(1L)), any());
+        verify(eventPublisher, timeout(5000)).publishEvent(new SubscriptionChangedEvent(101, 1L, "EXPIRED", past));
+    }
+
+    @Test
+    void eventsKeepTheScheduleCurrent() {
+        service.onSubscriptionChanged(new SubscriptionChangedEvent(101, 1L, "ACTIVE", past));
+        service.onSubscriptionChanged(new SubscriptionChangedEvent(101, 1L, "REVOKED", null));
+        service.onSubscriptionChanged(new SubscriptionChangedEvent(102, 2L, "ACTIVE", past));
+
+        service.start();
+
+        verify(subscriptionRepo, timeout(5000)).expireDue(eq(List.of(2L)), any());
+        verify(subscriptionRepo, after(200).times(1)).expireDue(anyCollection(), any());
+    }
+}
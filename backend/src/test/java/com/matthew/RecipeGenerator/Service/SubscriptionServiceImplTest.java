@@ -0,0 +1,82 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Dto.AppleLatestReceiptInfo;
+import com.matthew.RecipeGenerator.Event.SubscriptionChangedEvent;
+import com.matthew.RecipeGenerator.Model.User;
+import com.matthew.RecipeGenerator.Model.UserSubscription;
+import com.matthew.RecipeGenerator.Repo.UserSubscriptionRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SubscriptionServiceImplTest {
+
+    private final UserSubscriptionRepo subscriptionRepo = mock(UserSubscriptionRepo.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final SubscriptionServiceImpl service = new SubscriptionServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "subscriptionRepository", subscriptionRepo);
+        ReflectionTestUtils.setField(service, "eventPublisher", eventPublisher);
+    }
+
+    @Test
+    void ownerSnapshotCanResyncTheirSubscription() {
+        // Same user, but the principal is a separate snapshot without password or recipes.
+        UserSubscription existing = subscriptionOwnedBy(user(7, "secret-hash"));
+        when(subscriptionRepo.findByOriginalTransactionId("1000")).thenReturn(Optional.of(existing));
+
+        service.syncAppleSubscription(user(7, null), receipt(), "0");
+
+        verify(subscriptionRepo).save(existing);
+        assertThat(existing.getStatus()).isEqualTo("ACTIVE");
+        verify(eventPublisher).publishEvent(any(SubscriptionChangedEvent.class));
+    }
+
+    @Test
+    void rejectsTransactionOwnedByAnotherUser() {
+        UserSubscription existing = subscriptionOwnedBy(user(7, "secret-hash"));
+        when(subscriptionRepo.findByOriginalTransactionId("1000")).thenReturn(Optional.of(existing));
+
+        assertThatThrownBy(() -> service.syncAppleSubscription(user(8, null), receipt(), "0"))
+                .isInstanceOf(IllegalStateException.class);
+
+        verify(subscriptionRepo, never()).save(any());
+    }
+
+    private static User user(int id, String password) {
+        return User.builder().userId(id).username("user" + id).email("user" + id + "@example.com")
+                .password(password).firstName("First").lastName("Last").role("USER").enabled(true).build();
+    }
+
+    private static UserSubscription subscriptionOwnedBy(User user) {
+        UserSubscription subscription = new UserSubscription();
+        subscription.setId(3L);
+        subscription.setUser(user);
+        subscription.setOriginalTransactionId("1000");
+        return subscription;
+    }
+
+    private static AppleLatestReceiptInfo receipt() {
+        Instant now = Instant.now();
+        AppleLatestReceiptInfo receipt = new AppleLatestReceiptInfo();
+        receipt.setProductId("premium_monthly");
+        receipt.setOriginalTransactionId("1000");
+        receipt.setTransactionId("1001");
+        receipt.setPurchaseDateMs(Long.toString(now.toEpochMilli()));
+        receipt.setExpiresDateMs(Long.toString(now.plus(Duration.ofDays(30)).toEpochMilli()));
+        receipt.setIsTrialPeriod("false");
+        return receipt;
+    }
+}
@@ -0,0 +1,190 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.matthew.RecipeGenerator.Model.PasswordResetToken;
+import com.matthew.RecipeGenerator.Model.RefreshToken;
+import com.matthew.RecipeGenerator.Model.User;
+import com.matthew.RecipeGenerator.Repo.PasswordResetTokenRepo;
+import com.matthew.RecipeGenerator.Repo.RefreshTokenRepo;
+import com.matthew.RecipeGenerator.Repo.UserRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TokenPurgeServiceImpl.class, SimpleMeterRegistry.class})
+@TestPropertySource(properties = {"token-purge.batch-size=2", "token-purge.max-batches=2",
+        "auth.verification.ttl-hours=48", "spring.jpa.hibernate.ddl-auto=create-drop"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class TokenPurgeServiceImplTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @MockBean
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private TokenPurgeService tokenPurgeService;
+
+    @Autowired
+    private RefreshTokenRepo refreshTokenRepo;
+
+    @Autowired
+    private PasswordResetTokenRepo passwordResetTokenRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private int users;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepo.deleteAll();
+        passwordResetTokenRepo.deleteAll();
+        userRepo.deleteAll();
+    }
+
+    @Test
+    void purgesInBatchesUntilShortBatch() {
+        for (int i = 0; i < 3; i++) {
+            refreshToken(Instant.now().minus(Duration.ofDays(1)));
+        }
+        refreshToken(Instant.now().plus(Duration.ofDays(1)));
+        passwordResetToken(LocalDateTime.now().minusHours(1));
+        passwordResetToken(LocalDateTime.now().plusHours(1));
+        double before = purgedCounter("refresh");
+
+        assertThat(tokenPurgeService.purgeExpiredTokens()).isEqualTo(4);
+
+        assertThat(refreshTokenRepo.count()).isEqualTo(1);
+        assertThat(passwordResetTokenRepo.count()).isEqualTo(1);
+        assertThat(purgedCounter("refresh") - before).isEqualTo(3);
+    }
+
+    @Test
+    void stopsAfterMaxBatchesAndFinishesOnTheNextRun() {
+        for (int i = 0; i < 5; i++) {
+            refreshToken(Instant.now().minus(Duration.ofDays(1)));
+        }
+
+        assertThat(tokenPurgeService.purgeExpiredTokens()).isEqualTo(4);
+        assertThat(tokenPurgeService.purgeExpiredTokens()).isEqualTo(1);
+        assertThat(refreshTokenRepo.count()).isZero();
+    }
+
+    @Test
+    void skipsRowsLockedByAnotherPurgeInsteadOfWaiting() throws Exception {
+        RefreshToken locked = refreshToken(Instant.now().minus(Duration.ofDays(1)));
+        refreshToken(Instant.now().minus(Duration.ofDays(1)));
+        CountDownLatch lockHeld = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holder = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.queryForList("SELECT id FROM refresh_tokens WHERE id = ? FOR UPDATE", locked.getId());
+                lockHeld.countDown();
+                try {
+                    release.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertThat(lockHeld.await(30, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(tokenPurgeService.purgeExpiredTokens()).isEqualTo(1);
+            assertThat(refreshTokenRepo.findById(locked.getId())).isPresent();
+
+            release.countDown();
+            holder.get(30, TimeUnit.SECONDS);
+            assertThat(tokenPurgeService.purgeExpiredTokens()).isEqualTo(1);
+            assertThat(refreshTokenRepo.count()).isZero();
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void clearsExpiredAndLegacyVerificationTokens() {
+        User expired = unverified(ZonedDateTime.now().minusHours(1));
+        User pending = unverified(ZonedDateTime.now().plusHours(1));
+        User legacyExpired = unverified(null);
+        User legacyPending = unverified(null);
+        jdbcTemplate.update("UPDATE users SET user_created_at = ? WHERE user_id = ?",
+                Timestamp.from(Instant.now().minus(Duration.ofHours(49))), legacyExpired.getUserId());
+
+        assertThat(tokenPurgeService.purgeExpiredTokens()).isEqualTo(2);
+
+        assertThat(userRepo.findById(expired.getUserId()).orElseThrow().getVerificationToken()).isNull();
+        assertThat(userRepo.findById(legacyExpired.getUserId()).orElseThrow().getVerificationToken()).isNull();
+        assertThat(userRepo.findById(pending.getUserId()).orElseThrow().getVerificationToken()).isNotNull();
+        assertThat(userRepo.findById(legacyPending.getUserId()).orElseThrow().getVerificationToken()).isNotNull();
+    }
+
+    private User user(boolean enabled) {
+        int n = ++users;
+        return userRepo.save(User.builder().username("user" + n).email("user" + n + "@example.com").password("x")
+                .firstName("First").lastName("Last").role("USER").enabled(enabled).build());
+    }
+
+    private User unverified(ZonedDateTime expiresAt) {
+        User user = user(false);
+        user.setVerificationToken(UUID.randomUUID().toString());
+        user.setVerificationTokenExpiresAt(expiresAt);
+        return userRepo.save(user);
+    }
+
+    private RefreshToken refreshToken(Instant expiryDate) {
+        RefreshToken token = new RefreshToken();
+        token.setUser(user(true));
+        token.setTokenHash(UUID.randomUUID().toString());
+        token.setExpiryDate(expiryDate);
+        return refreshTokenRepo.save(token);
+    }
+
+    private void passwordResetToken(LocalDateTime expiryDate) {
+        passwordResetTokenRepo.save(PasswordResetToken.builder().token(UUID.randomUUID().toString())
+                .expiryDate(expiryDate).user(user(true)).build());
+    }
+
+    private double purgedCounter(String type) {
+        return meterRegistry.get("auth.tokens.purged").tag("type", type).counter().count();
+    }
+}
@@ -0,0 +1,119 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.apple.itunes.storekit.client.AppStoreServerAPIClient;
+import com.matthew.RecipeGenerator.Model.User;
+import com.matthew.RecipeGenerator.Model.UserSubscription;
+import com.matthew.RecipeGenerator.Repo.UserRepo;
+import com.matthew.RecipeGenerator.Repo.UserSubscriptionRepo;
+import com.matthew.RecipeGenerator.Security.Apple.AppleSignedDataVerifier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(TransactionHistorySyncServiceImpl.class)
+@TestPropertySource(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class TransactionHistorySyncServiceImplPostgresTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @MockBean
+    private AppleSignedDataVerifier verifier;
+
+    @MockBean
+    private AppStoreServerAPIClient client;
+
+    @MockBean
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private TransactionHistorySyncServiceImpl service;
+
+    @Autowired
+    private UserSubscriptionRepo subscriptionRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @BeforeEach
+    void setUp() {
+        subscriptionRepo.deleteAll();
+        userRepo.deleteAll();
+    }
+
+    @Test
+    void batchWritesSyncedColumnsAndSkipsRowsWithLaterExpiration() {
+        UserSubscription behind = save("alice", "1000", now.plus(1, ChronoUnit.DAYS));
+        UserSubscription ahead = save("bob", "2000", now.plus(60, ChronoUnit.DAYS));
+        // The inbox cancelled auto-renew after the rows were loaded; the sync must not revert it.
+        behind.setAutoRenew(false);
+        subscriptionRepo.save(behind);
+
+        UserSubscription syncedBehind = synced(load(behind));
+        UserSubscription syncedAhead = synced(load(ahead));
+        syncedBehind.setAutoRenew(true);
+
+        List<UserSubscription> applied = service.applySyncedTransactions(List.of(syncedBehind, syncedAhead));
+
+        assertThat(applied).extracting(UserSubscription::getId).containsExactly(behind.getId());
+        UserSubscription stored = load(behind);
+        assertThat(stored.getExpirationDate()).isEqualTo(now.plus(30, ChronoUnit.DAYS));
+        assertThat(stored.getLatestTransactionId()).isEqualTo("1000-renewal");
+        assertThat(stored.isAutoRenew()).isFalse();
+        assertThat(load(ahead).getExpirationDate())
+                .isEqualTo(now.plus(60, ChronoUnit.DAYS));
+    }
+
+    // The repository is declared with an Integer id while the entity's is a Long, so load through findByIdIn.
+    private UserSubscription load(UserSubscription subscription) {
+        return subscriptionRepo.findByIdIn(List.of(subscription.getId())).get(0);
+    }
+
+    private UserSubscription synced(UserSubscription subscription) {
+        subscription.setProductId("premium_monthly");
+        subscription.setExpirationDate(now.plus(30, ChronoUnit.DAYS));
+        subscription.setPurchaseDate(now);
+        subscription.setLatestTransactionId(subscription.getOriginalTransactionId() + "-renewal");
+        subscription.setStatus("ACTIVE");
+        subscription.setLastVerifiedAt(now);
+        return subscription;
+    }
+
+    private UserSubscription save(String name, String originalTransactionId, Instant expirationDate) {
+        User user = userRepo.save(User.builder().username(name).email(name + "@example.com").password("x")
+                .firstName(name).lastName("Doe").role("USER").enabled(true).build());
+        UserSubscription subscription = new UserSubscription();
+        subscription.setUser(user);
+        subscription.setPlatform("ios");
+        subscription.setProductId("premium_monthly");
+        subscription.setOriginalTransactionId(originalTransactionId);
+        subscription.setExpirationDate(expirationDate);
+        subscription.setStatus("ACTIVE");
+        subscription.setAutoRenew(true);
+        return subscriptionRepo.save(subscription);
+    }
+}
@@ -0,0 +1,184 @@
+package com.matthew.RecipeGenerator.Service;
+
+import com.apple.itunes.storekit.client.AppStoreServerAPIClient;
+import com.apple.itunes.storekit.model.Environment;
+import com.apple.itunes.storekit.model.JWSTransactionDecodedPayload;
+import com.matthew.RecipeGenerator.Event.SubscriptionChangedEvent;
+import com.matthew.RecipeGenerator.Model.User;
+import com.matthew.RecipeGenerator.Model.UserSubscription;
+import com.matthew.RecipeGenerator.Repo.UserSubscriptionRepo;
+import com.matthew.RecipeGenerator.Security.Apple.AppleSignedDataVerifier;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the sync against a local stand-in for the App Store Server API: the real client, pointed at an in-process
+ * HTTP server that serves transaction history and rate limits the first call.
+ */
+class TransactionHistorySyncServiceImplTest {
+
+    private static final Instant EXPIRES = Instant.now().plus(30, ChronoUnit.DAYS).truncatedTo(ChronoUnit.MILLIS);
+
+    private HttpServer appStore;
+    private final Map<String, AtomicInteger> historyCalls = new ConcurrentHashMap<>();
+    private final AtomicInteger rateLimitedResponses = new AtomicInteger(1);
+
+    private final UserSubscriptionRepo subscriptionRepo = mock(UserSubscriptionRepo.class);
+    private final AppleSignedDataVerifier verifier = mock(AppleSignedDataVerifier.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionHistorySyncServiceImpl service = new TransactionHistorySyncServiceImpl();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        appStore = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        appStore.createContext("/inApps/v2/history/", this::history);
+        appStore.start();
+
+        ReflectionTestUtils.setField(service, "verifier", verifier);
+        ReflectionTestUtils.setField(service, "client", new StandInClient(appStore.getAddress().getPort()));
+        ReflectionTestUtils.setField(service, "subscriptionRepository", subscriptionRepo);
+        ReflectionTestUtils.setField(service, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(service, "pageSize", 500);
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        ReflectionTestUtils.setField(service, "concurrency", 2);
+        ReflectionTestUtils.setField(service, "requestsPerSecond", 1000.0);
+        ReflectionTestUtils.setField(service, "maxRetries", 3);
+        ReflectionTestUtils.setField(service, "expiringWithinHours", 48L);
+        ReflectionTestUtils.setField(service, "lapsedWithinDays", 7L);
+        ReflectionTestUtils.setField(service, "staleAfterHours", 24L);
+
+        when(verifier.verifyAndDecodeTransaction(anyString())).thenAnswer(invocation -> {
+            String originalTransactionId = invocation.getArgument(0, String.class).substring("signed-".length());
+            return new JWSTransactionDecodedPayload()
+                    .originalTransactionId(originalTransactionId)
+                    .transactionId(originalTransactionId + "-renewal")
+                    .productId("premium_monthly")
+                    .purchaseDate(EXPIRES.minus(30, ChronoUnit.DAYS).toEpochMilli())
+                    .expiresDate(EXPIRES.toEpochMilli());
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        appStore.stop(0);
+    }
+
+    @Test
+    void syncsDueSubscriptionsThroughTheApiAndWritesOnlySyncedColumns() {
+        List<UserSubscription> subscriptions = List.of(subscription(1L, "1000"), subscription(2L, "2000"),
+                subscription(3L, "3000"));
+        when(subscriptionRepo.findDueForSync(anyLong(), any(), any(), any(), any()))
+                .thenReturn(subscriptions.stream().map(s -> new Object[]{s.getId(), s.getExpirationDate()}).toList());
+        when(subscriptionRepo.findByIdIn(anyCollection())).thenAnswer(invocation -> subscriptions.stream()
+                .filter(s -> invocation.getArgument(0, Collection.class).contains(s.getId())).toList());
+        // The notification inbox already stored a later renewal for subscription 3; the guarded update skips it.
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            return rows.stream().mapToInt(row -> row[6].equals(3L) ? 0 : 1).toArray();
+        });
+
+        int updated = service.syncTransactionHistory();
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(historyCalls).containsOnlyKeys("1000", "2000", "3000");
+        assertThat(historyCalls.values().stream().mapToInt(AtomicInteger::get).sum()).isEqualTo(4);
+        // One batch per chunk of two, writing only the synced columns behind the expiration guard.
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(
+                argThat((String sql) -> sql.startsWith("UPDATE user_subscription SET product_id = ?")
+                        && sql.endsWith("AND (expiration_date IS NULL OR expiration_date <= ?)")),
+                batches.capture());
+        Object[] first = batches.getAllValues().stream().flatMap(List::stream)
+                .filter(row -> row[6].equals(1L)).findFirst().orElseThrow();
+        assertThat(first[0]).isEqualTo("premium_monthly");
+        assertThat(first[1]).isEqualTo(Timestamp.from(EXPIRES));
+        assertThat(first[3]).isEqualTo("1000-renewal");
+        assertThat(first[4]).isEqualTo("ACTIVE");
+        verify(subscriptionRepo, never()).saveAll(any());
+        verify(subscriptionRepo, never()).save(any());
+        verify(eventPublisher, times(2)).publishEvent(any(SubscriptionChangedEvent.class));
+    }
+
+    private void history(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String originalTransactionId = path.substring(path.lastIndexOf('/') + 1);
+        historyCalls.computeIfAbsent(originalTransactionId, id -> new AtomicInteger()).incrementAndGet();
+
+        if (rateLimitedResponses.getAndDecrement() > 0) {
+            respond(exchange, 429, "{\"errorCode\":4290000,\"errorMessage\":\"Rate limit exceeded.\"}");
+        } else {
+            respond(exchange, 200, "{\"hasMore\":false,\"signedTransactions\":[\"signed-" + originalTransactionId + "\"]}");
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static UserSubscription subscription(long id, String originalTransactionId) {
+        UserSubscription subscription = new UserSubscription();
+        subscription.setId(id);
+        subscription.setPlatform("ios");
+        subscription.setOriginalTransactionId(originalTransactionId);
+        subscription.setExpirationDate(Instant.now().plus(1, ChronoUnit.DAYS));
+        subscription.setStatus("ACTIVE");
+        subscription.setUser(User.builder().userId((int) id).build());
+        return subscription;
+    }
+
+    /**
+     * The real API client with its requests redirected from Apple's host to the stand-in server.
+     */
+    private static class StandInClient extends AppStoreServerAPIClient {
+        private final int port;
+
+        StandInClient(int port) {
+            super(() -> "test-token", Environment.LOCAL_TESTING);
+            this.port = port;
+        }
+
+        @Override
+        protected Response getResponse(Request request) throws IOException {
+            return super.getResponse(request.newBuilder()
+                    .url(request.url().newBuilder().scheme("http").host("127.0.0.1").port(port).build())
+                    .build());
+        }
+    }
+}
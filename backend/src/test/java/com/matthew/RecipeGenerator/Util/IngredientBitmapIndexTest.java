@@ -0,0 +1,59 @@
+package com.matthew.RecipeGenerator.Util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IngredientBitmapIndexTest {
+
+    @Test
+    void scoresMatchedAndRequiredIngredients() {
+        IngredientBitmapIndex index = new IngredientBitmapIndex();
+        index.put(1, List.of(10, 11, 12));
+        index.add(2, 11);
+        index.add(2, 13);
+
+        Map<Integer, int[]> scores = score(index, index.toBits(List.of(11, 12, 99)));
+
+        assertThat(scores.get(1)).containsExactly(2, 3);
+        assertThat(scores.get(2)).containsExactly(1, 2);
+    }
+
+    @Test
+    void handlesIngredientsBeyondTheFirstWord() {
+        IngredientBitmapIndex index = new IngredientBitmapIndex();
+        index.put(1, IntStream.range(0, 130).boxed().toList());
+        index.put(2, List.of(129));
+
+        Map<Integer, int[]> scores = score(index, index.toBits(List.of(0, 64, 129)));
+
+        assertThat(scores.get(1)).containsExactly(3, 130);
+        assertThat(scores.get(2)).containsExactly(1, 1);
+        assertThat(score(index, new long[0]).get(2)).containsExactly(0, 1);
+    }
+
+    @Test
+    void putReplacesAndRemoveDropsARecipe() {
+        IngredientBitmapIndex index = new IngredientBitmapIndex();
+        index.put(1, List.of(10, 11));
+        index.put(1, List.of(12));
+        index.put(2, List.of(10));
+        index.remove(2);
+
+        Map<Integer, int[]> scores = score(index, index.toBits(List.of(10, 12)));
+
+        assertThat(scores).containsOnlyKeys(1);
+        assertThat(scores.get(1)).containsExactly(1, 1);
+    }
+
+    private static Map<Integer, int[]> score(IngredientBitmapIndex index, long[] have) {
+        Map<Integer, int[]> scores = new HashMap<>();
+        index.score(have, scores::put);
+        return scores;
+    }
+}
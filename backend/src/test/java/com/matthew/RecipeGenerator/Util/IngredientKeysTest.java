@@ -0,0 +1,34 @@
+package com.matthew.RecipeGenerator.Util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IngredientKeysTest {
+
+    @Test
+    void canonicalIngredientTrimsLowercasesAndCollapsesWhitespace() {
+        assertThat(IngredientKeys.canonicalIngredient("  Brown \t  Rice ")).isEqualTo("brown rice");
+        assertThat(IngredientKeys.canonicalIngredient("EGG")).isEqualTo("egg");
+        assertThat(IngredientKeys.canonicalIngredient("   ")).isEmpty();
+        assertThat(IngredientKeys.canonicalIngredient(null)).isEmpty();
+    }
+
+    @Test
+    void nonAsciiMatchesTheLocaleRootForm() {
+        assertThat(IngredientKeys.canonicalIngredient(" Crème  FRAÎCHE ")).isEqualTo("crème fraîche");
+        assertThat(IngredientKeys.canonicalIngredient("JALAPEÑO")).isEqualTo("jalapeño");
+    }
+
+    @Test
+    void canonicalSetIsOrderAndDuplicateInsensitive() {
+        assertThat(IngredientKeys.canonicalSet(Arrays.asList("Rice", " chicken", "rice ", "", null)))
+                .isEqualTo("chicken,rice");
+        assertThat(IngredientKeys.canonicalSet(List.of("chicken", "Rice")))
+                .isEqualTo(IngredientKeys.canonicalSet(List.of("rice", "CHICKEN")));
+        assertThat(IngredientKeys.canonicalIngredients(List.of(" ", ""))).isEmpty();
+    }
+}
@@ -0,0 +1,54 @@
+package com.matthew.RecipeGenerator.Util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LossyRingBufferTest {
+
+    @Test
+    void drainsInOrderAndDropsWhenFull() {
+        LossyRingBuffer<Integer> buffer = new LossyRingBuffer<>(4);
+        for (int i = 0; i < 6; i++) {
+            buffer.offer(i);
+        }
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drainTo(drained::add)).isEqualTo(4);
+        assertThat(drained).containsExactly(0, 1, 2, 3);
+        assertThat(buffer.dropped()).isEqualTo(2);
+
+        assertThat(buffer.offer(6)).isTrue();
+        buffer.drainTo(drained::add);
+        assertThat(drained).endsWith(6);
+    }
+
+    @Test
+    void everyOfferIsEitherDrainedOrCountedAsDropped() throws Exception {
+        LossyRingBuffer<Integer> buffer = new LossyRingBuffer<>(256);
+        int producers = 4;
+        int perProducer = 50_000;
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    buffer.offer(i);
+                }
+                done.countDown();
+            }).start();
+        }
+
+        AtomicLong drained = new AtomicLong();
+        while (done.getCount() > 0) {
+            buffer.drainTo(element -> drained.incrementAndGet());
+        }
+        buffer.drainTo(element -> drained.incrementAndGet());
+
+        assertThat(drained.get() + buffer.dropped()).isEqualTo((long) producers * perProducer);
+    }
+}
@@ -0,0 +1,64 @@
+package com.matthew.RecipeGenerator.Util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuantityNormalizerTest {
+
+    @Test
+    void capitalTIsATablespoonAndLowercaseTATeaspoon() {
+        assertThat(QuantityNormalizer.normalizeUnit("T")).isEqualTo("tbsp");
+        assertThat(QuantityNormalizer.normalizeUnit("T.")).isEqualTo("tbsp");
+        assertThat(QuantityNormalizer.normalizeUnit("t")).isEqualTo("tsp");
+        assertThat(QuantityNormalizer.normalize("1", "T").amount()).isEqualByComparingTo("14.7868");
+        assertThat(QuantityNormalizer.normalize("1", "t").amount()).isEqualByComparingTo("4.9289");
+    }
+
+    @Test
+    void otherUnitsAreCaseInsensitive() {
+        assertThat(QuantityNormalizer.normalizeUnit("TBSP")).isEqualTo("tbsp");
+        assertThat(QuantityNormalizer.normalizeUnit(" Cups ")).isEqualTo("cups");
+        assertThat(QuantityNormalizer.normalize("2", "Cups").unit()).isEqualTo("ml");
+    }
+
+    @Test
+    void convertsToCanonicalUnits() {
+        QuantityNormalizer.NormalizedQuantity grams = QuantityNormalizer.normalize("1.5", "kg");
+        assertThat(grams.unit()).isEqualTo("g");
+        assertThat(grams.amount()).isEqualByComparingTo("1500");
+
+        QuantityNormalizer.NormalizedQuantity milliliters = QuantityNormalizer.normalize("2", "tablespoons");
+        assertThat(milliliters.unit()).isEqualTo("ml");
+        assertThat(milliliters.amount()).isEqualByComparingTo("29.5736");
+    }
+
+    @Test
+    void keepsUnknownUnitsAndCollapsesPlurals() {
+        QuantityNormalizer.NormalizedQuantity cloves = QuantityNormalizer.normalize("3", "Cloves");
+        assertThat(cloves.unit()).isEqualTo("clove");
+        assertThat(cloves.amount()).isEqualByComparingTo("3");
+        assertThat(QuantityNormalizer.normalizeUnit("glass")).isEqualTo("glass");
+        assertThat(QuantityNormalizer.normalizeUnit(null)).isEmpty();
+    }
+
+    @Test
+    void parsesFractionsMixedNumbersAndRanges() {
+        assertThat(QuantityNormalizer.parseAmount("1/2")).isEqualByComparingTo("0.5");
+        assertThat(QuantityNormalizer.parseAmount("1 1/2")).isEqualByComparingTo("1.5");
+        assertThat(QuantityNormalizer.parseAmount("1½")).isEqualByComparingTo("1.5");
+        assertThat(QuantityNormalizer.parseAmount("2-3")).isEqualByComparingTo("3");
+        assertThat(QuantityNormalizer.parseAmount("2 to 4")).isEqualByComparingTo("4");
+        assertThat(QuantityNormalizer.parseAmount(".25")).isEqualByComparingTo(new BigDecimal("0.25"));
+    }
+
+    @Test
+    void nonNumericQuantitiesAreNull() {
+        assertThat(QuantityNormalizer.parseAmount("to taste")).isNull();
+        assertThat(QuantityNormalizer.parseAmount("1/0")).isNull();
+        assertThat(QuantityNormalizer.parseAmount("")).isNull();
+        assertThat(QuantityNormalizer.normalize("a pinch", "g").amount()).isNull();
+    }
+}
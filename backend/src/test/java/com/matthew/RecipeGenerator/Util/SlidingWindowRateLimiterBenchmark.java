@@ -0,0 +1,39 @@
+package com.matthew.RecipeGenerator.Util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the limiter as the rate limit filter pays it, for a small and a large population of
+ * clients. The limit is high enough that requests are allowed, so every call takes the CAS path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SlidingWindowRateLimiterBenchmark {
+
+    @Param({"1000", "100000"})
+    public int clients;
+
+    private SlidingWindowRateLimiter limiter;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        limiter = new SlidingWindowRateLimiter(60_000, 60_000L, clients);
+        keys = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            keys[i] = "10." + (i >>> 16) + "." + ((i >>> 8) & 0xFF) + "." + (i & 0xFF);
+        }
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        return limiter.tryAcquire(keys[ThreadLocalRandom.current().nextInt(keys.length)], System.currentTimeMillis());
+    }
+}
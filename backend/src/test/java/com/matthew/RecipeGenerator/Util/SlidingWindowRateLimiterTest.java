@@ -0,0 +1,72 @@
+package com.matthew.RecipeGenerator.Util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingWindowRateLimiterTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    void enforcesLimitWithinWindow() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(3, MINUTE, 100);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("10.0.0.1", 1_000)).isZero();
+        }
+
+        assertThat(limiter.tryAcquire("10.0.0.1", 1_000)).isEqualTo(MINUTE - 1_000);
+    }
+
+    @Test
+    void keysNeverShareBudgets() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(1, MINUTE, 100_000);
+
+        for (int i = 0; i < 50_000; i++) {
+            assertThat(limiter.tryAcquire("user-" + i, 1_000)).isZero();
+        }
+        assertThat(limiter.tryAcquire("user-0", 1_000)).isPositive();
+    }
+
+    @Test
+    void weighsPreviousWindowByOverlap() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(4, MINUTE, 100);
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire("k", 59_000);
+        }
+
+        // A quarter into the next window, 3 of the previous 4 still count, leaving room for one more.
+        assertThat(limiter.tryAcquire("k", MINUTE + 15_000)).isZero();
+        assertThat(limiter.tryAcquire("k", MINUTE + 15_000)).isPositive();
+        // Two windows on, nothing carries over.
+        assertThat(limiter.tryAcquire("k", 3 * MINUTE)).isZero();
+    }
+
+    @Test
+    void refusesUntrackedKeysWhileFullAndSweepsIdleOnes() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(5, MINUTE, 2);
+        limiter.tryAcquire("a", 1_000);
+        limiter.tryAcquire("b", 1_000);
+
+        assertThat(limiter.tryAcquire("c", 2_000)).isPositive();
+        assertThat(limiter.tryAcquire("a", 2_000)).isZero();
+
+        // "a" and "b" have been idle for a full window, so they are swept to make room.
+        assertThat(limiter.tryAcquire("c", 2 * MINUTE + 1_000)).isZero();
+        assertThat(limiter.trackedKeys()).isEqualTo(1);
+    }
+
+    @Test
+    void failOpenLimiterLetsUntrackedKeysThroughWhileFull() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(1, MINUTE, 2, true);
+        limiter.tryAcquire("junk-1@example.com", 1_000);
+        limiter.tryAcquire("junk-2@example.com", 1_000);
+
+        assertThat(limiter.tryAcquire("alice@example.com", 2_000)).isZero();
+        assertThat(limiter.tryAcquire("alice@example.com", 2_000)).isZero();
+        assertThat(limiter.trackedKeys()).isEqualTo(2);
+        // Keys already tracked are still limited.
+        assertThat(limiter.tryAcquire("junk-1@example.com", 2_000)).isPositive();
+    }
+}
@@ -0,0 +1,131 @@
+package com.matthew.RecipeGenerator.Verifier;
+
+import com.matthew.RecipeGenerator.Dto.AppleReceiptResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Points the verifier at an in-process stand-in for Apple's production and sandbox verifyReceipt endpoints.
+ */
+class AppleReceiptVerifierTest {
+
+    private HttpServer apple;
+    private final List<String> calls = new CopyOnWriteArrayList<>();
+    private final Deque<Reply> production = new ArrayDeque<>();
+    private final Deque<Reply> sandbox = new ArrayDeque<>();
+    private AppleReceiptVerifier verifier;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        apple = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        apple.createContext("/production", exchange -> reply(exchange, "production", production));
+        apple.createContext("/sandbox", exchange -> reply(exchange, "sandbox", sandbox));
+        apple.start();
+
+        String base = "http://127.0.0.1:" + apple.getAddress().getPort();
+        verifier = new AppleReceiptVerifier(1000, 2000, base + "/production", base + "/sandbox");
+        ReflectionTestUtils.setField(verifier, "appleSharedSecret", "secret");
+        ReflectionTestUtils.setField(verifier, "maxCacheTtlMinutes", 60L);
+        ReflectionTestUtils.setField(verifier, "maxCacheEntries", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        apple.stop(0);
+    }
+
+    @Test
+    void remembersThatAnOriginUsesTheSandbox() {
+        production.add(new Reply(200, status(21007)));
+        sandbox.add(new Reply(200, valid()));
+        sandbox.add(new Reply(200, valid()));
+
+        assertThat(verifier.verifyReceipt("receipt-1", "7").getStatus()).isZero();
+        assertThat(verifier.verifyReceipt("receipt-2", "7").getStatus()).isZero();
+
+        assertThat(calls).containsExactly("production", "sandbox", "sandbox");
+    }
+
+    @Test
+    void reusesAVerifiedReceiptUntilItExpires() {
+        production.add(new Reply(200, valid()));
+
+        verifier.verifyReceipt("receipt-1", "7");
+        AppleReceiptResponse second = verifier.verifyReceipt("receipt-1", "7");
+
+        assertThat(second.getStatus()).isZero();
+        assertThat(second.getLatestReceiptInfo()).hasSize(1);
+        assertThat(calls).containsExactly("production");
+    }
+
+    @Test
+    void failedCallIsNotTreatedAsAValidReceipt() {
+        production.add(new Reply(500, "unavailable"));
+        production.add(new Reply(200, status(21007)));
+        sandbox.add(new Reply(200, valid()));
+
+        AppleReceiptResponse failed = verifier.verifyReceipt("receipt-1", "7");
+
+        assertThat(failed.getStatus()).isEqualTo(AppleReceiptVerifier.RECEIPT_SERVER_UNAVAILABLE);
+        // Neither cached nor pinned to production: the retry goes back to Apple and still follows the redirect.
+        assertThat(verifier.verifyReceipt("receipt-1", "7").getStatus()).isZero();
+        assertThat(calls).containsExactly("production", "production", "sandbox");
+    }
+
+    @Test
+    void failedSandboxRetryIsNotRemembered() {
+        production.add(new Reply(200, status(21007)));
+        sandbox.add(new Reply(500, "unavailable"));
+        production.add(new Reply(200, valid()));
+
+        assertThat(verifier.verifyReceipt("receipt-1", "7").getStatus())
+                .isEqualTo(AppleReceiptVerifier.RECEIPT_SERVER_UNAVAILABLE);
+        assertThat(verifier.verifyReceipt("receipt-1", "7").getStatus()).isZero();
+
+        assertThat(calls).containsExactly("production", "sandbox", "production");
+    }
+
+    private void reply(HttpExchange exchange, String environment, Deque<Reply> replies) throws IOException {
+        calls.add(environment);
+        exchange.getRequestBody().readAllBytes();
+        Reply reply = replies.poll();
+        if (reply == null) reply = new Reply(500, "no reply scripted");
+        byte[] body = reply.body().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(reply.status(), body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String status(int status) {
+        return "{\"status\":" + status + "}";
+    }
+
+    private static String valid() {
+        long expires = System.currentTimeMillis() + Duration.ofDays(30).toMillis();
+        return "{\"status\":0,\"latest_receipt_info\":[{\"product_id\":\"premium_monthly\"," +
+                "\"original_transaction_id\":\"1000\",\"transaction_id\":\"1001\"," +
+                "\"purchase_date_ms\":\"" + (expires - Duration.ofDays(30).toMillis()) + "\"," +
+                "\"expires_date_ms\":\"" + expires + "\"}]}";
+    }
+
+    private record Reply(int status, String body) {
+    }
+}